@@ -0,0 +1,72 @@
+package ecommerce.tutorial.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityNotFoundException;
+
+import ecommerce.tutorial.cache.BoundedCache;
+import ecommerce.tutorial.mongodb.models.EmbeddedCategory;
+
+//The categories of a new MongoDB product, as ProductService.addNewProductInMongoDB builds them: every category of the
+//request is looked up in the ReferenceCache, which hands out a fresh copy, and put into a new HashSet.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class EmbeddedCategoryBenchmark
+{
+    @Param({"1", "3", "10"})
+    private int categories;
+
+    private HashSet<EmbeddedCategory> requested;
+
+    private BoundedCache<String, EmbeddedCategory> cache;
+
+    @Setup
+    public void setUp()
+    {
+        requested = new HashSet<>();
+        cache = new BoundedCache<>("mongo.categories", 10000);
+        for (int i = 0; i < categories; i++)
+        {
+            EmbeddedCategory category = Models.embeddedCategory(i);
+            requested.add(new EmbeddedCategory(category.getId(), null));
+            cache.put(category.getId(), category);
+        }
+    }
+
+    //The copies alone, without the lookups.
+    @Benchmark
+    public HashSet<EmbeddedCategory> copy()
+    {
+        HashSet<EmbeddedCategory> copies = new HashSet<>();
+        for (EmbeddedCategory embCat : requested)
+        {
+            copies.add(new EmbeddedCategory(embCat.getId(), embCat.getName()));
+        }
+        return copies;
+    }
+
+    //The cache is warm, the loader of ReferenceCache.findMongoCategory never runs.
+    @Benchmark
+    public HashSet<EmbeddedCategory> copyFromReferenceCache()
+    {
+        HashSet<EmbeddedCategory> copies = new HashSet<>();
+        for (EmbeddedCategory embCat : requested)
+        {
+            EmbeddedCategory category = cache.get(embCat.getId(), key -> null);
+            copies.add(Optional.ofNullable(category).map(c -> new EmbeddedCategory(c.getId(), c.getName())).orElseThrow(EntityNotFoundException::new));
+        }
+        return copies;
+    }
+}
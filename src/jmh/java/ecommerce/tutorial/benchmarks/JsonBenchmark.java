@@ -0,0 +1,150 @@
+package ecommerce.tutorial.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import ecommerce.tutorial.jpa.entities.CategoryEntity;
+import ecommerce.tutorial.jpa.entities.ProductEntity;
+import ecommerce.tutorial.jpa.entities.SellerEntity;
+import ecommerce.tutorial.mongodb.models.Category;
+import ecommerce.tutorial.mongodb.models.Product;
+import ecommerce.tutorial.mongodb.models.Seller;
+
+//Writes and reads every model the endpoints return or take, with a mapper built the way Spring Boot builds the one of
+//the message converters.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class JsonBenchmark
+{
+    private ObjectMapper mapper;
+
+    private Product product;
+
+    private Seller seller;
+
+    private Category category;
+
+    private ProductEntity productEntity;
+
+    private SellerEntity sellerEntity;
+
+    private CategoryEntity categoryEntity;
+
+    private byte[] productJson;
+
+    private byte[] sellerJson;
+
+    private byte[] categoryJson;
+
+    private byte[] productEntityJson;
+
+    private byte[] sellerEntityJson;
+
+    private byte[] categoryEntityJson;
+
+    @Setup
+    public void setUp() throws IOException
+    {
+        mapper = Jackson2ObjectMapperBuilder.json().build();
+        product = Models.product();
+        seller = Models.seller();
+        category = Models.category(0);
+        productEntity = Models.productEntity();
+        sellerEntity = Models.sellerEntity();
+        categoryEntity = Models.categoryEntity(0);
+        productJson = mapper.writeValueAsBytes(product);
+        sellerJson = mapper.writeValueAsBytes(seller);
+        categoryJson = mapper.writeValueAsBytes(category);
+        productEntityJson = mapper.writeValueAsBytes(productEntity);
+        sellerEntityJson = mapper.writeValueAsBytes(sellerEntity);
+        categoryEntityJson = mapper.writeValueAsBytes(categoryEntity);
+    }
+
+
+    //----------MongoDB--------------------------
+    @Benchmark
+    public byte[] writeProduct() throws IOException
+    {
+        return mapper.writeValueAsBytes(product);
+    }
+
+    @Benchmark
+    public Product readProduct() throws IOException
+    {
+        return mapper.readValue(productJson, Product.class);
+    }
+
+    @Benchmark
+    public byte[] writeSeller() throws IOException
+    {
+        return mapper.writeValueAsBytes(seller);
+    }
+
+    @Benchmark
+    public Seller readSeller() throws IOException
+    {
+        return mapper.readValue(sellerJson, Seller.class);
+    }
+
+    @Benchmark
+    public byte[] writeCategory() throws IOException
+    {
+        return mapper.writeValueAsBytes(category);
+    }
+
+    @Benchmark
+    public Category readCategory() throws IOException
+    {
+        return mapper.readValue(categoryJson, Category.class);
+    }
+
+
+    //----------MySQL----------------------------
+    @Benchmark
+    public byte[] writeProductEntity() throws IOException
+    {
+        return mapper.writeValueAsBytes(productEntity);
+    }
+
+    @Benchmark
+    public ProductEntity readProductEntity() throws IOException
+    {
+        return mapper.readValue(productEntityJson, ProductEntity.class);
+    }
+
+    @Benchmark
+    public byte[] writeSellerEntity() throws IOException
+    {
+        return mapper.writeValueAsBytes(sellerEntity);
+    }
+
+    @Benchmark
+    public SellerEntity readSellerEntity() throws IOException
+    {
+        return mapper.readValue(sellerEntityJson, SellerEntity.class);
+    }
+
+    @Benchmark
+    public byte[] writeCategoryEntity() throws IOException
+    {
+        return mapper.writeValueAsBytes(categoryEntity);
+    }
+
+    @Benchmark
+    public CategoryEntity readCategoryEntity() throws IOException
+    {
+        return mapper.readValue(categoryEntityJson, CategoryEntity.class);
+    }
+}
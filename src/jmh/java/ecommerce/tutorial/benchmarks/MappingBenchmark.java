@@ -0,0 +1,72 @@
+package ecommerce.tutorial.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+import ecommerce.tutorial.enums.Backend;
+import ecommerce.tutorial.jpa.entities.ProductEntity;
+import ecommerce.tutorial.mongodb.models.EmbeddedSeller;
+import ecommerce.tutorial.mongodb.models.Product;
+import ecommerce.tutorial.mongodb.models.Seller;
+import ecommerce.tutorial.search.ProductDocument;
+import ecommerce.tutorial.search.ProductSummary;
+import ecommerce.tutorial.versioning.ETags;
+
+//The copies the controllers make of every product they write or list: the seller embedded into the product, the document
+//of the search index, the summary of a listing, and the entity tag.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MappingBenchmark
+{
+    private Seller seller;
+
+    private Product product;
+
+    private ProductEntity productEntity;
+
+    @Setup
+    public void setUp()
+    {
+        seller = Models.seller();
+        product = Models.product();
+        productEntity = Models.productEntity();
+    }
+
+    @Benchmark
+    public EmbeddedSeller embeddedSeller()
+    {
+        return EmbeddedSeller.of(seller);
+    }
+
+    @Benchmark
+    public ProductDocument productDocument()
+    {
+        return ProductDocument.of(product);
+    }
+
+    @Benchmark
+    public ProductDocument productEntityDocument()
+    {
+        return ProductDocument.of(productEntity);
+    }
+
+    @Benchmark
+    public ProductSummary productSummary()
+    {
+        return new ProductSummary(Backend.MongoDB, product.getId(), product.getName(), product.getPrice());
+    }
+
+    @Benchmark
+    public String productETag()
+    {
+        return ETags.of(product.getId(), product.getVersion());
+    }
+}
@@ -0,0 +1,101 @@
+package ecommerce.tutorial.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import ecommerce.tutorial.enums.Gender;
+import ecommerce.tutorial.jpa.entities.CategoryEntity;
+import ecommerce.tutorial.jpa.entities.ProductEntity;
+import ecommerce.tutorial.jpa.entities.ProfileEntity;
+import ecommerce.tutorial.jpa.entities.SellerEntity;
+import ecommerce.tutorial.mongodb.models.Category;
+import ecommerce.tutorial.mongodb.models.EmbeddedCategory;
+import ecommerce.tutorial.mongodb.models.EmbeddedSeller;
+import ecommerce.tutorial.mongodb.models.Product;
+import ecommerce.tutorial.mongodb.models.Profile;
+import ecommerce.tutorial.mongodb.models.Seller;
+
+//The models as the endpoints return them, filled like a stored product: ids, versions, a profile and a few categories.
+final class Models
+{
+    static final int CATEGORIES = 3;
+
+    private static final List<String> IMAGES = Arrays.asList("https://images.example.com/products/1/front.jpg",
+            "https://images.example.com/products/1/back.jpg");
+
+    private Models()
+    {
+    }
+
+    static Seller seller()
+    {
+        Seller seller = new Seller("seller-account-1", new Profile("Jane", "Doe", Gender.Female));
+        seller.setId("5b7c2a1e9d3f4a0012345678");
+        seller.setVersion(3L);
+        return seller;
+    }
+
+    static Category category(int i)
+    {
+        Category category = new Category("Category " + i);
+        category.setId("5b7c2a1e9d3f4a00123456a" + i);
+        category.setVersion(1L);
+        category.setProductCount(120 + i);
+        return category;
+    }
+
+    static EmbeddedCategory embeddedCategory(int i)
+    {
+        return new EmbeddedCategory("5b7c2a1e9d3f4a00123456a" + i, "Category " + i);
+    }
+
+    static Product product()
+    {
+        HashSet<EmbeddedCategory> categories = new HashSet<>();
+        for (int i = 0; i < CATEGORIES; i++)
+        {
+            categories.add(embeddedCategory(i));
+        }
+        Product product = new Product("Wireless headphones", "Over-ear headphones with noise cancelling and a 30 hour battery.",
+                149.99f, EmbeddedSeller.of(seller()), categories);
+        product.setId("5b7c2a1e9d3f4a00123456ff");
+        product.setVersion(7L);
+        product.setImage_URLs(new ArrayList<>(IMAGES));
+        return product;
+    }
+
+    static SellerEntity sellerEntity()
+    {
+        SellerEntity seller = new SellerEntity("seller-account-1");
+        seller.setId(1);
+        seller.setVersion(3);
+        ProfileEntity profile = new ProfileEntity(seller, "Jane", "Doe", Gender.Female);
+        profile.setId(1);
+        seller.setProfile(profile);
+        return seller;
+    }
+
+    static CategoryEntity categoryEntity(int i)
+    {
+        CategoryEntity category = new CategoryEntity("Category " + i);
+        category.setId(100 + i);
+        category.setVersion(1);
+        return category;
+    }
+
+    static ProductEntity productEntity()
+    {
+        HashSet<CategoryEntity> categories = new HashSet<>();
+        for (int i = 0; i < CATEGORIES; i++)
+        {
+            categories.add(categoryEntity(i));
+        }
+        ProductEntity product = new ProductEntity("Wireless headphones", "Over-ear headphones with noise cancelling and a 30 hour battery.",
+                149.99f, new ArrayList<>(IMAGES), sellerEntity(), categories);
+        product.setId(1000);
+        product.setVersion(7);
+        return product;
+    }
+}
@@ -1,19 +1,20 @@
 package ecommerce.tutorial;
 
-import com.mongodb.MongoClient;
-import com.mongodb.client.result.UpdateResult;
-
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.data.mongo.MongoReactiveDataAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.mongo.MongoReactiveRepositoriesAutoConfiguration;
+import org.springframework.boot.autoconfigure.mongo.MongoReactiveAutoConfiguration;
+import org.springframework.context.annotation.Bean;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
-import org.springframework.data.mongodb.core.MongoOperations;
-import org.springframework.data.mongodb.core.MongoTemplate;
-import org.springframework.data.mongodb.core.query.Criteria;
-import org.springframework.data.mongodb.core.query.Query;
-import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
@@ -30,27 +31,41 @@ import ecommerce.tutorial.jpa.entities.SellerEntity;
 import ecommerce.tutorial.jpa.repositories.CategoryJpaRepository;
 import ecommerce.tutorial.jpa.repositories.ProductJpaRepository;
 import ecommerce.tutorial.jpa.repositories.SellerJpaRepository;
+import ecommerce.tutorial.membership.CategoryMemberships;
 import ecommerce.tutorial.mongodb.models.Category;
 import ecommerce.tutorial.mongodb.models.EmbeddedCategory;
+import ecommerce.tutorial.mongodb.models.EmbeddedSeller;
 import ecommerce.tutorial.mongodb.models.Product;
 import ecommerce.tutorial.mongodb.models.Profile;
 import ecommerce.tutorial.mongodb.models.Seller;
+import ecommerce.tutorial.mongodb.repositories.CategoryMembershipRepository;
 import ecommerce.tutorial.mongodb.repositories.CategoryRepository;
 import ecommerce.tutorial.mongodb.repositories.ProductRepository;
+import ecommerce.tutorial.mongodb.repositories.ProjectedProductRepository;
 import ecommerce.tutorial.mongodb.repositories.SellerRepository;
+import ecommerce.tutorial.outbox.CatalogOutbox;
+import ecommerce.tutorial.versioning.CollectionVersions;
 
 
 @EnableJpaRepositories(basePackages = "ecommerce.tutorial.jpa.repositories")
 @EnableMongoRepositories(basePackages = "ecommerce.tutorial.mongodb.repositories")
-@SpringBootApplication
+@EnableScheduling
+//The reactive MongoDB client and repositories are only created by ReactiveServingConfiguration, when the reactive mode is on.
+@SpringBootApplication(exclude = {MongoReactiveAutoConfiguration.class, MongoReactiveDataAutoConfiguration.class, MongoReactiveRepositoriesAutoConfiguration.class})
 public class Application implements CommandLineRunner
 {
+    private static final Logger LOG = LoggerFactory.getLogger(Application.class);
+
     @Autowired
     private CategoryRepository _categoryMongoRepository;
     @Autowired
     private ProductRepository _productMongoRepository;
     @Autowired
     private SellerRepository _sellerMongoRepository;
+    @Autowired
+    private CategoryMembershipRepository _categoryMembershipRepository;
+    @Autowired
+    private CategoryMemberships _categoryMemberships;
 
     @Autowired
     private CategoryJpaRepository _categoryJpaRepository;
@@ -59,22 +74,41 @@ public class Application implements CommandLineRunner
     @Autowired
     private SellerJpaRepository _sellerJpaRepository;
 
+    @Autowired
+    private CollectionVersions _collectionVersions;
+    @Autowired
+    private ProjectedProductRepository _projectedProductRepository;
+    @Autowired
+    private CatalogOutbox _catalogOutbox;
+
 
     public static void main(String[] args)
     {
         SpringApplication.run(Application.class, args);
     }
 
+    //The scheduled work must not wait for each other: a fan-out job runs for as long as it has products to update,
+    //the read model projection has to keep up meanwhile.
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler(@Value("${catalog.scheduler.pool-size:4}") int poolSize)
+    {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(poolSize);
+        scheduler.setThreadNamePrefix("scheduled-");
+        return scheduler;
+    }
+
     @Override
     public void run(String... strings) throws Exception
     {
         _categoryJpaRepository.deleteAll();
         _productJpaRepository.deleteAll();
         _sellerJpaRepository.deleteAll();
-        MongoOperations mongoOperation = new MongoTemplate(new MongoClient(), "local");
         _categoryMongoRepository.deleteAll();
+        _categoryMembershipRepository.deleteAll();
         _sellerMongoRepository.deleteAll();
         _productMongoRepository.deleteAll();
+        _projectedProductRepository.deleteAll();
 
 
         //--------------Create two sellers-----------------------------------------
@@ -127,11 +161,8 @@ public class Application implements CommandLineRunner
         Seller seller = new Seller("Peter's account id = 391", profile);
         _sellerMongoRepository.save(seller);
 
-        System.out.println("__________________________________________________________________");
-        System.out.println("Test MongoDB repository");
-        System.out.println("Find seller(s) by first name");
-        _sellerMongoRepository.findByFirstName("Peter").forEach(System.out::println);
-        System.out.println("__________________________________________________________________");
+        LOG.info("Test MongoDB repository, find seller(s) by first name");
+        _sellerMongoRepository.findByFirstName("Peter").forEach(found -> LOG.info("{}", found));
 
 
         //--------------Create four different categories in MongoDB-------------------
@@ -150,49 +181,40 @@ public class Application implements CommandLineRunner
         EmbeddedCategory woodEmbedded = new EmbeddedCategory(woodCategory.getId(), woodCategory.getName());
         EmbeddedCategory handmadeEmbedded = new EmbeddedCategory(handmadeCategory.getId(), handmadeCategory.getName());
         HashSet<EmbeddedCategory> categoryList = new HashSet<>(Arrays.asList(woodEmbedded, handmadeEmbedded));
-        Product desk = new Product("A Wooden Desk", "Made with thick solid reclaimed wood, Easy to Assemble", 249.99f, seller, categoryList);
+        Product desk = new Product("A Wooden Desk", "Made with thick solid reclaimed wood, Easy to Assemble", 249.99f, EmbeddedSeller.of(seller), categoryList);
         desk = _productMongoRepository.save(desk);
 
-        Update update = new Update();
-        update.addToSet("productsOfCategory", desk.getId());
         List<String> ids = desk.getFallIntoCategories().stream().map(EmbeddedCategory::getId).collect(Collectors.toList());
-        Query myUpdateQuery = new Query();
-        myUpdateQuery.addCriteria(Criteria.where("_id").in(ids));
-        UpdateResult updateResult = mongoOperation.updateMulti(myUpdateQuery, update, Category.class);
-        System.out.println("__________________________________________________________________");
-        System.out.println("The count of categories which updated after saving the desk is:  " + String.valueOf(updateResult.getMatchedCount()));
+        int memberships = _categoryMemberships.add(desk.getId(), ids);
+        LOG.info("The count of categories which the desk added into is:  {}", memberships);
 
 
         //--------------Create a product in one category------------------------------
         EmbeddedCategory furnitureEmbedded = new EmbeddedCategory(furnitureCategory.getId(), furnitureCategory.getName());
         categoryList = new HashSet<>(Arrays.asList(furnitureEmbedded));
         Product diningChair = new Product("Antique Dining Chair",
-                "This mid-century fashionable chair is quite comfortable and attractive.", 234.20f, seller, categoryList);
+                "This mid-century fashionable chair is quite comfortable and attractive.", 234.20f, EmbeddedSeller.of(seller), categoryList);
         diningChair = _productMongoRepository.save(diningChair);
 
-        update = new Update();
-        update.addToSet("productsOfCategory", diningChair.getId());
         ids = diningChair.getFallIntoCategories().stream().map(EmbeddedCategory::getId).collect(Collectors.toList());
-        myUpdateQuery = new Query();
-        myUpdateQuery.addCriteria(Criteria.where("_id").in(ids));
-        updateResult = mongoOperation.updateMulti(myUpdateQuery, update, Category.class);
-        System.out.println("__________________________________________________________________");
-        System.out.println("The count of categories which updated after saving the dining chair is:  " + String.valueOf(updateResult.getMatchedCount()));
+        memberships = _categoryMemberships.add(diningChair.getId(), ids);
+        LOG.info("The count of categories which the dining chair added into is:  {}", memberships);
 
 
         //--------------Create a product in three different categories------------------
         EmbeddedCategory kitchenEmbedded = new EmbeddedCategory(kitchenCategory.getId(), kitchenCategory.getName());
         categoryList = new HashSet<>(Arrays.asList(handmadeEmbedded, woodEmbedded, kitchenEmbedded));
-        Product spoon = new Product("Bamboo Spoon", "This is more durable than traditional hardwood spoon, safe to use any cookware.", 13.11f, seller, categoryList);
+        Product spoon = new Product("Bamboo Spoon", "This is more durable than traditional hardwood spoon, safe to use any cookware.", 13.11f, EmbeddedSeller.of(seller), categoryList);
         spoon = _productMongoRepository.save(spoon);
 
-        update = new Update();
-        update.addToSet("productsOfCategory", spoon.getId());
         ids = spoon.getFallIntoCategories().stream().map(EmbeddedCategory::getId).collect(Collectors.toList());
-        myUpdateQuery = new Query();
-        myUpdateQuery.addCriteria(Criteria.where("_id").in(ids));
-        updateResult = mongoOperation.updateMulti(myUpdateQuery, update, Category.class);
-        System.out.println("__________________________________________________________________");
-        System.out.println("The count of categories which updated after saving wooden spoon is:  " + String.valueOf(updateResult.getMatchedCount()));
+        memberships = _categoryMemberships.add(spoon.getId(), ids);
+        LOG.info("The count of categories which the wooden spoon added into is:  {}", memberships);
+
+        //The catalog was recreated, the tags of the listings served before must not match it.
+        _collectionVersions.mongoWritten(CollectionVersions.PRODUCTS, CollectionVersions.CATEGORIES, CollectionVersions.SELLERS);
+        _collectionVersions.mysqlWritten(CollectionVersions.PRODUCTS, CollectionVersions.CATEGORIES, CollectionVersions.SELLERS);
+        //The products of MySQL were written without the outbox, all of them are projected into the read model.
+        _catalogOutbox.rebuild();
     }
 }
@@ -0,0 +1,111 @@
+package ecommerce.tutorial.bulk;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BulkImportReport
+{
+    public static final int MAX_REPORTED_ERRORS = 1000;
+
+    private long lines;
+
+    private long imported;
+
+    private long rejected;
+
+    private long elapsedMillis;
+
+    private double productsPerSecond;
+
+    private boolean errorsTruncated;
+
+    private List<LineError> errors = new ArrayList<>();
+
+    public void lineRead()
+    {
+        lines++;
+    }
+
+    public void imported(int count)
+    {
+        imported += count;
+    }
+
+    public void reject(long line, String message)
+    {
+        rejected++;
+        if (errors.size() < MAX_REPORTED_ERRORS)
+        {
+            errors.add(new LineError(line, message));
+        }
+        else
+        {
+            errorsTruncated = true;
+        }
+    }
+
+    public BulkImportReport finish(long startNanos)
+    {
+        elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+        productsPerSecond = elapsedMillis == 0 ? imported : imported * 1000.0 / elapsedMillis;
+        return this;
+    }
+
+    public long getLines()
+    {
+        return lines;
+    }
+
+    public long getImported()
+    {
+        return imported;
+    }
+
+    public long getRejected()
+    {
+        return rejected;
+    }
+
+    public long getElapsedMillis()
+    {
+        return elapsedMillis;
+    }
+
+    public double getProductsPerSecond()
+    {
+        return productsPerSecond;
+    }
+
+    public boolean isErrorsTruncated()
+    {
+        return errorsTruncated;
+    }
+
+    public List<LineError> getErrors()
+    {
+        return errors;
+    }
+
+    public static class LineError
+    {
+        private final long line;
+
+        private final String message;
+
+        public LineError(long line, String message)
+        {
+            this.line = line;
+            this.message = message;
+        }
+
+        public long getLine()
+        {
+            return line;
+        }
+
+        public String getMessage()
+        {
+            return message;
+        }
+    }
+}
@@ -0,0 +1,357 @@
+package ecommerce.tutorial.bulk;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.MongoBulkWriteException;
+
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import ecommerce.tutorial.cache.ProductReadCache;
+import ecommerce.tutorial.cache.ReferenceCache;
+import ecommerce.tutorial.enums.OutboxAggregate;
+import ecommerce.tutorial.jpa.entities.CategoryEntity;
+import ecommerce.tutorial.jpa.entities.ProductEntity;
+import ecommerce.tutorial.jpa.entities.SellerEntity;
+import ecommerce.tutorial.membership.CategoryMemberships;
+import ecommerce.tutorial.membership.ProductSortKeys;
+import ecommerce.tutorial.mongodb.models.EmbeddedCategory;
+import ecommerce.tutorial.mongodb.models.EmbeddedSeller;
+import ecommerce.tutorial.mongodb.models.Product;
+import ecommerce.tutorial.mongodb.models.Seller;
+import ecommerce.tutorial.outbox.CatalogOutbox;
+import ecommerce.tutorial.search.CatalogIndexer;
+import ecommerce.tutorial.search.ProductDocument;
+import ecommerce.tutorial.versioning.CollectionVersions;
+
+//Imports newline-delimited products in chunks: one set-based lookup of sellers and categories per chunk, then one batched write.
+@Component
+public class ProductBulkImporter
+{
+    private static final int CHUNK_SIZE = 1000;
+
+    @Autowired
+    private MongoOperations _mongoOperations;
+    @Autowired
+    private ReferenceCache _referenceCache;
+    @Autowired
+    private CatalogIndexer _catalogIndexer;
+    @Autowired
+    private CategoryMemberships _categoryMemberships;
+    @Autowired
+    private ProductSortKeys _productSortKeys;
+    @Autowired
+    private ProductReadCache _productReadCache;
+    @Autowired
+    private CollectionVersions _collectionVersions;
+    @Autowired
+    private CatalogOutbox _catalogOutbox;
+    @Autowired
+    private TransactionTemplate _transactionTemplate;
+    @Autowired
+    private ObjectMapper _objectMapper;
+    @PersistenceContext
+    private EntityManager _entityManager;
+
+
+    //----------MongoDB--------------------------
+    public BulkImportReport importIntoMongoDB(InputStream body) throws IOException
+    {
+        long start = System.nanoTime();
+        BulkImportReport report = new BulkImportReport();
+        readInChunks(body, Product.class, report, chunk -> writeChunkToMongoDB(chunk, report));
+        return report.finish(start);
+    }
+
+    private void writeChunkToMongoDB(List<Line<Product>> chunk, BulkImportReport report)
+    {
+        Set<String> sellerIds = new HashSet<>();
+        Set<String> categoryIds = new HashSet<>();
+        for (Line<Product> line : chunk)
+        {
+            if (line.value.getSeller() != null)
+            {
+                sellerIds.add(line.value.getSeller().getId());
+            }
+            if (line.value.getFallIntoCategories() != null)
+            {
+                line.value.getFallIntoCategories().forEach(embCat -> categoryIds.add(embCat.getId()));
+            }
+        }
+        Map<String, Seller> sellers = _referenceCache.findMongoSellers(sellerIds);
+        Map<String, EmbeddedCategory> categories = _referenceCache.findMongoCategories(categoryIds);
+
+        List<Product> products = new ArrayList<>(chunk.size());
+        List<Long> lineNumbers = new ArrayList<>(chunk.size());
+        for (Line<Product> line : chunk)
+        {
+            Product product = line.value;
+            if (product.getName() == null || product.getName().trim().isEmpty())
+            {
+                report.reject(line.number, "The product must have a name!");
+                continue;
+            }
+            Seller seller = product.getSeller() == null ? null : sellers.get(product.getSeller().getId());
+            if (seller == null)
+            {
+                report.reject(line.number, "The seller of this product doesn't exists in MongoDB!");
+                continue;
+            }
+            HashSet<EmbeddedCategory> embeddedCategories = new HashSet<>();
+            boolean missingCategory = false;
+            if (product.getFallIntoCategories() != null)
+            {
+                for (EmbeddedCategory embCat : product.getFallIntoCategories())
+                {
+                    EmbeddedCategory category = categories.get(embCat.getId());
+                    if (category == null)
+                    {
+                        missingCategory = true;
+                        break;
+                    }
+                    embeddedCategories.add(new EmbeddedCategory(category.getId(), category.getName()));
+                }
+            }
+            if (missingCategory)
+            {
+                report.reject(line.number, "One of the categories which the product falls into, doesn't exists!");
+                continue;
+            }
+            if (embeddedCategories.isEmpty())
+            {
+                report.reject(line.number, "The product must belongs to at least one category!");
+                continue;
+            }
+            Product productMongoDB = new Product(product.getName(), product.getDescription(), product.getPrice(), EmbeddedSeller.of(seller), embeddedCategories);
+            productMongoDB.setImage_URLs(product.getImage_URLs());
+            //Assign the id up front, the bulk insert does not copy generated ids back to the objects.
+            productMongoDB.setId(new ObjectId().toHexString());
+            products.add(productMongoDB);
+            lineNumbers.add(line.number);
+        }
+        if (products.isEmpty())
+        {
+            return;
+        }
+
+        Set<Integer> failed = new HashSet<>();
+        try
+        {
+            _mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class).insert(products).execute();
+        }
+        //The driver exception is thrown as it is, the bulk operations do not translate it.
+        catch (MongoBulkWriteException e)
+        {
+            if (e.getWriteConcernError() != null)
+            {
+                throw e;
+            }
+            e.getWriteErrors().forEach(error -> {
+                failed.add(error.getIndex());
+                report.reject(lineNumbers.get(error.getIndex()), error.getMessage());
+            });
+        }
+        report.imported(products.size() - failed.size());
+
+        //add the inserted products to the memberships of their categories, in one batch
+        Map<String, List<String>> productIdsByCategory = new LinkedHashMap<>();
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < products.size(); i++)
+        {
+            if (failed.contains(i))
+            {
+                continue;
+            }
+            Product product = products.get(i);
+            _catalogIndexer.indexed(ProductDocument.of(product));
+            names.add(product.getName());
+            for (EmbeddedCategory embCat : product.getFallIntoCategories())
+            {
+                productIdsByCategory.computeIfAbsent(embCat.getId(), id -> new ArrayList<>()).add(product.getId());
+            }
+        }
+        _categoryMemberships.addAll(productIdsByCategory);
+        _productReadCache.mongoProductsCreated(names);
+        _collectionVersions.mongoWritten(CollectionVersions.PRODUCTS, CollectionVersions.CATEGORIES);
+    }
+
+
+    //----------MySQL----------------------------
+    public BulkImportReport importIntoMysql(InputStream body) throws IOException
+    {
+        long start = System.nanoTime();
+        BulkImportReport report = new BulkImportReport();
+        readInChunks(body, ProductEntity.class, report, chunk -> {
+            //The lines rejected before the write, by line number, each reported once whatever happens to the chunk.
+            Map<Long, String> invalid = new LinkedHashMap<>();
+            try
+            {
+                List<ProductEntity> created = _transactionTemplate.execute(status -> writeChunkToMysql(chunk, invalid));
+                report.imported(created.size());
+                created.forEach(product -> _catalogIndexer.indexed(ProductDocument.of(product)));
+                _productReadCache.mysqlProductsCreated(created.stream().map(ProductEntity::getName).collect(Collectors.toList()));
+                _collectionVersions.mysqlWritten(CollectionVersions.PRODUCTS);
+            }
+            catch (RuntimeException e)
+            {
+                //The whole chunk is rolled back: the other lines, written or not reached, are reported with the failure.
+                chunk.stream()
+                        .filter(line -> !invalid.containsKey(line.number))
+                        .forEach(line -> report.reject(line.number, "The chunk of this product failed: " + e.getMessage()));
+            }
+            invalid.forEach(report::reject);
+        });
+        return report.finish(start);
+    }
+
+    private List<ProductEntity> writeChunkToMysql(List<Line<ProductEntity>> chunk, Map<Long, String> invalid)
+    {
+        Set<Long> sellerIds = new HashSet<>();
+        Set<Long> categoryIds = new HashSet<>();
+        for (Line<ProductEntity> line : chunk)
+        {
+            if (line.value.getSeller() != null)
+            {
+                sellerIds.add(line.value.getSeller().getId());
+            }
+            if (line.value.getFallIntoCategories() != null)
+            {
+                line.value.getFallIntoCategories().forEach(categoryEntity -> categoryIds.add(categoryEntity.getId()));
+            }
+        }
+        Map<Long, SellerEntity> sellers = _referenceCache.findMysqlSellers(sellerIds);
+        Map<Long, CategoryEntity> categories = _referenceCache.findMysqlCategories(categoryIds);
+
+        List<ProductEntity> created = new ArrayList<>(chunk.size());
+        for (Line<ProductEntity> line : chunk)
+        {
+            ProductEntity product = line.value;
+            if (product.getName() == null || product.getName().trim().isEmpty())
+            {
+                invalid.put(line.number, "The product must have a name!");
+                continue;
+            }
+            if (product.getImages() == null || product.getImages().isEmpty())
+            {
+                invalid.put(line.number, "The product must have at least one image!");
+                continue;
+            }
+            SellerEntity seller = product.getSeller() == null ? null : sellers.get(product.getSeller().getId());
+            if (seller == null)
+            {
+                invalid.put(line.number, "The seller of this product doesn't exists in MySQL!");
+                continue;
+            }
+            HashSet<CategoryEntity> productCategories = new HashSet<>();
+            boolean missingCategory = false;
+            if (product.getFallIntoCategories() != null)
+            {
+                for (CategoryEntity categoryEntity : product.getFallIntoCategories())
+                {
+                    CategoryEntity category = categories.get(categoryEntity.getId());
+                    if (category == null)
+                    {
+                        missingCategory = true;
+                        break;
+                    }
+                    productCategories.add(category);
+                }
+            }
+            if (missingCategory)
+            {
+                invalid.put(line.number, "One of the categories which the product falls into, doesn't exists!");
+                continue;
+            }
+            if (productCategories.isEmpty())
+            {
+                invalid.put(line.number, "The product must belongs to at least one category!");
+                continue;
+            }
+            ProductEntity createdProductEntity = new ProductEntity(product.getName(),
+                    product.getDescription(),
+                    product.getPrice(),
+                    product.getImages(),
+                    seller,
+                    productCategories);
+            _entityManager.persist(createdProductEntity);
+            created.add(createdProductEntity);
+        }
+        _productSortKeys.created(created);
+        _catalogOutbox.changed(OutboxAggregate.Product, created.stream().map(ProductEntity::getId).collect(Collectors.toList()));
+        //Send the inserts as JDBC batches now and drop the chunk from the persistence context.
+        _entityManager.flush();
+        _entityManager.clear();
+        return created;
+    }
+
+
+    //----------Reading the body-----------------
+    private <T> void readInChunks(InputStream body, Class<T> type, BulkImportReport report, Consumer<List<Line<T>>> writer) throws IOException
+    {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        List<Line<T>> chunk = new ArrayList<>(CHUNK_SIZE);
+        long number = 0;
+        String text;
+        while ((text = reader.readLine()) != null)
+        {
+            number++;
+            if (text.trim().isEmpty())
+            {
+                continue;
+            }
+            report.lineRead();
+            try
+            {
+                chunk.add(new Line<>(number, _objectMapper.readValue(text, type)));
+            }
+            catch (JsonProcessingException e)
+            {
+                report.reject(number, "The line is not a valid product: " + e.getOriginalMessage());
+                continue;
+            }
+            if (chunk.size() == CHUNK_SIZE)
+            {
+                writer.accept(chunk);
+                chunk = new ArrayList<>(CHUNK_SIZE);
+            }
+        }
+        if (!chunk.isEmpty())
+        {
+            writer.accept(chunk);
+        }
+    }
+
+    private static class Line<T>
+    {
+        private final long number;
+
+        private final T value;
+
+        private Line(long number, T value)
+        {
+            this.number = number;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package ecommerce.tutorial.cache;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+//A weight-bounded map that evicts the least recently used entries, optionally expiring them after a time to live.
+//Loads run outside the lock, so a slow database call never blocks other readers.
+public class BoundedCache<K, V>
+{
+    private final String name;
+
+    private final long maxWeight;
+
+    private final ToIntFunction<? super V> weigher;
+
+    //Zero when the entries never expire.
+    private final long ttlNanos;
+
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long weight;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    private final LongAdder expirations = new LongAdder();
+
+    private final LongAdder loads = new LongAdder();
+
+    private final LongAdder loadNanos = new LongAdder();
+
+    //Bumped by every invalidation, so a load that raced with one is not stored.
+    private long generation;
+
+    //Bounded by the number of entries, which never expire.
+    public BoundedCache(String name, int maxSize)
+    {
+        this(name, maxSize, value -> 1, 0);
+    }
+
+    public BoundedCache(String name, long maxWeight, ToIntFunction<? super V> weigher, long ttlNanos)
+    {
+        this.name = name;
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+        this.ttlNanos = ttlNanos;
+    }
+
+    public V get(K key, Function<K, V> loader)
+    {
+        V value;
+        long loadGeneration;
+        synchronized (entries)
+        {
+            value = lookup(key, System.nanoTime());
+            loadGeneration = generation;
+        }
+        if (value != null)
+        {
+            hits.increment();
+            return value;
+        }
+        misses.increment();
+        long start = System.nanoTime();
+        value = loader.apply(key);
+        long loaded = System.nanoTime();
+        loads.increment();
+        loadNanos.add(loaded - start);
+        if (value != null)
+        {
+            synchronized (entries)
+            {
+                if (loadGeneration == generation)
+                {
+                    store(key, value, loaded);
+                }
+            }
+        }
+        return value;
+    }
+
+    //Resolves the cached keys and loads all the missing ones with a single call of the loader.
+    public Map<K, V> getAll(Collection<K> keys, Function<Set<K>, Map<K, V>> loader)
+    {
+        Map<K, V> found = new HashMap<>();
+        Set<K> missing = new HashSet<>();
+        long loadGeneration;
+        synchronized (entries)
+        {
+            loadGeneration = generation;
+            long now = System.nanoTime();
+            for (K key : keys)
+            {
+                V value = lookup(key, now);
+                if (value != null)
+                {
+                    found.put(key, value);
+                }
+                else
+                {
+                    missing.add(key);
+                }
+            }
+        }
+        hits.add(found.size());
+        misses.add(missing.size());
+        if (!missing.isEmpty())
+        {
+            long start = System.nanoTime();
+            Map<K, V> loaded = loader.apply(missing);
+            long end = System.nanoTime();
+            loads.increment();
+            loadNanos.add(end - start);
+            synchronized (entries)
+            {
+                if (loadGeneration == generation)
+                {
+                    loaded.forEach((key, value) -> store(key, value, end));
+                }
+            }
+            found.putAll(loaded);
+        }
+        return found;
+    }
+
+    //The cached value, without loading it when it is missing.
+    public V getIfPresent(K key)
+    {
+        V value;
+        synchronized (entries)
+        {
+            value = lookup(key, System.nanoTime());
+        }
+        if (value == null)
+        {
+            misses.increment();
+        }
+        else
+        {
+            hits.increment();
+        }
+        return value;
+    }
+
+    public void put(K key, V value)
+    {
+        synchronized (entries)
+        {
+            store(key, value, System.nanoTime());
+        }
+    }
+
+    public void invalidate(K key)
+    {
+        synchronized (entries)
+        {
+            remove(key);
+            generation++;
+        }
+    }
+
+    public void invalidate(Collection<K> keys)
+    {
+        synchronized (entries)
+        {
+            keys.forEach(this::remove);
+            generation++;
+        }
+    }
+
+    public void invalidateAll()
+    {
+        synchronized (entries)
+        {
+            entries.clear();
+            weight = 0;
+            generation++;
+        }
+    }
+
+    public CacheStats stats()
+    {
+        int size;
+        long currentWeight;
+        synchronized (entries)
+        {
+            size = entries.size();
+            currentWeight = weight;
+        }
+        return new CacheStats(name, size, currentWeight, maxWeight, hits.sum(), misses.sum(), evictions.sum(), expirations.sum(), loads.sum(), loadNanos.sum());
+    }
+
+    //The callers hold the lock of the entries.
+    private V lookup(K key, long now)
+    {
+        Entry<V> entry = entries.get(key);
+        if (entry == null)
+        {
+            return null;
+        }
+        if (ttlNanos > 0 && now - entry.storedAt >= ttlNanos)
+        {
+            remove(key);
+            expirations.increment();
+            return null;
+        }
+        return entry.value;
+    }
+
+    private void store(K key, V value, long now)
+    {
+        Entry<V> entry = new Entry<>(value, weigher.applyAsInt(value), now);
+        Entry<V> previous = entries.put(key, entry);
+        if (previous != null)
+        {
+            weight -= previous.weight;
+        }
+        weight += entry.weight;
+        //The least recently used entries come first.
+        Iterator<Entry<V>> eldest = entries.values().iterator();
+        while (weight > maxWeight && eldest.hasNext())
+        {
+            weight -= eldest.next().weight;
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    private void remove(K key)
+    {
+        Entry<V> removed = entries.remove(key);
+        if (removed != null)
+        {
+            weight -= removed.weight;
+        }
+    }
+
+    private static class Entry<V>
+    {
+        private final V value;
+
+        private final int weight;
+
+        private final long storedAt;
+
+        private Entry(V value, int weight, long storedAt)
+        {
+            this.value = value;
+            this.weight = weight;
+            this.storedAt = storedAt;
+        }
+    }
+}
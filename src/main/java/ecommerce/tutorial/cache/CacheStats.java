@@ -0,0 +1,100 @@
+package ecommerce.tutorial.cache;
+
+public class CacheStats
+{
+    private final String name;
+
+    private final int size;
+
+    private final long weight;
+
+    private final long maxWeight;
+
+    private final long hits;
+
+    private final long misses;
+
+    private final long evictions;
+
+    private final long expirations;
+
+    private final long loads;
+
+    private final long loadNanos;
+
+    public CacheStats(String name, int size, long weight, long maxWeight, long hits, long misses, long evictions, long expirations, long loads, long loadNanos)
+    {
+        this.name = name;
+        this.size = size;
+        this.weight = weight;
+        this.maxWeight = maxWeight;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.expirations = expirations;
+        this.loads = loads;
+        this.loadNanos = loadNanos;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public int getSize()
+    {
+        return size;
+    }
+
+    //The number of entries when the cache has no weigher.
+    public long getWeight()
+    {
+        return weight;
+    }
+
+    public long getMaxWeight()
+    {
+        return maxWeight;
+    }
+
+    public long getHits()
+    {
+        return hits;
+    }
+
+    public long getMisses()
+    {
+        return misses;
+    }
+
+    public long getEvictions()
+    {
+        return evictions;
+    }
+
+    public long getExpirations()
+    {
+        return expirations;
+    }
+
+    public long getLoads()
+    {
+        return loads;
+    }
+
+    public long getLoadNanos()
+    {
+        return loadNanos;
+    }
+
+    public double getHitRatio()
+    {
+        long requests = hits + misses;
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+
+    public double getAverageLoadMillis()
+    {
+        return loads == 0 ? 0 : loadNanos / 1_000_000.0 / loads;
+    }
+}
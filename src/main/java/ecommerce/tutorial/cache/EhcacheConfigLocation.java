@@ -0,0 +1,35 @@
+package ecommerce.tutorial.cache;
+
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ResourceUtils;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.Map;
+
+//The JCache region factory of Hibernate 5.2 hands the location of ehcache.xml to Ehcache as it is, and a classpath: URL
+//can only be opened where the embedded Tomcat has registered its handler for it. Ehcache is given the URL of the file.
+@Component
+public class EhcacheConfigLocation implements HibernatePropertiesCustomizer
+{
+    private static final String URI = "hibernate.javax.cache.uri";
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties)
+    {
+        Object location = hibernateProperties.get(URI);
+        if (!(location instanceof String) || !((String) location).startsWith(ResourceUtils.CLASSPATH_URL_PREFIX))
+        {
+            return;
+        }
+        try
+        {
+            hibernateProperties.put(URI, ResourceUtils.getURL((String) location).toURI().toString());
+        }
+        catch (IOException | URISyntaxException e)
+        {
+            throw new IllegalStateException("The configuration of the second-level cache is not found at " + location, e);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package ecommerce.tutorial.cache;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import ecommerce.tutorial.jpa.projections.CategoryView;
+import ecommerce.tutorial.jpa.projections.ProductView;
+import ecommerce.tutorial.jpa.projections.ProductViewReader;
+import ecommerce.tutorial.mongodb.models.EmbeddedCategory;
+import ecommerce.tutorial.mongodb.models.Product;
+import ecommerce.tutorial.mongodb.repositories.ProductRepository;
+
+//The products read by name or id, in front of both databases. Each cache is bounded by the estimated size of its products in bytes.
+//A product write invalidates the keys of its old and new name, the old one is the name the product was last cached under;
+//a seller or category write, which changes products embedding it, invalidates a whole backend.
+@Component
+public class ProductReadCache
+{
+    //The fixed part of the estimated size of a product: object headers, numbers and references.
+    private static final int PRODUCT_OVERHEAD = 256;
+
+    //The estimated size of the entry of a name, its key included.
+    private static final int NAME_OVERHEAD = 128;
+
+    @Autowired
+    private ProductRepository _productMongoRepository;
+    @Autowired
+    private ProductViewReader _productViewReader;
+
+    private final BoundedCache<String, Product> mongoProductsByName;
+
+    private final BoundedCache<String, Product> mongoProductsById;
+
+    private final BoundedCache<String, ProductView> mysqlProductsByName;
+
+    //The name each cached product was read under, so a write that does not read the product before still invalidates it.
+    //They are bounded like the products and stored again by every read, so they outlive the products they name.
+    private final BoundedCache<String, String> mongoNameOfId;
+
+    private final BoundedCache<Long, String> mysqlNameOfId;
+
+    public ProductReadCache(@Value("${catalog.product-cache.max-weight:33554432}") long maxWeight,
+                            @Value("${catalog.product-cache.ttl-seconds:300}") long ttlSeconds)
+    {
+        long ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        mongoProductsByName = new BoundedCache<>("mongo.products.by-name", maxWeight, ProductReadCache::weigh, ttlNanos);
+        mongoProductsById = new BoundedCache<>("mongo.products.by-id", maxWeight, ProductReadCache::weigh, ttlNanos);
+        mysqlProductsByName = new BoundedCache<>("mysql.products.by-name", maxWeight, ProductReadCache::weigh, ttlNanos);
+        mongoNameOfId = new BoundedCache<>("mongo.products.names", maxWeight, name -> NAME_OVERHEAD + chars(name), ttlNanos);
+        mysqlNameOfId = new BoundedCache<>("mysql.products.names", maxWeight, name -> NAME_OVERHEAD + chars(name), ttlNanos);
+    }
+
+
+    //----------MongoDB--------------------------
+    public Optional<Product> findMongoProductByName(String name)
+    {
+        Optional<Product> product = Optional.ofNullable(mongoProductsByName.get(name, _productMongoRepository::findByName));
+        product.ifPresent(p -> mongoNameOfId.put(p.getId(), name));
+        return product;
+    }
+
+    public Optional<Product> findMongoProductById(String id)
+    {
+        Optional<Product> product = Optional.ofNullable(mongoProductsById.get(id, key -> _productMongoRepository.findById(key).orElse(null)));
+        product.ifPresent(p -> mongoNameOfId.put(id, p.getName()));
+        return product;
+    }
+
+    //The name is the one the product has after the write.
+    public void mongoProductWritten(String id, String name)
+    {
+        List<String> names = new ArrayList<>(2);
+        names.add(name);
+        String previous = mongoNameOfId.getIfPresent(id);
+        if (previous != null)
+        {
+            names.add(previous);
+        }
+        mongoNameOfId.invalidate(id);
+        mongoProductsById.invalidate(id);
+        mongoProductsByName.invalidate(names);
+    }
+
+    public void mongoProductsCreated(Collection<String> names)
+    {
+        mongoProductsByName.invalidate(names);
+    }
+
+    public void invalidateMongoProducts()
+    {
+        mongoProductsByName.invalidateAll();
+        mongoProductsById.invalidateAll();
+        mongoNameOfId.invalidateAll();
+    }
+
+
+    //----------MySQL----------------------------
+    public Optional<ProductView> findMysqlProductByName(String name)
+    {
+        Optional<ProductView> product = Optional.ofNullable(mysqlProductsByName.get(name, key -> _productViewReader.findByName(key).orElse(null)));
+        product.ifPresent(p -> mysqlNameOfId.put(p.getId(), name));
+        return product;
+    }
+
+    public void mysqlProductWritten(long id, String name)
+    {
+        List<String> names = new ArrayList<>(2);
+        names.add(name);
+        String previous = mysqlNameOfId.getIfPresent(id);
+        if (previous != null)
+        {
+            names.add(previous);
+        }
+        mysqlNameOfId.invalidate(id);
+        mysqlProductsByName.invalidate(names);
+    }
+
+    public void mysqlProductsCreated(Collection<String> names)
+    {
+        mysqlProductsByName.invalidate(names);
+    }
+
+    public void invalidateMysqlProducts()
+    {
+        mysqlProductsByName.invalidateAll();
+        mysqlNameOfId.invalidateAll();
+    }
+
+
+    public List<CacheStats> stats()
+    {
+        return Arrays.asList(mongoProductsByName.stats(), mongoProductsById.stats(), mysqlProductsByName.stats(), mongoNameOfId.stats(), mysqlNameOfId.stats());
+    }
+
+    private static int weigh(Product product)
+    {
+        int weight = PRODUCT_OVERHEAD + chars(product.getName()) + chars(product.getDescription());
+        if (product.getImage_URLs() != null)
+        {
+            for (String image : product.getImage_URLs())
+            {
+                weight += chars(image);
+            }
+        }
+        if (product.getFallIntoCategories() != null)
+        {
+            for (EmbeddedCategory category : product.getFallIntoCategories())
+            {
+                weight += 64 + chars(category.getId()) + chars(category.getName());
+            }
+        }
+        return weight;
+    }
+
+    private static int weigh(ProductView product)
+    {
+        int weight = PRODUCT_OVERHEAD + chars(product.getName()) + chars(product.getDescription());
+        for (String image : product.getImages())
+        {
+            weight += chars(image);
+        }
+        for (CategoryView category : product.getFallIntoCategories())
+        {
+            weight += 32 + chars(category.getName());
+        }
+        return weight;
+    }
+
+    private static int chars(String value)
+    {
+        return value == null ? 0 : 40 + 2 * value.length();
+    }
+}
@@ -0,0 +1,155 @@
+package ecommerce.tutorial.cache;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import ecommerce.tutorial.jpa.entities.CategoryEntity;
+import ecommerce.tutorial.jpa.entities.SellerEntity;
+import ecommerce.tutorial.jpa.repositories.CategoryJpaRepository;
+import ecommerce.tutorial.jpa.repositories.SellerJpaRepository;
+import ecommerce.tutorial.mongodb.models.Category;
+import ecommerce.tutorial.mongodb.models.EmbeddedCategory;
+import ecommerce.tutorial.mongodb.models.Seller;
+import ecommerce.tutorial.mongodb.repositories.SellerRepository;
+
+//Categories and sellers referenced by product writes, kept by id so that validating a product does not cost a round trip per reference.
+@Component
+public class ReferenceCache
+{
+    @Autowired
+    private MongoOperations _mongoOperations;
+    @Autowired
+    private SellerRepository _sellerMongoRepository;
+    @Autowired
+    private CategoryJpaRepository _categoryJpaRepository;
+    @Autowired
+    private SellerJpaRepository _sellerJpaRepository;
+
+    private final BoundedCache<String, EmbeddedCategory> mongoCategories;
+
+    private final BoundedCache<String, Seller> mongoSellers;
+
+    private final BoundedCache<Long, CategoryEntity> mysqlCategories;
+
+    private final BoundedCache<Long, SellerEntity> mysqlSellers;
+
+    public ReferenceCache(@Value("${catalog.reference-cache.max-size:10000}") int maxSize)
+    {
+        mongoCategories = new BoundedCache<>("mongo.categories", maxSize);
+        mongoSellers = new BoundedCache<>("mongo.sellers", maxSize);
+        mysqlCategories = new BoundedCache<>("mysql.categories", maxSize);
+        mysqlSellers = new BoundedCache<>("mysql.sellers", maxSize);
+    }
+
+
+    //----------MongoDB--------------------------
+    //A fresh copy is returned every time, the caller puts it into its own product.
+    public Optional<EmbeddedCategory> findMongoCategory(String id)
+    {
+        EmbeddedCategory category = mongoCategories.get(id, key -> {
+            Map<String, EmbeddedCategory> loaded = loadMongoCategories(Arrays.asList(key));
+            return loaded.get(key);
+        });
+        return Optional.ofNullable(category).map(c -> new EmbeddedCategory(c.getId(), c.getName()));
+    }
+
+    public Map<String, EmbeddedCategory> findMongoCategories(Collection<String> ids)
+    {
+        Map<String, EmbeddedCategory> categories = new HashMap<>();
+        mongoCategories.getAll(ids, this::loadMongoCategories)
+                .forEach((id, c) -> categories.put(id, new EmbeddedCategory(c.getId(), c.getName())));
+        return categories;
+    }
+
+    public Optional<Seller> findMongoSeller(String id)
+    {
+        return Optional.ofNullable(mongoSellers.get(id, key -> _sellerMongoRepository.findById(key).orElse(null)));
+    }
+
+    public Map<String, Seller> findMongoSellers(Collection<String> ids)
+    {
+        return mongoSellers.getAll(ids, missing -> {
+            Map<String, Seller> loaded = new HashMap<>();
+            _sellerMongoRepository.findAllById(missing).forEach(seller -> loaded.put(seller.getId(), seller));
+            return loaded;
+        });
+    }
+
+    public void invalidateMongoCategory(String id)
+    {
+        mongoCategories.invalidate(id);
+    }
+
+    public void invalidateMongoSeller(String id)
+    {
+        mongoSellers.invalidate(id);
+    }
+
+    //Only the name is read, the product count of a category changes with every product written.
+    private Map<String, EmbeddedCategory> loadMongoCategories(Collection<String> ids)
+    {
+        Query query = new Query(Criteria.where("_id").in(ids));
+        query.fields().include("name");
+        List<Category> categories = _mongoOperations.find(query, Category.class);
+        Map<String, EmbeddedCategory> loaded = new HashMap<>();
+        categories.forEach(category -> loaded.put(category.getId(), new EmbeddedCategory(category.getId(), category.getName())));
+        return loaded;
+    }
+
+
+    //----------MySQL----------------------------
+    public Optional<CategoryEntity> findMysqlCategory(long id)
+    {
+        return Optional.ofNullable(mysqlCategories.get(id, key -> _categoryJpaRepository.findById(key).orElse(null)));
+    }
+
+    public Map<Long, CategoryEntity> findMysqlCategories(Collection<Long> ids)
+    {
+        return mysqlCategories.getAll(ids, missing -> {
+            Map<Long, CategoryEntity> loaded = new HashMap<>();
+            _categoryJpaRepository.findAllById(missing).forEach(category -> loaded.put(category.getId(), category));
+            return loaded;
+        });
+    }
+
+    public Optional<SellerEntity> findMysqlSeller(long id)
+    {
+        return Optional.ofNullable(mysqlSellers.get(id, key -> _sellerJpaRepository.findById(key).orElse(null)));
+    }
+
+    public Map<Long, SellerEntity> findMysqlSellers(Collection<Long> ids)
+    {
+        return mysqlSellers.getAll(ids, missing -> {
+            Map<Long, SellerEntity> loaded = new HashMap<>();
+            _sellerJpaRepository.findAllById(missing).forEach(seller -> loaded.put(seller.getId(), seller));
+            return loaded;
+        });
+    }
+
+    public void invalidateMysqlCategory(long id)
+    {
+        mysqlCategories.invalidate(id);
+    }
+
+    public void invalidateMysqlSeller(long id)
+    {
+        mysqlSellers.invalidate(id);
+    }
+
+
+    public List<CacheStats> stats()
+    {
+        return Arrays.asList(mongoCategories.stats(), mongoSellers.stats(), mysqlCategories.stats(), mysqlSellers.stats());
+    }
+}
@@ -0,0 +1,62 @@
+package ecommerce.tutorial.cache;
+
+public class RegionStats
+{
+    private final String name;
+
+    private final long hits;
+
+    private final long misses;
+
+    private final long puts;
+
+    private final long removals;
+
+    private final long evictions;
+
+    public RegionStats(String name, long hits, long misses, long puts, long removals, long evictions)
+    {
+        this.name = name;
+        this.hits = hits;
+        this.misses = misses;
+        this.puts = puts;
+        this.removals = removals;
+        this.evictions = evictions;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public long getHits()
+    {
+        return hits;
+    }
+
+    public long getMisses()
+    {
+        return misses;
+    }
+
+    public long getPuts()
+    {
+        return puts;
+    }
+
+    public long getRemovals()
+    {
+        return removals;
+    }
+
+    public long getEvictions()
+    {
+        return evictions;
+    }
+
+    public double getHitRatio()
+    {
+        long requests = hits + misses;
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+}
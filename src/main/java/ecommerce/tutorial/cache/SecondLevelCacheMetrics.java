@@ -0,0 +1,49 @@
+package ecommerce.tutorial.cache;
+
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+//The regions of the second-level cache of Hibernate, read from the JCache statistics beans which Ehcache registers for
+//every cache it creates when its statistics are enabled in ehcache.xml.
+@Component
+public class SecondLevelCacheMetrics
+{
+    private static final String STATISTICS = "javax.cache:type=CacheStatistics,*";
+
+    public List<RegionStats> stats()
+    {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        List<RegionStats> stats = new ArrayList<>();
+        try
+        {
+            for (ObjectName name : server.queryNames(new ObjectName(STATISTICS), null))
+            {
+                stats.add(new RegionStats(name.getKeyProperty("Cache"),
+                        count(server, name, "CacheHits"),
+                        count(server, name, "CacheMisses"),
+                        count(server, name, "CachePuts"),
+                        count(server, name, "CacheRemovals"),
+                        count(server, name, "CacheEvictions")));
+            }
+        }
+        catch (JMException e)
+        {
+            throw new IllegalStateException("The statistics of the second-level cache could not be read", e);
+        }
+        stats.sort(Comparator.comparing(RegionStats::getName));
+        return stats;
+    }
+
+    private static long count(MBeanServer server, ObjectName name, String attribute) throws JMException
+    {
+        return ((Number) server.getAttribute(name, attribute)).longValue();
+    }
+}
@@ -1,82 +1,306 @@
 package ecommerce.tutorial.controllers;
 
-import com.mongodb.MongoClient;
-import com.mongodb.client.result.UpdateResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
 import org.springframework.data.mongodb.core.MongoOperations;
-import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.http.HttpStatus;
+import org.springframework.data.util.CloseableIterator;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
+import java.net.URI;
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
+import javax.persistence.EntityManager;
 import javax.persistence.EntityNotFoundException;
+import javax.persistence.PersistenceContext;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 
+import ecommerce.tutorial.cache.ProductReadCache;
+import ecommerce.tutorial.cache.ReferenceCache;
+import ecommerce.tutorial.enums.Backend;
+import ecommerce.tutorial.enums.FanOutKind;
+import ecommerce.tutorial.enums.OutboxAggregate;
+import ecommerce.tutorial.fanout.ProductFanOutWorker;
 import ecommerce.tutorial.jpa.entities.CategoryEntity;
+import ecommerce.tutorial.jpa.projections.CategoryView;
+import ecommerce.tutorial.jpa.projections.ProductView;
+import ecommerce.tutorial.jpa.projections.ProductViewReader;
 import ecommerce.tutorial.jpa.repositories.CategoryJpaRepository;
+import ecommerce.tutorial.membership.CategoryMemberships;
 import ecommerce.tutorial.mongodb.models.Category;
 import ecommerce.tutorial.mongodb.models.Product;
+import ecommerce.tutorial.mongodb.models.ProductFanOutJob;
 import ecommerce.tutorial.mongodb.repositories.CategoryRepository;
+import ecommerce.tutorial.outbox.AfterCommit;
+import ecommerce.tutorial.outbox.CatalogOutbox;
+import ecommerce.tutorial.paging.KeysetCursor;
+import ecommerce.tutorial.paging.KeysetPage;
+import ecommerce.tutorial.paging.NdjsonWriter;
+import ecommerce.tutorial.search.CatalogIndexer;
+import ecommerce.tutorial.versioning.CollectionVersions;
+import ecommerce.tutorial.versioning.ETags;
+import ecommerce.tutorial.versioning.VersionedUpdates;
 
 @RestController
 @RequestMapping(path = "/category")
 public class CategoryService
 {
-    private MongoOperations mongoOperation = new MongoTemplate(new MongoClient(), "local");
+    private static final Logger LOG = LoggerFactory.getLogger(CategoryService.class);
+
+    private static final int CLEAR_EVERY = 100;
+
+    @Autowired
+    private MongoOperations _mongoOperations;
     @Autowired
     private CategoryRepository _categoryMongoRepository;
     @Autowired
     private CategoryJpaRepository _categoryJpaRepository;
+    @Autowired
+    private ReferenceCache _referenceCache;
+    @Autowired
+    private ProductReadCache _productReadCache;
+    @Autowired
+    private CollectionVersions _collectionVersions;
+    @Autowired
+    private ProductFanOutWorker _productFanOutWorker;
+    @Autowired
+    private CategoryMemberships _categoryMemberships;
+    @Autowired
+    private CatalogOutbox _catalogOutbox;
+    @Autowired
+    private ProductViewReader _productViewReader;
+    @Autowired
+    private ObjectMapper _objectMapper;
+    @Autowired
+    private CatalogIndexer _catalogIndexer;
+    @PersistenceContext
+    private EntityManager _entityManager;
 
 
     //----------Retrieve Categories-------------
     @GetMapping(path = "/mongo")
-    public ResponseEntity<Category> getCategoryFromMongoDB(@RequestParam(value = "name") String name)
+    public ResponseEntity<Category> getCategoryFromMongoDB(@RequestParam(value = "name") String name, WebRequest request)
     {
         Category categoryMongo = _categoryMongoRepository.findByName(name);
         if (categoryMongo != null)
         {
+            //The product count changes without the version of the category.
+            String eTag = ETags.of(categoryMongo.getId(), categoryMongo.getVersion(), categoryMongo.getProductCount());
+            if (request.checkNotModified(eTag))
+            {
+                return null;
+            }
             return new ResponseEntity<>(categoryMongo, HttpStatus.OK);
         }
-        System.out.println("There isn't any Category in Mongodb database with name: " + name);
+        LOG.debug("There isn't any Category in Mongodb database with name: {}", name);
         return new ResponseEntity<>(HttpStatus.NOT_FOUND);
     }
 
     @GetMapping(path = "/all/mongo")
-    public List<Category> getAllCategoriesFromMongoDB()
+    public ResponseEntity<List<Category>> getAllCategoriesFromMongoDB(WebRequest request)
+    {
+        if (request.checkNotModified(_collectionVersions.mongoETag(CollectionVersions.CATEGORIES)))
+        {
+            return null;
+        }
+        return new ResponseEntity<>(_categoryMongoRepository.findAll(), HttpStatus.OK);
+    }
+
+    //The categories with the number of their products, the largest first.
+    @GetMapping(path = "/summary/mongo")
+    public ResponseEntity<List<Category>> getCategorySummaryFromMongoDB(WebRequest request)
     {
-        return _categoryMongoRepository.findAll();
+        if (request.checkNotModified(_collectionVersions.mongoETag(CollectionVersions.CATEGORIES)))
+        {
+            return null;
+        }
+        return new ResponseEntity<>(_categoryMongoRepository.findAll(Sort.by(Sort.Direction.DESC, "productCount")), HttpStatus.OK);
+    }
+
+    //The products of a category in the order of their ids, read from its memberships.
+    @GetMapping(path = "/mongo/{id}/products")
+    public ResponseEntity<KeysetPage<Product>> getProductsOfCategoryFromMongoDB(@PathVariable(value = "id") String id,
+                                                                              @RequestParam(value = "after", required = false) String after,
+                                                                              @RequestParam(value = "size", required = false) Integer size)
+    {
+        if (!_referenceCache.findMongoCategory(id).isPresent())
+        {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        int limit = KeysetPage.limit(size);
+        List<String> productIds = _categoryMemberships.productIds(id, after, limit);
+        Query query = new Query(Criteria.where("_id").in(productIds)).with(Sort.by(Sort.Direction.ASC, "_id"));
+        List<Product> products = _mongoOperations.find(query, Product.class);
+        //The cursor follows the memberships, a product missing from the page does not end it.
+        String nextCursor = KeysetPage.of(productIds, limit, productId -> productId).getNextCursor();
+        return new ResponseEntity<>(new KeysetPage<>(products, nextCursor), HttpStatus.OK);
+    }
+
+    //The products of a category ordered by id, price or name. The cursor of a page is only valid for the same order.
+    @GetMapping(path = "/mysql/{id}/products")
+    public ResponseEntity<?> getProductsOfCategoryFromMysql(@PathVariable(value = "id") long id,
+                                                            @RequestParam(value = "sort", defaultValue = "id") String sort,
+                                                            @RequestParam(value = "after", required = false) String after,
+                                                            @RequestParam(value = "size", required = false) Integer size)
+    {
+        if (!_referenceCache.findMysqlCategory(id).isPresent())
+        {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        KeysetCursor cursor;
+        float afterPrice = -Float.MAX_VALUE;
+        try
+        {
+            cursor = after == null ? null : KeysetCursor.decode(after);
+            //The key of a price cursor is checked here, a NumberFormatException is an IllegalArgumentException too.
+            if (cursor != null && cursor.getSort().equals("price"))
+            {
+                afterPrice = Float.parseFloat(cursor.getKey());
+            }
+        }
+        catch (IllegalArgumentException e)
+        {
+            return new ResponseEntity<>("The cursor is not valid.", HttpStatus.BAD_REQUEST);
+        }
+        if (cursor != null && !cursor.getSort().equals(sort))
+        {
+            return new ResponseEntity<>("The cursor belongs to another sort.", HttpStatus.BAD_REQUEST);
+        }
+        int limit = KeysetPage.limit(size);
+        long afterId = cursor == null ? 0 : cursor.getId();
+        List<ProductView> products;
+        Function<ProductView, String> keyOf;
+        switch (sort)
+        {
+            case "id":
+                products = _productViewReader.findInCategory(id, afterId, limit);
+                keyOf = product -> "";
+                break;
+            case "price":
+                products = _productViewReader.findInCategoryByPrice(id, afterPrice, afterId, limit);
+                keyOf = product -> Float.toString(product.getPrice());
+                break;
+            case "name":
+                products = _productViewReader.findInCategoryByName(id, cursor == null ? "" : cursor.getKey(), afterId, limit);
+                keyOf = ProductView::getName;
+                break;
+            default:
+                return new ResponseEntity<>("The products can be sorted by id, price or name.", HttpStatus.BAD_REQUEST);
+        }
+        KeysetPage<ProductView> page = new KeysetPage<>(products, null);
+        if (products.size() == limit)
+        {
+            ProductView last = products.get(products.size() - 1);
+            page.setNextCursor(new KeysetCursor(sort, keyOf.apply(last), last.getId()).encode());
+        }
+        return new ResponseEntity<>(page, HttpStatus.OK);
     }
 
     @GetMapping(path = "/mysql")
-    public ResponseEntity<?> getCategoryFromMysql(@RequestParam(value = "name") String name)
+    public ResponseEntity<?> getCategoryFromMysql(@RequestParam(value = "name") String name, WebRequest request)
     {
-        List<CategoryEntity> categoryEntityList = _categoryJpaRepository.findAllByName(name);
-        if (!categoryEntityList.isEmpty())
+        List<CategoryView> categoryViewList = _categoryJpaRepository.findViewsByName(name);
+        if (!categoryViewList.isEmpty())
         {
-            return new ResponseEntity<>(categoryEntityList, HttpStatus.OK);
+            ETags eTag = ETags.builder();
+            categoryViewList.forEach(category -> eTag.add(category.getId()).add(category.getVersion()));
+            if (request.checkNotModified(eTag.build()))
+            {
+                return null;
+            }
+            return new ResponseEntity<>(categoryViewList, HttpStatus.OK);
         }
-        System.out.println("There isn't any Category in MySQL database with name: " + name);
+        LOG.debug("There isn't any Category in MySQL database with name: {}", name);
 
         return new ResponseEntity<>(new StringBuilder("There isn't any Category in MySQL database with name: ").append(name).toString(), HttpStatus.NOT_FOUND);
     }
 
     @GetMapping(path = "/all/mysql")
-    public List<CategoryEntity> getAllCategoriesFromMysql()
+    public ResponseEntity<List<CategoryView>> getAllCategoriesFromMysql(WebRequest request)
+    {
+        if (request.checkNotModified(_collectionVersions.mysqlETag(CollectionVersions.CATEGORIES)))
+        {
+            return null;
+        }
+        return new ResponseEntity<>(_categoryJpaRepository.findAllViews(), HttpStatus.OK);
+    }
+
+    @GetMapping(path = "/page/mongo")
+    public KeysetPage<Category> getCategoryPageFromMongoDB(@RequestParam(value = "after", required = false) String after,
+                                                           @RequestParam(value = "size", required = false) Integer size)
+    {
+        int limit = KeysetPage.limit(size);
+        List<Category> categories = after == null
+                ? _categoryMongoRepository.findAllByOrderByIdAsc(PageRequest.of(0, limit))
+                : _categoryMongoRepository.findByIdGreaterThanOrderByIdAsc(after, PageRequest.of(0, limit));
+        return KeysetPage.of(categories, limit, Category::getId);
+    }
+
+    @GetMapping(path = "/page/mysql")
+    public KeysetPage<CategoryView> getCategoryPageFromMysql(@RequestParam(value = "after", defaultValue = "0") long after,
+                                                             @RequestParam(value = "size", required = false) Integer size)
+    {
+        int limit = KeysetPage.limit(size);
+        List<CategoryView> categories = _categoryJpaRepository.findViewsAfter(after, PageRequest.of(0, limit));
+        return KeysetPage.of(categories, limit, CategoryView::getId);
+    }
+
+    @GetMapping(path = "/stream/mongo", produces = NdjsonWriter.MEDIA_TYPE)
+    public void streamAllCategoriesFromMongoDB(HttpServletResponse response) throws IOException
     {
-        return _categoryJpaRepository.findAll();
+        Query query = new Query().with(Sort.by(Sort.Direction.ASC, "_id"));
+        try (CloseableIterator<Category> categories = _mongoOperations.stream(query, Category.class);
+             NdjsonWriter writer = new NdjsonWriter(_objectMapper, response))
+        {
+            while (categories.hasNext())
+            {
+                writer.write(categories.next());
+            }
+        }
+    }
+
+    @Transactional(readOnly = true)
+    @GetMapping(path = "/stream/mysql", produces = NdjsonWriter.MEDIA_TYPE)
+    public void streamAllCategoriesFromMysql(HttpServletResponse response) throws IOException
+    {
+        try (Stream<CategoryEntity> categories = _categoryJpaRepository.streamAll();
+             NdjsonWriter writer = new NdjsonWriter(_objectMapper, response))
+        {
+            Iterator<CategoryEntity> iterator = categories.iterator();
+            int written = 0;
+            while (iterator.hasNext())
+            {
+                writer.write(iterator.next());
+                if (++written % CLEAR_EVERY == 0)
+                {
+                    _entityManager.clear();
+                }
+            }
+        }
     }
 
 
@@ -88,10 +312,13 @@ public class CategoryService
         {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
+        category.setProductCount(0);
         Category createdCategory = _categoryMongoRepository.save(category);
+        _collectionVersions.mongoWritten(CollectionVersions.CATEGORIES);
         return new ResponseEntity<>(createdCategory, HttpStatus.OK);
     }
 
+    @Transactional
     @PostMapping(path = "/mysql")
     public Object addNewCategoryInMysql(@RequestParam(value = "name") String name)
     {
@@ -101,45 +328,45 @@ public class CategoryService
         }
         CategoryEntity createdCategoryEntity = new CategoryEntity(name.trim());
         createdCategoryEntity = _categoryJpaRepository.save(createdCategoryEntity);
-        System.out.println("A new Category created in MySQL database with id: " + createdCategoryEntity.getId() + "  and name: " + createdCategoryEntity.getName());
+        _catalogOutbox.changed(OutboxAggregate.Category, createdCategoryEntity.getId());
+        _collectionVersions.mysqlWritten(CollectionVersions.CATEGORIES);
+        if (LOG.isDebugEnabled())
+        {
+            LOG.debug("A new Category created in MySQL database with id: {}  and name: {}", createdCategoryEntity.getId(), createdCategoryEntity.getName());
+        }
         return createdCategoryEntity;
     }
 
 
     //----------Update a Category---------------
     @PutMapping(path = "/mongo")
-    public ResponseEntity<String> updateCategoryInMongoDB(@Valid @RequestBody Category category)
+    public ResponseEntity<?> updateCategoryInMongoDB(@Valid @RequestBody Category category)
     {
         if (category == null || category.getId() == null || category.getName() == null || category.getName().trim().isEmpty())
         {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
-        Category categoryInDatabase = _categoryMongoRepository.findById(category.getId()).orElse(null);
-        if (categoryInDatabase == null)
-        {
-            return new ResponseEntity<>("This category doesn't exists in MongoDB.", HttpStatus.NOT_FOUND);
-        }
-
-        //Update the name of the category in MongoDB Database using mongoOperation.updateFirst
+        //Update the name of the category in MongoDB Database, only its name is returned.
         Update updateCat = new Update();
         updateCat.set("name", category.getName());
-        Query queryCat = new Query(Criteria.where("_id").is(category.getId()));
-        UpdateResult updateResult = mongoOperation.updateFirst(queryCat, updateCat, Category.class);
-        if (updateResult.getModifiedCount() == 1)
-        {
-            //After updating a category, all of the products which are in this category must be updated manually.
-            Query query = new Query();
-            query.addCriteria(Criteria.where("fallIntoCategories._id").is(categoryInDatabase.getId()));
-            Update update = new Update().set("fallIntoCategories.$.name", category.getName());
-            updateResult = mongoOperation.updateMulti(query, update, Product.class);
-            return new ResponseEntity<>("The category updated", HttpStatus.OK);
-        }
-        else
+        updateCat.inc("version", 1);
+        Query queryCat = VersionedUpdates.query(category.getId(), category.getVersion());
+        queryCat.fields().include("name");
+        Category categoryInDatabase = _mongoOperations.findAndModify(queryCat, updateCat, FindAndModifyOptions.options().returnNew(true), Category.class);
+        if (categoryInDatabase == null)
         {
-            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+            return VersionedUpdates.notUpdated(_mongoOperations, category.getId(), category.getVersion(), Category.class, "category");
         }
+        _referenceCache.invalidateMongoCategory(category.getId());
+        _collectionVersions.mongoWritten(CollectionVersions.CATEGORIES);
+
+        //After updating a category, all of the products which are in this category must be updated, by a background job.
+        ProductFanOutJob job = _productFanOutWorker.submit(FanOutKind.CategoryRename, categoryInDatabase.getId(), categoryInDatabase.getName());
+        LOG.debug("The category {} renamed, its products are updated by the job {}", categoryInDatabase.getId(), job.getId());
+        return ResponseEntity.accepted().location(URI.create("/job/" + job.getId())).body(job);
     }
 
+    @Transactional
     @PutMapping(path = "/mysql")
     public ResponseEntity<String> updateCategoryInMysql(@Valid @RequestBody CategoryEntity category)
     {
@@ -152,6 +379,16 @@ public class CategoryService
             CategoryEntity categoryEntity = _categoryJpaRepository.findById(category.getId()).orElseThrow(EntityNotFoundException::new);
             categoryEntity.setName(category.getName());
             _categoryJpaRepository.save(categoryEntity);
+            //The projected products embed the name of the category, the projection rewrites each of them.
+            _catalogOutbox.changed(OutboxAggregate.Category, categoryEntity.getId());
+            _collectionVersions.mysqlWritten(CollectionVersions.CATEGORIES);
+            long id = categoryEntity.getId();
+            String name = categoryEntity.getName();
+            AfterCommit.run(() -> {
+                _referenceCache.invalidateMysqlCategory(id);
+                _productReadCache.invalidateMysqlProducts();
+                _catalogIndexer.categoryRenamed(Backend.MySQL, String.valueOf(id), name);
+            });
             return new ResponseEntity<>("The category updated", HttpStatus.OK);
         }
         catch (EntityNotFoundException e)
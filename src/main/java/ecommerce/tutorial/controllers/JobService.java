@@ -0,0 +1,43 @@
+package ecommerce.tutorial.controllers;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+import ecommerce.tutorial.enums.JobStatus;
+import ecommerce.tutorial.mongodb.models.ProductFanOutJob;
+import ecommerce.tutorial.mongodb.repositories.ProductFanOutJobRepository;
+
+@RestController
+@RequestMapping(path = "/job")
+public class JobService
+{
+    @Autowired
+    private ProductFanOutJobRepository _productFanOutJobRepository;
+
+
+    //The progress of a job is its updated products out of its total products.
+    @GetMapping(path = "/{id}")
+    public ResponseEntity<ProductFanOutJob> getJob(@PathVariable(value = "id") String id)
+    {
+        return _productFanOutJobRepository.findById(id)
+                .map(job -> new ResponseEntity<>(job, HttpStatus.OK))
+                .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    }
+
+    //The latest jobs, or the oldest ones of a status.
+    @GetMapping(path = "/all")
+    public List<ProductFanOutJob> getJobs(@RequestParam(value = "status", required = false) JobStatus status)
+    {
+        return status == null
+                ? _productFanOutJobRepository.findTop100ByOrderByCreatedAtDesc()
+                : _productFanOutJobRepository.findTop100ByStatusOrderByCreatedAtAsc(status);
+    }
+}
@@ -0,0 +1,23 @@
+package ecommerce.tutorial.controllers;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+//A write that lost the race against another writer of the same versioned row or document, the client has to read it again.
+@RestControllerAdvice
+public class OptimisticLockingAdvice
+{
+    private static final Logger LOG = LoggerFactory.getLogger(OptimisticLockingAdvice.class);
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<String> conflict(OptimisticLockingFailureException e)
+    {
+        LOG.info("A concurrent write was rejected: {}", e.getMessage());
+        return new ResponseEntity<>("The entity was modified by another request, read it again.", HttpStatus.CONFLICT);
+    }
+}
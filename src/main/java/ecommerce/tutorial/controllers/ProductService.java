@@ -1,16 +1,22 @@
 package ecommerce.tutorial.controllers;
 
-import com.mongodb.MongoClient;
-import com.mongodb.client.result.UpdateResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
 import org.springframework.data.mongodb.core.MongoOperations;
-import org.springframework.data.mongodb.core.MongoTemplate;
-import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.http.HttpStatus;
+import org.springframework.data.util.CloseableIterator;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
@@ -18,82 +24,360 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 import javax.persistence.EntityNotFoundException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 
+import ecommerce.tutorial.bulk.BulkImportReport;
+import ecommerce.tutorial.bulk.ProductBulkImporter;
+import ecommerce.tutorial.cache.ProductReadCache;
+import ecommerce.tutorial.cache.ReferenceCache;
+import ecommerce.tutorial.enums.Backend;
+import ecommerce.tutorial.enums.OutboxAggregate;
 import ecommerce.tutorial.jpa.entities.CategoryEntity;
 import ecommerce.tutorial.jpa.entities.ProductEntity;
 import ecommerce.tutorial.jpa.entities.SellerEntity;
+import ecommerce.tutorial.jpa.projections.ProductView;
+import ecommerce.tutorial.jpa.projections.ProductViewReader;
 import ecommerce.tutorial.jpa.repositories.CategoryJpaRepository;
 import ecommerce.tutorial.jpa.repositories.ProductJpaRepository;
-import ecommerce.tutorial.jpa.repositories.SellerJpaRepository;
-import ecommerce.tutorial.mongodb.models.Category;
+import ecommerce.tutorial.membership.CategoryMemberships;
+import ecommerce.tutorial.membership.ProductSortKeys;
 import ecommerce.tutorial.mongodb.models.EmbeddedCategory;
+import ecommerce.tutorial.mongodb.models.EmbeddedSeller;
 import ecommerce.tutorial.mongodb.models.Product;
 import ecommerce.tutorial.mongodb.models.Seller;
-import ecommerce.tutorial.mongodb.repositories.CategoryRepository;
 import ecommerce.tutorial.mongodb.repositories.ProductRepository;
-import ecommerce.tutorial.mongodb.repositories.SellerRepository;
+import ecommerce.tutorial.outbox.AfterCommit;
+import ecommerce.tutorial.outbox.CatalogOutbox;
+import ecommerce.tutorial.paging.KeysetPage;
+import ecommerce.tutorial.paging.NdjsonWriter;
+import ecommerce.tutorial.search.CatalogIndexer;
+import ecommerce.tutorial.search.FacetCount;
+import ecommerce.tutorial.search.ProductDocument;
+import ecommerce.tutorial.search.PriceRangeResult;
+import ecommerce.tutorial.search.ProductFacetIndex;
+import ecommerce.tutorial.search.ProductNameIndex;
+import ecommerce.tutorial.search.ProductPriceIndex;
+import ecommerce.tutorial.search.ProductSearchIndex;
+import ecommerce.tutorial.search.ProductSummary;
+import ecommerce.tutorial.search.SearchResult;
+import ecommerce.tutorial.versioning.CollectionVersions;
+import ecommerce.tutorial.versioning.ETags;
+import ecommerce.tutorial.versioning.VersionedUpdates;
 
 @RestController
 @RequestMapping(path = "/product")
 public class ProductService
 {
-    private MongoOperations mongoOperations = new MongoTemplate(new MongoClient(), "local");
+    private static final Logger LOG = LoggerFactory.getLogger(ProductService.class);
+
+    private static final int STREAM_CHUNK = 500;
+
+    private static final int MAX_SUGGESTIONS = 50;
+
+    private static final int MAX_SEARCH_HITS = 100;
+
+    @Autowired
+    private MongoOperations _mongoOperations;
     @Autowired
     private ProductRepository _productMongoRepository;
     @Autowired
-    private SellerRepository _sellerMongoRepository;
+    private ProductJpaRepository _productJpaRepository;
     @Autowired
-    private CategoryRepository _categoryMongoRepository;
+    private CategoryJpaRepository _categoryJpaRepository;
     @Autowired
-    private ProductJpaRepository _productJpaRepository;
+    private ProductViewReader _productViewReader;
     @Autowired
-    private SellerJpaRepository _sellerJpaRepository;
+    private ProductSortKeys _productSortKeys;
     @Autowired
-    private CategoryJpaRepository _categoryJpaRepository;
+    private ReferenceCache _referenceCache;
+    @Autowired
+    private ProductReadCache _productReadCache;
+    @Autowired
+    private CollectionVersions _collectionVersions;
+    @Autowired
+    private ProductBulkImporter _productBulkImporter;
+    @Autowired
+    private CatalogIndexer _catalogIndexer;
+    @Autowired
+    private CategoryMemberships _categoryMemberships;
+    @Autowired
+    private CatalogOutbox _catalogOutbox;
+    @Autowired
+    private ProductNameIndex _productNameIndex;
+    @Autowired
+    private ProductSearchIndex _productSearchIndex;
+    @Autowired
+    private ProductPriceIndex _productPriceIndex;
+    @Autowired
+    private ProductFacetIndex _productFacetIndex;
+    @Autowired
+    private ObjectMapper _objectMapper;
 
 
     //----------Retrieve Products----------------
     @GetMapping(path = "/mongo")
-    public ResponseEntity<Product> getProductFromMongoDB(@RequestParam(value = "name") String name)
+    public ResponseEntity<Product> getProductFromMongoDB(@RequestParam(value = "name") String name, WebRequest request)
     {
-        Product productMongo = _productMongoRepository.findByName(name);
-        if (productMongo != null)
+        Optional<Product> productMongo = _productReadCache.findMongoProductByName(name);
+        if (productMongo.isPresent())
         {
-            return new ResponseEntity<>(productMongo, HttpStatus.OK);
+            if (request.checkNotModified(eTagOf(productMongo.get())))
+            {
+                return null;
+            }
+            return new ResponseEntity<>(productMongo.get(), HttpStatus.OK);
         }
-        System.out.println("There isn't any Product in Mongodb database with name: " + name);
+        LOG.debug("There isn't any Product in Mongodb database with name: {}", name);
         return new ResponseEntity<>(HttpStatus.NOT_FOUND);
     }
 
     @GetMapping(path = "/mysql")
-    public ResponseEntity<ProductEntity> getProductFromMysql(@RequestParam(value = "name") String name)
+    public ResponseEntity<ProductView> getProductFromMysql(@RequestParam(value = "name") String name, WebRequest request)
     {
-        ProductEntity product = _productJpaRepository.findByName(name);
-        if (product != null)
+        Optional<ProductView> product = _productReadCache.findMysqlProductByName(name);
+        if (product.isPresent())
         {
-            return new ResponseEntity<>(product, HttpStatus.OK);
+            if (request.checkNotModified(product.get().eTag()))
+            {
+                return null;
+            }
+            return new ResponseEntity<>(product.get(), HttpStatus.OK);
         }
-        System.out.println("There isn't any Product in MySQL database with name: " + name);
+        LOG.debug("There isn't any Product in MySQL database with name: {}", name);
         return new ResponseEntity<>(HttpStatus.NOT_FOUND);
     }
 
     @GetMapping(path = "/all/mongo")
-    public List<Product> getAllProductsFromMongoDB()
+    public ResponseEntity<List<Product>> getAllProductsFromMongoDB(WebRequest request)
     {
-        return _productMongoRepository.findAll();
+        if (request.checkNotModified(_collectionVersions.mongoETag(CollectionVersions.PRODUCTS, CollectionVersions.SELLERS)))
+        {
+            return null;
+        }
+        return new ResponseEntity<>(_productMongoRepository.findAll(), HttpStatus.OK);
     }
 
     @GetMapping(path = "/all/mysql")
-    public List<ProductEntity> getAllProductsFromMysql()
+    public ResponseEntity<List<ProductView>> getAllProductsFromMysql(WebRequest request)
     {
-        return _productJpaRepository.findAll();
+        if (request.checkNotModified(_collectionVersions.mysqlETag(CollectionVersions.PRODUCTS, CollectionVersions.SELLERS, CollectionVersions.CATEGORIES)))
+        {
+            return null;
+        }
+        return new ResponseEntity<>(_productViewReader.findAll(), HttpStatus.OK);
+    }
+
+    @GetMapping(path = "/page/mongo")
+    public KeysetPage<Product> getProductPageFromMongoDB(@RequestParam(value = "after", required = false) String after,
+                                                         @RequestParam(value = "size", required = false) Integer size,
+                                                         @RequestParam(value = "facets", defaultValue = "false") boolean facets)
+    {
+        int limit = KeysetPage.limit(size);
+        List<Product> products = after == null
+                ? _productMongoRepository.findAllByOrderByIdAsc(PageRequest.of(0, limit))
+                : _productMongoRepository.findByIdGreaterThanOrderByIdAsc(after, PageRequest.of(0, limit));
+        KeysetPage<Product> page = KeysetPage.of(products, limit, Product::getId);
+        if (facets)
+        {
+            page.setFacets(getProductFacetsFromMongoDB());
+        }
+        return page;
+    }
+
+    @GetMapping(path = "/page/mysql")
+    public KeysetPage<ProductView> getProductPageFromMysql(@RequestParam(value = "after", defaultValue = "0") long after,
+                                                           @RequestParam(value = "size", required = false) Integer size,
+                                                           @RequestParam(value = "facets", defaultValue = "false") boolean facets)
+    {
+        int limit = KeysetPage.limit(size);
+        List<ProductView> products = _productViewReader.findAfter(after, limit);
+        KeysetPage<ProductView> page = KeysetPage.of(products, limit, ProductView::getId);
+        if (facets)
+        {
+            page.setFacets(getProductFacetsFromMysql());
+        }
+        return page;
+    }
+
+    @GetMapping(path = "/stream/mongo", produces = NdjsonWriter.MEDIA_TYPE)
+    public void streamAllProductsFromMongoDB(HttpServletResponse response) throws IOException
+    {
+        Query query = new Query().with(Sort.by(Sort.Direction.ASC, "_id"));
+        try (CloseableIterator<Product> products = _mongoOperations.stream(query, Product.class);
+             NdjsonWriter writer = new NdjsonWriter(_objectMapper, response))
+        {
+            while (products.hasNext())
+            {
+                writer.write(products.next());
+            }
+        }
+    }
+
+    //A keyset page at a time, each read with the few queries of ProductViewReader in its own short transaction: a stream of
+    //entities would load the images and categories of every row on their own, nothing ahead of the current row being loaded.
+    @GetMapping(path = "/stream/mysql", produces = NdjsonWriter.MEDIA_TYPE)
+    public void streamAllProductsFromMysql(HttpServletResponse response) throws IOException
+    {
+        try (NdjsonWriter writer = new NdjsonWriter(_objectMapper, response))
+        {
+            List<ProductView> products;
+            long after = 0;
+            do
+            {
+                products = _productViewReader.findAfter(after, STREAM_CHUNK);
+                for (ProductView product : products)
+                {
+                    writer.write(product);
+                }
+                after = products.isEmpty() ? after : products.get(products.size() - 1).getId();
+            }
+            while (products.size() == STREAM_CHUNK);
+        }
+    }
+
+
+    //----------Suggest Product names------------
+    //Served from memory only, the names of both databases are completed together.
+    @GetMapping(path = "/suggest")
+    public List<String> suggestProductNames(@RequestParam(value = "prefix") String prefix,
+                                            @RequestParam(value = "size", defaultValue = "10") int size)
+    {
+        return _productNameIndex.suggest(prefix, Math.max(1, Math.min(size, MAX_SUGGESTIONS)));
+    }
+
+
+    //----------Search Products-----------------
+    //Ranks the products of both databases by the words of their name and description.
+    @GetMapping(path = "/search")
+    public SearchResult searchProducts(@RequestParam(value = "q") String text,
+                                       @RequestParam(value = "size", defaultValue = "20") int size)
+    {
+        List<ProductDocument> matches = new ArrayList<>();
+        SearchResult result = _productSearchIndex.search(text, Math.max(1, Math.min(size, MAX_SEARCH_HITS)), matches::add);
+        result.setFacets(_productFacetIndex.counts(matches));
+        return result;
+    }
+
+
+    //----------Category facets of Products------
+    //The number of products per category, from the in-memory bitsets once they are loaded and from a grouping query before.
+    @GetMapping(path = "/facets/mongo")
+    public List<FacetCount> getProductFacetsFromMongoDB()
+    {
+        if (_catalogIndexer.isReady())
+        {
+            return _productFacetIndex.counts(Backend.MongoDB);
+        }
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.unwind("fallIntoCategories"),
+                Aggregation.group("fallIntoCategories._id").first("fallIntoCategories.name").as("name").count().as("count"));
+        return _mongoOperations.aggregate(aggregation, "products", Document.class).getMappedResults().stream()
+                .map(row -> new FacetCount(Backend.MongoDB, String.valueOf(row.get("_id")), row.getString("name"), ((Number) row.get("count")).longValue()))
+                .sorted(FacetCount.BY_COUNT)
+                .collect(Collectors.toList());
+    }
+
+    @GetMapping(path = "/facets/mysql")
+    public List<FacetCount> getProductFacetsFromMysql()
+    {
+        if (_catalogIndexer.isReady())
+        {
+            return _productFacetIndex.counts(Backend.MySQL);
+        }
+        return _categoryJpaRepository.countProductsPerCategory().stream()
+                .filter(row -> ((Number) row[2]).longValue() > 0)
+                .map(row -> new FacetCount(Backend.MySQL, String.valueOf(row[0]), (String) row[1], ((Number) row[2]).longValue()))
+                .sorted(FacetCount.BY_COUNT)
+                .collect(Collectors.toList());
+    }
+
+
+    //----------Products in a price range-------
+    //Served from the in-memory price index, and from the database only while the index is still loading.
+    @GetMapping(path = "/price-range/mongo")
+    public ResponseEntity<?> getProductsInPriceRangeFromMongoDB(@RequestParam(value = "min") float min,
+                                                                @RequestParam(value = "max") float max,
+                                                                @RequestParam(value = "category", required = false) String categoryId,
+                                                                @RequestParam(value = "order", defaultValue = "asc") String order,
+                                                                @RequestParam(value = "size", required = false) Integer size)
+    {
+        Sort.Direction direction = Sort.Direction.fromOptionalString(order).orElse(null);
+        if (direction == null || min > max)
+        {
+            return new ResponseEntity<>("The price range or the order is not valid!", HttpStatus.BAD_REQUEST);
+        }
+        int limit = KeysetPage.limit(size);
+        if (_catalogIndexer.isReady())
+        {
+            return new ResponseEntity<>(_productPriceIndex.find(Backend.MongoDB, min, max, categoryId, direction.isDescending(), limit), HttpStatus.OK);
+        }
+        PageRequest page = PageRequest.of(0, limit, Sort.by(direction, "price", "id"));
+        List<Product> products;
+        long total;
+        if (categoryId == null)
+        {
+            products = _productMongoRepository.findByPriceRange(min, max, page);
+            total = _productMongoRepository.countByPriceRange(min, max);
+        }
+        else
+        {
+            products = _productMongoRepository.findByPriceRangeInCategory(min, max, categoryId, page);
+            total = _productMongoRepository.countByPriceRangeInCategory(min, max, categoryId);
+        }
+        List<ProductSummary> summaries = products.stream()
+                .map(product -> new ProductSummary(Backend.MongoDB, product.getId(), product.getName(), product.getPrice()))
+                .collect(Collectors.toList());
+        return new ResponseEntity<>(new PriceRangeResult(total, summaries), HttpStatus.OK);
+    }
+
+    @GetMapping(path = "/price-range/mysql")
+    public ResponseEntity<?> getProductsInPriceRangeFromMysql(@RequestParam(value = "min") float min,
+                                                              @RequestParam(value = "max") float max,
+                                                              @RequestParam(value = "category", required = false) Long categoryId,
+                                                              @RequestParam(value = "order", defaultValue = "asc") String order,
+                                                              @RequestParam(value = "size", required = false) Integer size)
+    {
+        Sort.Direction direction = Sort.Direction.fromOptionalString(order).orElse(null);
+        if (direction == null || min > max)
+        {
+            return new ResponseEntity<>("The price range or the order is not valid!", HttpStatus.BAD_REQUEST);
+        }
+        int limit = KeysetPage.limit(size);
+        if (_catalogIndexer.isReady())
+        {
+            String category = categoryId == null ? null : String.valueOf(categoryId);
+            return new ResponseEntity<>(_productPriceIndex.find(Backend.MySQL, min, max, category, direction.isDescending(), limit), HttpStatus.OK);
+        }
+        PageRequest page = PageRequest.of(0, limit, Sort.by(direction, "price", "id"));
+        List<Object[]> rows;
+        long total;
+        if (categoryId == null)
+        {
+            rows = _productJpaRepository.findByPriceRange(min, max, page);
+            total = _productJpaRepository.countByPriceRange(min, max);
+        }
+        else
+        {
+            rows = _productJpaRepository.findByPriceRangeInCategory(min, max, categoryId, page);
+            total = _productJpaRepository.countByPriceRangeInCategory(min, max, categoryId);
+        }
+        List<ProductSummary> summaries = rows.stream()
+                .map(row -> new ProductSummary(Backend.MySQL, String.valueOf(row[0]), (String) row[1], (Float) row[2]))
+                .collect(Collectors.toList());
+        return new ResponseEntity<>(new PriceRangeResult(total, summaries), HttpStatus.OK);
     }
 
 
@@ -107,8 +391,7 @@ public class ProductService
         {
             for (EmbeddedCategory embCat : product.getFallIntoCategories())
             {
-                Category category = _categoryMongoRepository.findById(embCat.getId()).orElseThrow(EntityNotFoundException::new);
-                categories.add(new EmbeddedCategory(category.getId(), category.getName()));
+                categories.add(_referenceCache.findMongoCategory(embCat.getId()).orElseThrow(EntityNotFoundException::new));
             }
         }
         catch (EntityNotFoundException e)
@@ -121,24 +404,28 @@ public class ProductService
         }
         try
         {
-            seller = _sellerMongoRepository.findById(product.getSeller().getId()).orElseThrow(EntityNotFoundException::new);
+            seller = _referenceCache.findMongoSeller(product.getSeller().getId()).orElseThrow(EntityNotFoundException::new);
         }
         catch (EntityNotFoundException e)
         {
             return new ResponseEntity<>("The seller of this product doesn't exists in MongoDB!", HttpStatus.BAD_REQUEST);
         }
-        Product productMongoDB = new Product(product.getName(), product.getDescription(), product.getPrice(), seller, categories);
+        Product productMongoDB = new Product(product.getName(), product.getDescription(), product.getPrice(), EmbeddedSeller.of(seller), categories);
         productMongoDB = _productMongoRepository.save(productMongoDB);
-        //add a reference to this product in appropriate categories
-        Update update = new Update();
-        update.addToSet("productsOfCategory", productMongoDB.getId());
+        _catalogIndexer.indexed(ProductDocument.of(productMongoDB));
+        _productReadCache.mongoProductWritten(productMongoDB.getId(), productMongoDB.getName());
+        _collectionVersions.mongoWritten(CollectionVersions.PRODUCTS, CollectionVersions.CATEGORIES);
+        //add this product to the memberships of its categories
         List<String> catIds = productMongoDB.getFallIntoCategories().stream().map(EmbeddedCategory::getId).collect(Collectors.toList());
-        Query query = new Query().addCriteria(Criteria.where("_id").in(catIds));
-        UpdateResult updateResult = mongoOperations.updateMulti(query, update, Category.class);
-        System.out.println("The new product added and " + updateResult.getModifiedCount() + " categories updated.");
+        int memberships = _categoryMemberships.add(productMongoDB.getId(), catIds);
+        if (LOG.isDebugEnabled())
+        {
+            LOG.debug("The new product added into {} categories.", memberships);
+        }
         return new ResponseEntity<>(productMongoDB, HttpStatus.OK);
     }
 
+    @Transactional
     @PostMapping(path = "/mysql")
     public Object addNewProductInMysql(@RequestBody ProductEntity product)
     {
@@ -155,7 +442,7 @@ public class ProductService
         SellerEntity seller;
         try
         {
-            seller = _sellerJpaRepository.findById(product.getSeller().getId()).orElseThrow(EntityNotFoundException::new);
+            seller = _referenceCache.findMysqlSeller(product.getSeller().getId()).orElseThrow(EntityNotFoundException::new);
         }
         catch (EntityNotFoundException e)
         {
@@ -167,7 +454,7 @@ public class ProductService
         {
             for (CategoryEntity categoryEntity : product.getFallIntoCategories())
             {
-                categories.add(_categoryJpaRepository.findById(categoryEntity.getId()).orElseThrow(EntityNotFoundException::new));
+                categories.add(_referenceCache.findMysqlCategory(categoryEntity.getId()).orElseThrow(EntityNotFoundException::new));
             }
         }
         catch (EntityNotFoundException e)
@@ -184,7 +471,14 @@ public class ProductService
                     seller,
                     categories);
             createdProductEntity = _productJpaRepository.save(createdProductEntity);
-            System.out.println("A new Product created in MySQL database with id: " + createdProductEntity.getId() + "  and name: " + createdProductEntity.getName());
+            _productSortKeys.created(Collections.singleton(createdProductEntity));
+            _catalogOutbox.changed(OutboxAggregate.Product, createdProductEntity.getId());
+            _collectionVersions.mysqlWritten(CollectionVersions.PRODUCTS);
+            mysqlProductCommitted(createdProductEntity);
+            if (LOG.isDebugEnabled())
+            {
+                LOG.debug("A new Product created in MySQL database with id: {}  and name: {}", createdProductEntity.getId(), createdProductEntity.getName());
+            }
             return createdProductEntity;
         }
         else
@@ -194,22 +488,35 @@ public class ProductService
     }
 
 
+    //----------Bulk import Products------------
+    //The body holds one product per line, in the same JSON shape as the single create endpoints.
+    @PostMapping(path = "/bulk/mongo", consumes = NdjsonWriter.MEDIA_TYPE)
+    public ResponseEntity<BulkImportReport> bulkImportProductsInMongoDB(HttpServletRequest request) throws IOException
+    {
+        BulkImportReport report = _productBulkImporter.importIntoMongoDB(request.getInputStream());
+        LOG.info("{} products imported in MongoDB, {} rejected, in {} ms.", report.getImported(), report.getRejected(), report.getElapsedMillis());
+        return new ResponseEntity<>(report, HttpStatus.OK);
+    }
+
+    @PostMapping(path = "/bulk/mysql", consumes = NdjsonWriter.MEDIA_TYPE)
+    public ResponseEntity<BulkImportReport> bulkImportProductsInMysql(HttpServletRequest request) throws IOException
+    {
+        BulkImportReport report = _productBulkImporter.importIntoMysql(request.getInputStream());
+        LOG.info("{} products imported in MySQL, {} rejected, in {} ms.", report.getImported(), report.getRejected(), report.getElapsedMillis());
+        return new ResponseEntity<>(report, HttpStatus.OK);
+    }
+
+
     //----------Update a Product-----------------
     @PutMapping(path = "/mongo")
     public ResponseEntity<String> updateProductInMongoDB(@Valid @RequestBody Product product)
     {
-        Product productInDatabase = _productMongoRepository.findById(product.getId()).orElse(null);
-        if (productInDatabase == null)
-        {
-            return new ResponseEntity<>("This product doesn't exists in MongoDB.", HttpStatus.NOT_FOUND);
-        }
         HashSet<EmbeddedCategory> categories = new HashSet<>();
         try
         {
             for (EmbeddedCategory embCat : product.getFallIntoCategories())
             {
-                Category category = _categoryMongoRepository.findById(embCat.getId()).orElseThrow(EntityNotFoundException::new);
-                categories.add(new EmbeddedCategory(category.getId(), category.getName()));
+                categories.add(_referenceCache.findMongoCategory(embCat.getId()).orElseThrow(EntityNotFoundException::new));
             }
         }
         catch (EntityNotFoundException e)
@@ -227,22 +534,29 @@ public class ProductService
         update.set("price", product.getPrice());
         update.set("image_URLs", product.getImage_URLs());
         update.set("fallIntoCategories", categories);
-        Query query = new Query(Criteria.where("_id").is(product.getId()));
-        UpdateResult updateResult = mongoOperations.updateFirst(query, update, Product.class);
-        if (updateResult.getModifiedCount() == 1)
+        update.inc("version", 1);
+        Query query = VersionedUpdates.query(product.getId(), product.getVersion());
+        Product productInDatabase = _mongoOperations.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), Product.class);
+        if (productInDatabase == null)
         {
-            productInDatabase = _productMongoRepository.findById(product.getId()).get();
-            System.out.println("The \"" + productInDatabase.getName() + "\" product updated!");
-            return new ResponseEntity<>("The product updated", HttpStatus.OK);
+            return VersionedUpdates.notUpdated(_mongoOperations, product.getId(), product.getVersion(), Product.class, "product");
+        }
+        _productReadCache.mongoProductWritten(productInDatabase.getId(), productInDatabase.getName());
+        List<String> catIds = categories.stream().map(EmbeddedCategory::getId).collect(Collectors.toList());
+        if (_categoryMemberships.replace(productInDatabase.getId(), catIds))
+        {
+            _collectionVersions.mongoWritten(CollectionVersions.PRODUCTS, CollectionVersions.CATEGORIES);
         }
         else
         {
-            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+            _collectionVersions.mongoWritten(CollectionVersions.PRODUCTS);
         }
-
-
+        _catalogIndexer.indexed(ProductDocument.of(productInDatabase));
+        LOG.debug("The \"{}\" product updated!", productInDatabase.getName());
+        return new ResponseEntity<>("The product updated", HttpStatus.OK);
     }
 
+    @Transactional
     @PutMapping(path = "/mysql")
     public ResponseEntity<String> updateProductInMysql(@Valid @RequestBody ProductEntity product)
     {
@@ -251,7 +565,10 @@ public class ProductService
         try
         {
             productEntity = _productJpaRepository.getOne(product.getId());
-            System.out.println("The product " + productEntity.getName() + " with id " + productEntity.getId() + " is updating...");
+            if (LOG.isDebugEnabled())
+            {
+                LOG.debug("The product {} with id {} is updating...", productEntity.getName(), productEntity.getId());
+            }
         }
         catch (EntityNotFoundException e)
         {
@@ -259,8 +576,8 @@ public class ProductService
         }
         try
         {
-            sellerEntity = _sellerJpaRepository.getOne(product.getSeller().getId());
-            System.out.println("The seller of this product is: " + sellerEntity.toString());
+            sellerEntity = _referenceCache.findMysqlSeller(product.getSeller().getId()).orElseThrow(EntityNotFoundException::new);
+            LOG.debug("The seller of this product is: {}", sellerEntity);
         }
         catch (EntityNotFoundException e)
         {
@@ -269,7 +586,7 @@ public class ProductService
         HashSet<CategoryEntity> categories = new HashSet<>();
         for (CategoryEntity categoryEntity : product.getFallIntoCategories())
         {
-            _categoryJpaRepository.findById(categoryEntity.getId()).ifPresent(categories::add);
+            _referenceCache.findMysqlCategory(categoryEntity.getId()).ifPresent(categories::add);
         }
         if (!categories.isEmpty())
         {
@@ -279,7 +596,11 @@ public class ProductService
             productEntity.setImages(product.getImages());
             productEntity.setSeller(sellerEntity);
             productEntity.setFallIntoCategories(categories);
-            _productJpaRepository.save(productEntity);
+            productEntity = _productJpaRepository.save(productEntity);
+            _productSortKeys.updated(productEntity);
+            _catalogOutbox.changed(OutboxAggregate.Product, productEntity.getId());
+            _collectionVersions.mysqlWritten(CollectionVersions.PRODUCTS);
+            mysqlProductCommitted(productEntity);
             return new ResponseEntity<>("The product updated", HttpStatus.OK);
         }
         else
@@ -287,4 +608,22 @@ public class ProductService
             return new ResponseEntity<>("The product must belongs to at least one category!", HttpStatus.BAD_REQUEST);
         }
     }
+
+    //The document is taken inside the transaction, while the categories of the entity can still be loaded.
+    private void mysqlProductCommitted(ProductEntity product)
+    {
+        ProductDocument document = ProductDocument.of(product);
+        long id = product.getId();
+        String name = product.getName();
+        AfterCommit.run(() -> {
+            _catalogIndexer.indexed(document);
+            _productReadCache.mysqlProductWritten(id, name);
+        });
+    }
+
+    //The seller and the categories are embedded in the product, copying a change of them into it bumps its version.
+    private static String eTagOf(Product product)
+    {
+        return ETags.of(product.getId(), product.getVersion());
+    }
 }
@@ -0,0 +1,68 @@
+package ecommerce.tutorial.controllers;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Date;
+import java.util.List;
+
+import ecommerce.tutorial.mongodb.models.ProjectedProduct;
+import ecommerce.tutorial.mongodb.repositories.ProjectedProductRepository;
+import ecommerce.tutorial.outbox.CatalogOutbox;
+import ecommerce.tutorial.paging.KeysetPage;
+
+//The products of MySQL as projected into MongoDB by the catalog outbox, by their MySQL id.
+@RestController
+@RequestMapping(path = "/read-model")
+public class ReadModelService
+{
+    @Autowired
+    private ProjectedProductRepository _projectedProductRepository;
+    @Autowired
+    private CatalogOutbox _catalogOutbox;
+
+
+    //----------Retrieve Products----------------
+    @GetMapping(path = "/product/{id}")
+    public ResponseEntity<ProjectedProduct> getProduct(@PathVariable(value = "id") long id)
+    {
+        return _projectedProductRepository.findById(id)
+                .map(product -> new ResponseEntity<>(product, HttpStatus.OK))
+                .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    }
+
+    @GetMapping(path = "/product/page")
+    public KeysetPage<ProjectedProduct> getProductPage(@RequestParam(value = "after", defaultValue = "0") long after,
+                                                       @RequestParam(value = "size", required = false) Integer size)
+    {
+        int limit = KeysetPage.limit(size);
+        List<ProjectedProduct> products = _projectedProductRepository.findByIdGreaterThanOrderByIdAsc(after, PageRequest.of(0, limit));
+        return KeysetPage.of(products, limit, ProjectedProduct::getId);
+    }
+
+
+    //----------Replay---------------------------
+    //The events of the outbox since the given epoch millis are projected again, as long as they are still kept.
+    @PostMapping(path = "/replay")
+    public ResponseEntity<String> replay(@RequestParam(value = "since") long since)
+    {
+        int events = _catalogOutbox.replaySince(new Date(since));
+        return new ResponseEntity<>(events + " events are projected again.", HttpStatus.ACCEPTED);
+    }
+
+    //Every product of MySQL is projected again, whatever the outbox still holds.
+    @PostMapping(path = "/rebuild")
+    public ResponseEntity<String> rebuild()
+    {
+        long products = _catalogOutbox.rebuild();
+        return new ResponseEntity<>(products + " products are projected again.", HttpStatus.ACCEPTED);
+    }
+}
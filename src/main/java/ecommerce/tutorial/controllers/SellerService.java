@@ -1,16 +1,20 @@
 package ecommerce.tutorial.controllers;
 
-import com.mongodb.MongoClient;
-import com.mongodb.client.result.UpdateResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
 import org.springframework.data.mongodb.core.MongoOperations;
-import org.springframework.data.mongodb.core.MongoTemplate;
-import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.http.HttpStatus;
+import org.springframework.data.util.CloseableIterator;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
@@ -18,56 +22,117 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
+import java.net.URI;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Stream;
 
+import javax.persistence.EntityManager;
 import javax.persistence.EntityNotFoundException;
+import javax.persistence.PersistenceContext;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 
+import ecommerce.tutorial.cache.ProductReadCache;
+import ecommerce.tutorial.cache.ReferenceCache;
+import ecommerce.tutorial.enums.OutboxAggregate;
+import ecommerce.tutorial.fanout.ProductFanOutWorker;
 import ecommerce.tutorial.jpa.entities.ProfileEntity;
 import ecommerce.tutorial.jpa.entities.SellerEntity;
+import ecommerce.tutorial.jpa.projections.SellerView;
 import ecommerce.tutorial.jpa.repositories.SellerJpaRepository;
+import ecommerce.tutorial.mongodb.models.EmbeddedSeller;
+import ecommerce.tutorial.mongodb.models.ProductFanOutJob;
 import ecommerce.tutorial.mongodb.models.Profile;
 import ecommerce.tutorial.mongodb.models.Seller;
 import ecommerce.tutorial.mongodb.repositories.SellerRepository;
+import ecommerce.tutorial.outbox.AfterCommit;
+import ecommerce.tutorial.outbox.CatalogOutbox;
+import ecommerce.tutorial.paging.KeysetPage;
+import ecommerce.tutorial.paging.NdjsonWriter;
+import ecommerce.tutorial.versioning.CollectionVersions;
+import ecommerce.tutorial.versioning.ETags;
+import ecommerce.tutorial.versioning.VersionedUpdates;
 
 @RestController
 @RequestMapping(path = "/seller")
 public class SellerService
 {
-    private MongoOperations _mongoOperation = new MongoTemplate(new MongoClient(), "local");
+    private static final Logger LOG = LoggerFactory.getLogger(SellerService.class);
+
+    private static final int CLEAR_EVERY = 100;
+
+    @Autowired
+    private MongoOperations _mongoOperations;
     @Autowired
     private SellerJpaRepository _sellerJpaRepository;
     @Autowired
     private SellerRepository _sellerMongoRepository;
+    @Autowired
+    private ReferenceCache _referenceCache;
+    @Autowired
+    private ProductReadCache _productReadCache;
+    @Autowired
+    private CollectionVersions _collectionVersions;
+    @Autowired
+    private CatalogOutbox _catalogOutbox;
+    @Autowired
+    private ProductFanOutWorker _productFanOutWorker;
+    @Autowired
+    private ObjectMapper _objectMapper;
+    @PersistenceContext
+    private EntityManager _entityManager;
 
 
     //----------Retrieve Sellers----------------
     @GetMapping(path = "/mongo")
-    public ResponseEntity<?> getSellersFromMongoDB(@RequestParam(value = "firstName") String firstName)
+    public ResponseEntity<?> getSellersFromMongoDB(@RequestParam(value = "firstName") String firstName, WebRequest request)
     {
         List<Seller> sellers = _sellerMongoRepository.findByFirstName(firstName);
         if (sellers.size() > 0)
         {
-            System.out.println("There are " + sellers.size() + " sellers with first name " + firstName + " in MongoDB database.");
+            ETags eTag = ETags.builder();
+            sellers.forEach(seller -> eTag.add(seller.getId()).add(seller.getVersion()));
+            if (request.checkNotModified(eTag.build()))
+            {
+                return null;
+            }
+            if (LOG.isDebugEnabled())
+            {
+                LOG.debug("There are {} sellers with first name {} in MongoDB database.", sellers.size(), firstName);
+            }
             return new ResponseEntity<>(sellers, HttpStatus.OK);
         }
         return new ResponseEntity<>("There isn't any seller with this name in MongoDB.", HttpStatus.NOT_FOUND);
     }
 
     @GetMapping(path = "/all/mongo")
-    public List<Seller> getAllSellersFromMongoDB()
+    public ResponseEntity<List<Seller>> getAllSellersFromMongoDB(WebRequest request)
     {
-        return _sellerMongoRepository.findAll();
+        if (request.checkNotModified(_collectionVersions.mongoETag(CollectionVersions.SELLERS)))
+        {
+            return null;
+        }
+        return new ResponseEntity<>(_sellerMongoRepository.findAll(), HttpStatus.OK);
     }
 
     @GetMapping(path = "/mysql")
-    public ResponseEntity<?> getSellerFromMysql(@RequestParam(value = "id") long id)
+    public ResponseEntity<?> getSellerFromMysql(@RequestParam(value = "id") long id, WebRequest request)
     {
         try
         {
-            SellerEntity seller = _sellerJpaRepository.findById(id).orElseThrow(EntityNotFoundException::new);
-            System.out.println("The seller with id " + id + " = " + seller.toString());
+            SellerView seller = _sellerJpaRepository.findViewById(id).orElseThrow(EntityNotFoundException::new);
+            if (request.checkNotModified(seller.eTag()))
+            {
+                return null;
+            }
+            if (LOG.isDebugEnabled())
+            {
+                LOG.debug("The seller with id {} = {}", id, seller);
+            }
             return new ResponseEntity<>(seller, HttpStatus.OK);
         }
         catch (EntityNotFoundException e)
@@ -77,9 +142,67 @@ public class SellerService
     }
 
     @GetMapping(path = "/all/mysql")
-    public List<SellerEntity> getAllSellersFromMysql()
+    public ResponseEntity<List<SellerView>> getAllSellersFromMysql(WebRequest request)
+    {
+        if (request.checkNotModified(_collectionVersions.mysqlETag(CollectionVersions.SELLERS)))
+        {
+            return null;
+        }
+        return new ResponseEntity<>(_sellerJpaRepository.findAllViews(), HttpStatus.OK);
+    }
+
+    @GetMapping(path = "/page/mongo")
+    public KeysetPage<Seller> getSellerPageFromMongoDB(@RequestParam(value = "after", required = false) String after,
+                                                       @RequestParam(value = "size", required = false) Integer size)
+    {
+        int limit = KeysetPage.limit(size);
+        List<Seller> sellers = after == null
+                ? _sellerMongoRepository.findAllByOrderByIdAsc(PageRequest.of(0, limit))
+                : _sellerMongoRepository.findByIdGreaterThanOrderByIdAsc(after, PageRequest.of(0, limit));
+        return KeysetPage.of(sellers, limit, Seller::getId);
+    }
+
+    @GetMapping(path = "/page/mysql")
+    public KeysetPage<SellerView> getSellerPageFromMysql(@RequestParam(value = "after", defaultValue = "0") long after,
+                                                         @RequestParam(value = "size", required = false) Integer size)
     {
-        return _sellerJpaRepository.findAll();
+        int limit = KeysetPage.limit(size);
+        List<SellerView> sellers = _sellerJpaRepository.findViewsAfter(after, PageRequest.of(0, limit));
+        return KeysetPage.of(sellers, limit, SellerView::getId);
+    }
+
+    @GetMapping(path = "/stream/mongo", produces = NdjsonWriter.MEDIA_TYPE)
+    public void streamAllSellersFromMongoDB(HttpServletResponse response) throws IOException
+    {
+        Query query = new Query().with(Sort.by(Sort.Direction.ASC, "_id"));
+        try (CloseableIterator<Seller> sellers = _mongoOperations.stream(query, Seller.class);
+             NdjsonWriter writer = new NdjsonWriter(_objectMapper, response))
+        {
+            while (sellers.hasNext())
+            {
+                writer.write(sellers.next());
+            }
+        }
+    }
+
+    @Transactional(readOnly = true)
+    @GetMapping(path = "/stream/mysql", produces = NdjsonWriter.MEDIA_TYPE)
+    public void streamAllSellersFromMysql(HttpServletResponse response) throws IOException
+    {
+        try (Stream<SellerEntity> sellers = _sellerJpaRepository.streamAll();
+             NdjsonWriter writer = new NdjsonWriter(_objectMapper, response))
+        {
+            Iterator<SellerEntity> iterator = sellers.iterator();
+            int written = 0;
+            while (iterator.hasNext())
+            {
+                writer.write(iterator.next());
+                if (++written % CLEAR_EVERY == 0)
+                {
+                    _entityManager.clear();
+                }
+            }
+        }
     }
 
 
@@ -90,9 +213,11 @@ public class SellerService
         Profile profile = new Profile(seller.getProfile().getFirstName(), seller.getProfile().getLastName(), seller.getProfile().getGender());
         Seller sellerMongoDB = new Seller(seller.getAccountId(), profile);
         sellerMongoDB = _sellerMongoRepository.save(sellerMongoDB);
+        _collectionVersions.mongoWritten(CollectionVersions.SELLERS);
         return new ResponseEntity<>(sellerMongoDB, HttpStatus.OK);
     }
 
+    @Transactional
     @PostMapping(path = "/mysql")
     public ResponseEntity<SellerEntity> addNewSellerInMysql(@Valid @RequestBody SellerEntity seller)
     {
@@ -104,48 +229,43 @@ public class SellerService
         sellerEntity.getProfile().setEmailAddress(seller.getProfile().getEmailAddress());
         sellerEntity.getProfile().setBirthday(seller.getProfile().getBirthday());
         sellerEntity = _sellerJpaRepository.save(sellerEntity);
+        _catalogOutbox.changed(OutboxAggregate.Seller, sellerEntity.getId());
+        _collectionVersions.mysqlWritten(CollectionVersions.SELLERS);
         return new ResponseEntity<>(sellerEntity, HttpStatus.OK);
     }
 
 
     //----------Update a Seller-----------------
     @PutMapping(path = "/mongo")
-    public ResponseEntity<String> updateSellerInMongoDB(@Valid @RequestBody Seller seller)
+    public ResponseEntity<?> updateSellerInMongoDB(@Valid @RequestBody Seller seller)
     {
-        try
-        {
-            Seller sellerInDatabase = _sellerMongoRepository.findById(seller.getId()).orElseThrow(EntityNotFoundException::new);
-            Update update = new Update();
-            update.set("accountId", seller.getAccountId());
-            update.set("profile.firstName", seller.getProfile().getFirstName());
-            update.set("profile.lastName", seller.getProfile().getLastName());
-            update.set("profile.website", seller.getProfile().getWebsite());
-            update.set("profile.birthday", seller.getProfile().getBirthday());
-            update.set("profile.address", seller.getProfile().getAddress());
-            update.set("profile.emailAddress", seller.getProfile().getEmailAddress());
-            update.set("profile.gender", seller.getProfile().getGender());
-
-            Query query = new Query(Criteria.where("_id").is(seller.getId()));
-            UpdateResult updateResult = _mongoOperation.updateFirst(query, update, Seller.class);
-            if (updateResult.getModifiedCount() == 1)
-            {
-                sellerInDatabase = _sellerMongoRepository.findById(seller.getId()).orElseThrow(EntityNotFoundException::new);
-                System.out.println("__________________________________________________________________");
-                System.out.println("The document of " + sellerInDatabase.toString() + " updated");
-                return new ResponseEntity<>("The seller updated", HttpStatus.OK);
-            }
-            else
-            {
-                return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
-            }
-        }
-        catch (EntityNotFoundException e)
+        Update update = new Update();
+        update.set("accountId", seller.getAccountId());
+        update.set("profile.firstName", seller.getProfile().getFirstName());
+        update.set("profile.lastName", seller.getProfile().getLastName());
+        update.set("profile.website", seller.getProfile().getWebsite());
+        update.set("profile.birthday", seller.getProfile().getBirthday());
+        update.set("profile.address", seller.getProfile().getAddress());
+        update.set("profile.emailAddress", seller.getProfile().getEmailAddress());
+        update.set("profile.gender", seller.getProfile().getGender());
+        update.inc("version", 1);
+
+        Query query = VersionedUpdates.query(seller.getId(), seller.getVersion());
+        Seller sellerInDatabase = _mongoOperations.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), Seller.class);
+        if (sellerInDatabase == null)
         {
-            return new ResponseEntity<>("This seller doesn't exists in MongoDB.", HttpStatus.NOT_FOUND);
+            return VersionedUpdates.notUpdated(_mongoOperations, seller.getId(), seller.getVersion(), Seller.class, "seller");
         }
+        _referenceCache.invalidateMongoSeller(seller.getId());
+        _collectionVersions.mongoWritten(CollectionVersions.SELLERS);
+        LOG.debug("The document of {} updated", sellerInDatabase);
 
+        //The products embed a copy of their seller, which is replaced by a background job.
+        ProductFanOutJob job = _productFanOutWorker.submitSellerSnapshot(EmbeddedSeller.of(sellerInDatabase));
+        return ResponseEntity.accepted().location(URI.create("/job/" + job.getId())).body(job);
     }
 
+    @Transactional
     @PutMapping(path = "/mysql")
     public ResponseEntity<String> updateSellerInMysql(@Valid @RequestBody SellerEntity seller)
     {
@@ -163,8 +283,14 @@ public class SellerService
         sellerEntity.getProfile().setEmailAddress(seller.getProfile().getEmailAddress());
         sellerEntity.getProfile().setGender(seller.getProfile().getGender());
         sellerEntity = _sellerJpaRepository.save(sellerEntity);
-        System.out.println("__________________________________________________________________");
-        System.out.println("The row of " + sellerEntity.toString() + " updated");
+        _catalogOutbox.changed(OutboxAggregate.Seller, sellerEntity.getId());
+        _collectionVersions.mysqlWritten(CollectionVersions.SELLERS);
+        long id = sellerEntity.getId();
+        AfterCommit.run(() -> {
+            _referenceCache.invalidateMysqlSeller(id);
+            _productReadCache.invalidateMysqlProducts();
+        });
+        LOG.debug("The row of {} updated", sellerEntity);
         return new ResponseEntity<>("The seller updated", HttpStatus.OK);
     }
 }
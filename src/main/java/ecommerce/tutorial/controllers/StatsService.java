@@ -0,0 +1,83 @@
+package ecommerce.tutorial.controllers;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+import ecommerce.tutorial.cache.CacheStats;
+import ecommerce.tutorial.cache.ProductReadCache;
+import ecommerce.tutorial.cache.ReferenceCache;
+import ecommerce.tutorial.cache.RegionStats;
+import ecommerce.tutorial.cache.SecondLevelCacheMetrics;
+import ecommerce.tutorial.mongodb.client.ConnectionPoolMetrics;
+import ecommerce.tutorial.mongodb.client.ConnectionPoolStats;
+import ecommerce.tutorial.outbox.ReadModelProjector;
+import ecommerce.tutorial.outbox.ReadModelStats;
+import ecommerce.tutorial.threads.VirtualThreadMode;
+import ecommerce.tutorial.threads.VirtualThreadStats;
+
+@RestController
+@RequestMapping(path = "/stats")
+public class StatsService
+{
+    @Autowired
+    private ReferenceCache _referenceCache;
+    @Autowired
+    private ProductReadCache _productReadCache;
+    @Autowired
+    private SecondLevelCacheMetrics _secondLevelCacheMetrics;
+    @Autowired
+    private ConnectionPoolMetrics _connectionPoolMetrics;
+    @Autowired
+    private ReadModelProjector _readModelProjector;
+    @Autowired(required = false)
+    private VirtualThreadMode _virtualThreadMode;
+
+
+    @GetMapping(path = "/reference-cache")
+    public List<CacheStats> getReferenceCacheStats()
+    {
+        return _referenceCache.stats();
+    }
+
+    @GetMapping(path = "/product-cache")
+    public List<CacheStats> getProductCacheStats()
+    {
+        return _productReadCache.stats();
+    }
+
+    //The regions of the Hibernate cache in front of MySQL.
+    @GetMapping(path = "/second-level-cache")
+    public List<RegionStats> getSecondLevelCacheStats()
+    {
+        return _secondLevelCacheMetrics.stats();
+    }
+
+    @GetMapping(path = "/mongo-pool")
+    public ConnectionPoolStats getMongoPoolStats()
+    {
+        return _connectionPoolMetrics.stats();
+    }
+
+    //How far the projected products of MongoDB are behind MySQL.
+    @GetMapping(path = "/read-model")
+    public ReadModelStats getReadModelStats()
+    {
+        return _readModelProjector.stats();
+    }
+
+    //Only served in the virtual-thread mode.
+    @GetMapping(path = "/virtual-threads")
+    public ResponseEntity<VirtualThreadStats> getVirtualThreadStats()
+    {
+        if (_virtualThreadMode == null)
+        {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(_virtualThreadMode.stats());
+    }
+}
@@ -0,0 +1,7 @@
+package ecommerce.tutorial.enums;
+
+public enum Backend
+{
+    MongoDB,
+    MySQL;
+}
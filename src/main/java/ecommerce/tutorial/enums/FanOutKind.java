@@ -0,0 +1,9 @@
+package ecommerce.tutorial.enums;
+
+//What a fan-out job copies into the products.
+public enum FanOutKind
+{
+    CategoryRename,
+    //The value is the version of the seller, the job also holds the copy of the seller.
+    SellerSnapshot;
+}
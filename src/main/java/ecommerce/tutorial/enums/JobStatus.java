@@ -0,0 +1,9 @@
+package ecommerce.tutorial.enums;
+
+public enum JobStatus
+{
+    Pending,
+    Running,
+    Done,
+    Failed;
+}
@@ -0,0 +1,11 @@
+package ecommerce.tutorial.enums;
+
+//What a row of the catalog outbox says has changed in MySQL.
+public enum OutboxAggregate
+{
+    //The products table, or the images or categories of a product.
+    Product,
+    //The sellers table or the profile of a seller.
+    Seller,
+    Category;
+}
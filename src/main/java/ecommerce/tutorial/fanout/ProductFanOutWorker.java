@@ -0,0 +1,241 @@
+package ecommerce.tutorial.fanout;
+
+import com.mongodb.client.result.UpdateResult;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import ecommerce.tutorial.cache.ProductReadCache;
+import ecommerce.tutorial.enums.FanOutKind;
+import ecommerce.tutorial.enums.JobStatus;
+import ecommerce.tutorial.mongodb.models.EmbeddedSeller;
+import ecommerce.tutorial.mongodb.models.Product;
+import ecommerce.tutorial.mongodb.models.ProductFanOutJob;
+import ecommerce.tutorial.search.CatalogIndexer;
+import ecommerce.tutorial.search.ProductDocument;
+import ecommerce.tutorial.versioning.CollectionVersions;
+
+//Copies a change of a category or seller into the products embedding it, a bounded chunk at a time with a pause in between, so a
+//category or seller of millions of products neither holds a request open nor floods the primary. The progress is kept in the job
+//document after every chunk; a job whose worker stopped is claimed again once its lease expired, and goes on from there.
+@Component
+public class ProductFanOutWorker
+{
+    private static final Logger LOG = LoggerFactory.getLogger(ProductFanOutWorker.class);
+
+    @Autowired
+    private MongoOperations _mongoOperations;
+    @Autowired
+    private ProductReadCache _productReadCache;
+    @Autowired
+    private CollectionVersions _collectionVersions;
+    @Autowired
+    private CatalogIndexer _catalogIndexer;
+
+    private final int chunkSize;
+
+    private final long pauseMillis;
+
+    private final long leaseMillis;
+
+    public ProductFanOutWorker(@Value("${catalog.fan-out.chunk-size:500}") int chunkSize,
+                               @Value("${catalog.fan-out.pause-millis:100}") long pauseMillis,
+                               @Value("${catalog.fan-out.lease-millis:60000}") long leaseMillis)
+    {
+        this.chunkSize = chunkSize;
+        this.pauseMillis = pauseMillis;
+        this.leaseMillis = leaseMillis;
+    }
+
+    //A job already waiting or running for the same target takes the new value and starts again from the first product,
+    //so two jobs never write different values into the same products.
+    public ProductFanOutJob submit(FanOutKind kind, String targetId, String value)
+    {
+        return submit(active(kind, targetId), new Update().set("value", value));
+    }
+
+    //The products of the seller get the copy, unless they already hold the one of a later version. The submits of two
+    //updates of the seller may arrive in either order, the job only ever moves to a later version: a job of this version or
+    //a later one is left as it is, and the update only matches a job of an earlier one. Should a later job be created in
+    //between, the job created here is one more, and it cannot undo the later one, whose products hold a later version.
+    public ProductFanOutJob submitSellerSnapshot(EmbeddedSeller seller)
+    {
+        Query current = active(FanOutKind.SellerSnapshot, seller.getId()).addCriteria(Criteria.where("seller.version").gte(seller.getVersion()));
+        ProductFanOutJob job = _mongoOperations.findOne(current, ProductFanOutJob.class);
+        if (job != null)
+        {
+            return job;
+        }
+        Query older = active(FanOutKind.SellerSnapshot, seller.getId()).addCriteria(Criteria.where("seller.version").lt(seller.getVersion()));
+        return submit(older, new Update().set("value", String.valueOf(seller.getVersion())).set("seller", seller));
+    }
+
+    private static Query active(FanOutKind kind, String targetId)
+    {
+        return new Query(Criteria.where("kind").is(kind).and("targetId").is(targetId).and("status").in(JobStatus.Pending, JobStatus.Running));
+    }
+
+    //An upsert also copies the fields of the equality criteria of the query into the new job.
+    private ProductFanOutJob submit(Query query, Update update)
+    {
+        update.unset("lastProductId")
+                .setOnInsert("status", JobStatus.Pending)
+                .setOnInsert("createdAt", new Date())
+                .setOnInsert("updatedProducts", 0L)
+                .setOnInsert("chunks", 0);
+        return _mongoOperations.findAndModify(query, update, FindAndModifyOptions.options().upsert(true).returnNew(true), ProductFanOutJob.class);
+    }
+
+    @Scheduled(fixedDelayString = "${catalog.fan-out.poll-millis:1000}")
+    public void work()
+    {
+        ProductFanOutJob job = claim();
+        while (job != null)
+        {
+            run(job);
+            job = claim();
+        }
+    }
+
+    //The oldest job waiting, or running without a heartbeat for longer than the lease.
+    private ProductFanOutJob claim()
+    {
+        Date now = new Date();
+        Criteria claimable = new Criteria().orOperator(
+                Criteria.where("status").is(JobStatus.Pending),
+                Criteria.where("status").is(JobStatus.Running).and("heartbeatAt").lt(new Date(now.getTime() - leaseMillis)));
+        Query query = new Query(claimable).with(Sort.by(Sort.Direction.ASC, "createdAt"));
+        Update update = new Update().set("status", JobStatus.Running).set("heartbeatAt", now);
+        return _mongoOperations.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), ProductFanOutJob.class);
+    }
+
+    private void run(ProductFanOutJob job)
+    {
+        try
+        {
+            while (job != null && job.getStatus() == JobStatus.Running)
+            {
+                if (job.getLastProductId() == null)
+                {
+                    long total = _mongoOperations.count(new Query(pending(job)), Product.class);
+                    _mongoOperations.updateFirst(owned(job), new Update().set("totalProducts", total), ProductFanOutJob.class);
+                }
+                List<String> chunk = nextChunk(job);
+                long updated = chunk.isEmpty() ? 0 : apply(job, chunk);
+                job = recordProgress(job, chunk, updated);
+                if (job != null && job.getStatus() == JobStatus.Running)
+                {
+                    Thread.sleep(pauseMillis);
+                }
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        catch (RuntimeException e)
+        {
+            LOG.warn("The fan-out job {} failed", job.getId(), e);
+            Update failure = new Update().set("status", JobStatus.Failed).set("error", e.getMessage()).set("finishedAt", new Date());
+            _mongoOperations.updateFirst(new Query(Criteria.where("_id").is(job.getId())), failure, ProductFanOutJob.class);
+        }
+    }
+
+    //The products still holding another value, after the last updated one.
+    private List<String> nextChunk(ProductFanOutJob job)
+    {
+        Criteria criteria = pending(job);
+        if (job.getLastProductId() != null)
+        {
+            criteria = criteria.and("_id").gt(job.getLastProductId());
+        }
+        Query query = new Query(criteria).with(Sort.by(Sort.Direction.ASC, "_id")).limit(chunkSize);
+        query.fields().include("_id");
+        return _mongoOperations.find(query, Product.class).stream().map(Product::getId).collect(Collectors.toList());
+    }
+
+    private long apply(ProductFanOutJob job, List<String> productIds)
+    {
+        Query query = new Query(Criteria.where("_id").in(productIds).andOperator(pending(job)));
+        UpdateResult result = _mongoOperations.updateMulti(query, change(job).inc("version", 1), Product.class);
+
+        //The indexes hold the category names of the products, and the caches their whole documents with the seller.
+        Query updated = new Query(Criteria.where("_id").in(productIds));
+        updated.fields().include("name").include("description").include("price").include("fallIntoCategories");
+        for (Product product : _mongoOperations.find(updated, Product.class))
+        {
+            _catalogIndexer.indexed(ProductDocument.of(product));
+            _productReadCache.mongoProductWritten(product.getId(), product.getName());
+        }
+        _collectionVersions.mongoWritten(CollectionVersions.PRODUCTS);
+        return result.getModifiedCount();
+    }
+
+    //A job whose value changed during the chunk is read again, it goes on with the new value from its first product.
+    private ProductFanOutJob recordProgress(ProductFanOutJob job, List<String> chunk, long updated)
+    {
+        Date now = new Date();
+        Update progress = new Update().set("heartbeatAt", now).inc("chunks", 1).inc("updatedProducts", updated);
+        if (!chunk.isEmpty())
+        {
+            progress.set("lastProductId", chunk.get(chunk.size() - 1));
+        }
+        if (chunk.size() < chunkSize)
+        {
+            progress.set("status", JobStatus.Done).set("finishedAt", now);
+        }
+        ProductFanOutJob next = _mongoOperations.findAndModify(owned(job), progress, FindAndModifyOptions.options().returnNew(true), ProductFanOutJob.class);
+        if (next != null)
+        {
+            return next;
+        }
+        return _mongoOperations.findById(job.getId(), ProductFanOutJob.class);
+    }
+
+    private static Query owned(ProductFanOutJob job)
+    {
+        return new Query(Criteria.where("_id").is(job.getId()).and("status").is(JobStatus.Running).and("value").is(job.getValue()));
+    }
+
+    //The products the job has still to update.
+    private static Criteria pending(ProductFanOutJob job)
+    {
+        switch (job.getKind())
+        {
+            case CategoryRename:
+                return Criteria.where("fallIntoCategories").elemMatch(Criteria.where("_id").is(job.getTargetId()).and("name").ne(job.getValue()));
+            case SellerSnapshot:
+                return Criteria.where("seller._id").is(job.getTargetId()).and("seller.version").lt(job.getSeller().getVersion());
+            default:
+                throw new IllegalStateException("Unknown fan-out job kind: " + job.getKind());
+        }
+    }
+
+    //The update of a product matched by pending(job); the positional operator refers to the element matched by its $elemMatch.
+    private static Update change(ProductFanOutJob job)
+    {
+        switch (job.getKind())
+        {
+            case CategoryRename:
+                return new Update().set("fallIntoCategories.$.name", job.getValue());
+            case SellerSnapshot:
+                return new Update().set("seller", job.getSeller());
+            default:
+                throw new IllegalStateException("Unknown fan-out job kind: " + job.getKind());
+        }
+    }
+}
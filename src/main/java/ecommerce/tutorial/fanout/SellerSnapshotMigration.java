@@ -0,0 +1,80 @@
+package ecommerce.tutorial.fanout;
+
+import com.mongodb.DBRef;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Updates;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import ecommerce.tutorial.cache.ProductReadCache;
+import ecommerce.tutorial.mongodb.models.EmbeddedSeller;
+import ecommerce.tutorial.mongodb.models.Product;
+import ecommerce.tutorial.mongodb.models.Seller;
+import ecommerce.tutorial.versioning.CollectionVersions;
+
+//Products written before the seller was embedded hold a DBRef to it, which is replaced by the copy of the seller once at
+//startup, one update per seller.
+@Component
+public class SellerSnapshotMigration
+{
+    private static final Logger LOG = LoggerFactory.getLogger(SellerSnapshotMigration.class);
+
+    @Autowired
+    private MongoOperations _mongoOperations;
+    @Autowired
+    private ProductReadCache _productReadCache;
+    @Autowired
+    private CollectionVersions _collectionVersions;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrate()
+    {
+        MongoCollection<Document> products = _mongoOperations.getCollection(_mongoOperations.getCollectionName(Product.class));
+        //The cursor is read a batch at a time, only the ids of the sellers are kept: there are far fewer of them than products.
+        Set<Object> sellerIds = new LinkedHashSet<>();
+        for (Document product : products.find(Filters.exists("seller.$ref")).projection(Projections.include("seller")))
+        {
+            Object seller = product.get("seller");
+            if (seller instanceof DBRef)
+            {
+                sellerIds.add(((DBRef) seller).getId());
+            }
+        }
+        if (sellerIds.isEmpty())
+        {
+            return;
+        }
+        long start = System.nanoTime();
+        long migrated = 0;
+        for (Object sellerId : sellerIds)
+        {
+            Seller seller = _mongoOperations.findById(sellerId, Seller.class);
+            //The copy is written the way the mapping writes an embedded seller, so the queries of the fan-out jobs match it.
+            Object snapshot = null;
+            if (seller != null)
+            {
+                Document document = new Document();
+                _mongoOperations.getConverter().write(EmbeddedSeller.of(seller), document);
+                document.remove("_class");
+                snapshot = document;
+            }
+            migrated += products.updateMany(Filters.and(Filters.exists("seller.$ref"), Filters.eq("seller.$id", sellerId)),
+                    Updates.combine(Updates.set("seller", snapshot), Updates.inc("version", 1))).getModifiedCount();
+        }
+        _productReadCache.invalidateMongoProducts();
+        _collectionVersions.mongoWritten(CollectionVersions.PRODUCTS);
+        LOG.info("The sellers of {} products embedded in {} ms.", migrated, (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -0,0 +1,46 @@
+package ecommerce.tutorial.jpa.entities;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+//A counter bumped by every write to the table it is named after.
+@Entity
+@Table(name = "collection_versions")
+public class CollectionVersionEntity
+{
+    @Id
+    private String name;
+
+    private long version;
+
+    public CollectionVersionEntity()
+    {
+    }
+
+    public CollectionVersionEntity(String name, long version)
+    {
+        this.name = name;
+        this.version = version;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public void setName(String name)
+    {
+        this.name = name;
+    }
+
+    public long getVersion()
+    {
+        return version;
+    }
+
+    public void setVersion(long version)
+    {
+        this.version = version;
+    }
+}
@@ -0,0 +1,136 @@
+package ecommerce.tutorial.jpa.entities;
+
+import java.util.Date;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+
+import ecommerce.tutorial.enums.OutboxAggregate;
+
+//A change of the MySQL catalog, written in the transaction of the change itself. It names what changed, not how: the
+//projection reads the current rows, so applying an event twice, or late, gives the same document.
+@Entity
+@Table(name = "catalog_outbox", indexes = {
+        @Index(name = "idx_catalog_outbox_pending", columnList = "processed_at, id"),
+        @Index(name = "idx_catalog_outbox_created", columnList = "created_at")
+})
+public class OutboxEventEntity
+{
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "catalog_id")
+    private long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private OutboxAggregate aggregate;
+
+    @Column(name = "aggregate_id", nullable = false)
+    private long aggregateId;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "created_at", nullable = false)
+    private Date createdAt;
+
+    //Null until the event is projected, set back to null to replay it.
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "processed_at")
+    private Date processedAt;
+
+    //The node projecting the event until the lease runs out; a node that stops projecting leaves it to the next one after that.
+    @Column(name = "claimed_by", length = 36)
+    private String claimedBy;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "claimed_until")
+    private Date claimedUntil;
+
+    public OutboxEventEntity()
+    {
+    }
+
+    public OutboxEventEntity(OutboxAggregate aggregate, long aggregateId, Date createdAt)
+    {
+        this.aggregate = aggregate;
+        this.aggregateId = aggregateId;
+        this.createdAt = createdAt;
+    }
+
+    public long getId()
+    {
+        return id;
+    }
+
+    public void setId(long id)
+    {
+        this.id = id;
+    }
+
+    public OutboxAggregate getAggregate()
+    {
+        return aggregate;
+    }
+
+    public void setAggregate(OutboxAggregate aggregate)
+    {
+        this.aggregate = aggregate;
+    }
+
+    public long getAggregateId()
+    {
+        return aggregateId;
+    }
+
+    public void setAggregateId(long aggregateId)
+    {
+        this.aggregateId = aggregateId;
+    }
+
+    public Date getCreatedAt()
+    {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Date createdAt)
+    {
+        this.createdAt = createdAt;
+    }
+
+    public Date getProcessedAt()
+    {
+        return processedAt;
+    }
+
+    public void setProcessedAt(Date processedAt)
+    {
+        this.processedAt = processedAt;
+    }
+
+    public String getClaimedBy()
+    {
+        return claimedBy;
+    }
+
+    public void setClaimedBy(String claimedBy)
+    {
+        this.claimedBy = claimedBy;
+    }
+
+    public Date getClaimedUntil()
+    {
+        return claimedUntil;
+    }
+
+    public void setClaimedUntil(Date claimedUntil)
+    {
+        this.claimedUntil = claimedUntil;
+    }
+}
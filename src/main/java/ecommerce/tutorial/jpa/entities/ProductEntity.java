@@ -1,5 +1,9 @@
 package ecommerce.tutorial.jpa.entities;
 
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -11,22 +15,40 @@ import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.JoinTable;
 import javax.persistence.ManyToMany;
 import javax.persistence.ManyToOne;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
+import javax.persistence.NamedSubgraph;
 import javax.persistence.Table;
+import javax.persistence.Version;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
 
+//The seller and its profile are joined into the product query, the collections are loaded in batches for all the products of a page.
+//The ids of the categories of a product are kept in the second-level cache, the categories themselves in their own region.
+@NamedEntityGraph(name = ProductEntity.WITH_SELLER,
+        attributeNodes = @NamedAttributeNode(value = "seller", subgraph = "seller"),
+        subgraphs = @NamedSubgraph(name = "seller", attributeNodes = @NamedAttributeNode("profile")))
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+        @Index(name = "idx_products_price", columnList = "price, id"),
+        @Index(name = "idx_products_name", columnList = "name, id")
+})
 public class ProductEntity
 {
+    public static final String WITH_SELLER = "ProductEntity.withSeller";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "catalog_id")
     private long id;
 
+    @Version
+    private long version;
+
     @NotNull
     private String name;
 
@@ -37,6 +59,7 @@ public class ProductEntity
     @ElementCollection
     @CollectionTable(name = "Product_Images", joinColumns = @JoinColumn(name = "product_id", nullable = false))
     @Column(name = "image_URL", nullable = false)
+    @BatchSize(size = 100)
     @Size(min = 1)
     @NotNull
     private List<String> images;
@@ -50,7 +73,10 @@ public class ProductEntity
     @ManyToMany
     @JoinTable(name = "product_category",
             joinColumns = @JoinColumn(name = "product_id", referencedColumnName = "id"),
-            inverseJoinColumns = @JoinColumn(name = "category_id", referencedColumnName = "id"))
+            inverseJoinColumns = @JoinColumn(name = "category_id", referencedColumnName = "id"),
+            indexes = @Index(name = "idx_product_category_category", columnList = "category_id, product_id"))
+    @BatchSize(size = 100)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "product_category")
     @Size(min = 1)
     @NotNull
     private Set<CategoryEntity> fallIntoCategories;
@@ -81,6 +107,16 @@ public class ProductEntity
         this.id = id;
     }
 
+    public long getVersion()
+    {
+        return version;
+    }
+
+    public void setVersion(long version)
+    {
+        this.version = version;
+    }
+
     public String getName()
     {
         return name;
@@ -0,0 +1,108 @@
+package ecommerce.tutorial.jpa.entities;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+//The price and the name of a product next to each category it falls into, so the products of a category are read in the
+//order of either from one index, from the row after the last one of the previous page. product_category cannot give that
+//order: it holds the ids alone. The rows are written with the product, see ProductSortKeys.
+@Entity
+@IdClass(ProductSortKeyEntity.Key.class)
+@Table(name = "product_sort_keys", indexes = {
+        @Index(name = "idx_product_sort_keys_price", columnList = "category_id, price, product_id"),
+        @Index(name = "idx_product_sort_keys_name", columnList = "category_id, name, product_id")
+})
+public class ProductSortKeyEntity
+{
+    @Id
+    @Column(name = "product_id")
+    private long productId;
+
+    @Id
+    @Column(name = "category_id")
+    private long categoryId;
+
+    private float price;
+
+    @Column(nullable = false)
+    private String name;
+
+    public ProductSortKeyEntity()
+    {
+    }
+
+    public ProductSortKeyEntity(long productId, long categoryId, float price, String name)
+    {
+        this.productId = productId;
+        this.categoryId = categoryId;
+        this.price = price;
+        this.name = name;
+    }
+
+    public long getProductId()
+    {
+        return productId;
+    }
+
+    public long getCategoryId()
+    {
+        return categoryId;
+    }
+
+    public float getPrice()
+    {
+        return price;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public static class Key implements Serializable
+    {
+        private static final long serialVersionUID = 1L;
+
+        private long productId;
+
+        private long categoryId;
+
+        public Key()
+        {
+        }
+
+        public Key(long productId, long categoryId)
+        {
+            this.productId = productId;
+            this.categoryId = categoryId;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o)
+            {
+                return true;
+            }
+            if (!(o instanceof Key))
+            {
+                return false;
+            }
+            Key key = (Key) o;
+            return productId == key.productId && categoryId == key.categoryId;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(productId, categoryId);
+        }
+    }
+}
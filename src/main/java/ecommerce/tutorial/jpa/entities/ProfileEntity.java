@@ -3,8 +3,12 @@ package ecommerce.tutorial.jpa.entities;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.sun.istack.internal.NotNull;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import java.util.Date;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Entity;
 import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
@@ -15,16 +19,22 @@ import javax.persistence.OneToOne;
 import javax.persistence.Table;
 import javax.persistence.Temporal;
 import javax.persistence.TemporalType;
+import javax.persistence.Version;
 
 import ecommerce.tutorial.enums.Gender;
 
 @Entity
 @Table(name = "profile")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "profiles")
 public class ProfileEntity
 {
     @Id
     private long id;
 
+    @Version
+    private long version;
+
     @OneToOne
     @JoinColumn(nullable = false)
     @MapsId
@@ -71,6 +81,16 @@ public class ProfileEntity
         this.id = id;
     }
 
+    public long getVersion()
+    {
+        return version;
+    }
+
+    public void setVersion(long version)
+    {
+        this.version = version;
+    }
+
     public SellerEntity getSeller()
     {
         return seller;
@@ -0,0 +1,13 @@
+//The ids of the entities come from the hibernate_sequence table, a block of 50 at a time: a node takes the next block with
+//one locked update of the table and hands its ids out from memory, so the inserts need no round trip for their ids and
+//can be batched, and the nodes sharing the database never hand out the same id.
+@GenericGenerator(name = "catalog_id", strategy = "enhanced-sequence", parameters = {
+        @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "hibernate_sequence"),
+        @Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM, value = "50"),
+        @Parameter(name = SequenceStyleGenerator.OPT_PARAM, value = "pooled-lo")
+})
+package ecommerce.tutorial.jpa.entities;
+
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
@@ -0,0 +1,32 @@
+package ecommerce.tutorial.jpa.projections;
+
+public final class CategoryView
+{
+    private final long id;
+
+    private final String name;
+
+    private final long version;
+
+    public CategoryView(long id, String name, long version)
+    {
+        this.id = id;
+        this.name = name;
+        this.version = version;
+    }
+
+    public long getId()
+    {
+        return id;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public long getVersion()
+    {
+        return version;
+    }
+}
@@ -0,0 +1,57 @@
+package ecommerce.tutorial.jpa.projections;
+
+//The columns of a product row, completed into a ProductView once its seller, images and categories are read.
+public final class ProductRow
+{
+    private final long id;
+
+    private final long version;
+
+    private final String name;
+
+    private final String description;
+
+    private final float price;
+
+    private final long sellerId;
+
+    public ProductRow(long id, long version, String name, String description, float price, long sellerId)
+    {
+        this.id = id;
+        this.version = version;
+        this.name = name;
+        this.description = description;
+        this.price = price;
+        this.sellerId = sellerId;
+    }
+
+    public long getId()
+    {
+        return id;
+    }
+
+    public long getVersion()
+    {
+        return version;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public String getDescription()
+    {
+        return description;
+    }
+
+    public float getPrice()
+    {
+        return price;
+    }
+
+    public long getSellerId()
+    {
+        return sellerId;
+    }
+}
@@ -0,0 +1,88 @@
+package ecommerce.tutorial.jpa.projections;
+
+import java.util.Collections;
+import java.util.List;
+
+import ecommerce.tutorial.versioning.ETags;
+
+public final class ProductView
+{
+    private final long id;
+
+    private final long version;
+
+    private final String name;
+
+    private final String description;
+
+    private final float price;
+
+    private final List<String> images;
+
+    private final SellerView seller;
+
+    private final List<CategoryView> fallIntoCategories;
+
+    public ProductView(ProductRow row, List<String> images, SellerView seller, List<CategoryView> fallIntoCategories)
+    {
+        this.id = row.getId();
+        this.version = row.getVersion();
+        this.name = row.getName();
+        this.description = row.getDescription();
+        this.price = row.getPrice();
+        this.images = Collections.unmodifiableList(images);
+        this.seller = seller;
+        this.fallIntoCategories = Collections.unmodifiableList(fallIntoCategories);
+    }
+
+    public long getId()
+    {
+        return id;
+    }
+
+    public long getVersion()
+    {
+        return version;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public String getDescription()
+    {
+        return description;
+    }
+
+    public float getPrice()
+    {
+        return price;
+    }
+
+    public List<String> getImages()
+    {
+        return images;
+    }
+
+    public SellerView getSeller()
+    {
+        return seller;
+    }
+
+    public List<CategoryView> getFallIntoCategories()
+    {
+        return fallIntoCategories;
+    }
+
+    //The JSON of a product holds its seller and the names of its categories, their versions are part of its tag.
+    public String eTag()
+    {
+        ETags tag = ETags.builder().add(id).add(version).add(seller == null ? null : seller.eTag());
+        for (CategoryView category : fallIntoCategories)
+        {
+            tag.add(category.getId()).add(category.getVersion());
+        }
+        return tag.build();
+    }
+}
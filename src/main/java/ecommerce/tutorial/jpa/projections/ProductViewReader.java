@@ -0,0 +1,135 @@
+package ecommerce.tutorial.jpa.projections;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import ecommerce.tutorial.jpa.repositories.ProductJpaRepository;
+import ecommerce.tutorial.jpa.repositories.ProductSortKeyJpaRepository;
+import ecommerce.tutorial.jpa.repositories.SellerJpaRepository;
+
+//Reads products as ProductView without loading any entity: one query for the product rows, then one each for their sellers,
+//categories and images. The transaction is read only, so Hibernate neither tracks nor flushes anything.
+@Component
+@Transactional(readOnly = true)
+public class ProductViewReader
+{
+    @Autowired
+    private ProductJpaRepository _productJpaRepository;
+    @Autowired
+    private SellerJpaRepository _sellerJpaRepository;
+    @Autowired
+    private ProductSortKeyJpaRepository _productSortKeyJpaRepository;
+
+    public Optional<ProductView> findByName(String name)
+    {
+        List<ProductRow> rows = _productJpaRepository.findRowsByName(name, PageRequest.of(0, 1));
+        return complete(rows).stream().findFirst();
+    }
+
+    public List<ProductView> findAfter(long after, int limit)
+    {
+        return complete(_productJpaRepository.findRowsAfter(after, PageRequest.of(0, limit)));
+    }
+
+    //----------Products of a category-----------
+    public List<ProductView> findInCategory(long categoryId, long afterId, int limit)
+    {
+        return findByIds(_productJpaRepository.findIdsInCategory(categoryId, afterId, limit));
+    }
+
+    public List<ProductView> findInCategoryByPrice(long categoryId, float afterPrice, long afterId, int limit)
+    {
+        return findByIds(_productSortKeyJpaRepository.findIdsInCategoryByPrice(categoryId, afterPrice, afterId, limit));
+    }
+
+    public List<ProductView> findInCategoryByName(long categoryId, String afterName, long afterId, int limit)
+    {
+        return findByIds(_productSortKeyJpaRepository.findIdsInCategoryByName(categoryId, afterName, afterId, limit));
+    }
+
+    //In the order of the ids, a product deleted since they were read is left out.
+    public List<ProductView> findByIds(List<? extends Number> ids)
+    {
+        if (ids.isEmpty())
+        {
+            return new ArrayList<>();
+        }
+        Map<Long, ProductView> productOfId = new HashMap<>(ids.size() * 2);
+        List<Long> productIds = new ArrayList<>(ids.size());
+        ids.forEach(id -> productIds.add(id.longValue()));
+        complete(_productJpaRepository.findRowsByIdIn(productIds)).forEach(product -> productOfId.put(product.getId(), product));
+        List<ProductView> products = new ArrayList<>(productIds.size());
+        for (Long id : productIds)
+        {
+            ProductView product = productOfId.get(id);
+            if (product != null)
+            {
+                products.add(product);
+            }
+        }
+        return products;
+    }
+
+    //The whole catalog: the associations are read without an id list, which would be as long as the catalog.
+    public List<ProductView> findAll()
+    {
+        List<ProductRow> rows = _productJpaRepository.findAllRows();
+        if (rows.isEmpty())
+        {
+            return new ArrayList<>();
+        }
+        return assemble(rows, _sellerJpaRepository.findAllViews(), _productJpaRepository.findAllCategoryRows(), _productJpaRepository.findAllImageRows());
+    }
+
+    private List<ProductView> complete(List<ProductRow> rows)
+    {
+        if (rows.isEmpty())
+        {
+            return new ArrayList<>();
+        }
+        Set<Long> ids = new HashSet<>(rows.size());
+        Set<Long> sellerIds = new HashSet<>();
+        for (ProductRow row : rows)
+        {
+            ids.add(row.getId());
+            sellerIds.add(row.getSellerId());
+        }
+        return assemble(rows, _sellerJpaRepository.findViewsByIdIn(sellerIds), _productJpaRepository.findCategoryRows(ids), _productJpaRepository.findImageRows(ids));
+    }
+
+    private static List<ProductView> assemble(List<ProductRow> rows, List<SellerView> sellers, List<Object[]> categoryRows, List<Object[]> imageRows)
+    {
+        Map<Long, SellerView> sellerOfId = new HashMap<>(sellers.size() * 2);
+        sellers.forEach(seller -> sellerOfId.put(seller.getId(), seller));
+        Map<Long, List<CategoryView>> categoriesOfProduct = new HashMap<>();
+        for (Object[] row : categoryRows)
+        {
+            categoriesOfProduct.computeIfAbsent((Long) row[0], id -> new ArrayList<>()).add(new CategoryView((Long) row[1], (String) row[2], (Long) row[3]));
+        }
+        Map<Long, List<String>> imagesOfProduct = new HashMap<>();
+        for (Object[] row : imageRows)
+        {
+            imagesOfProduct.computeIfAbsent((Long) row[0], id -> new ArrayList<>()).add((String) row[1]);
+        }
+        List<ProductView> products = new ArrayList<>(rows.size());
+        for (ProductRow row : rows)
+        {
+            products.add(new ProductView(row,
+                    imagesOfProduct.getOrDefault(row.getId(), Collections.emptyList()),
+                    sellerOfId.get(row.getSellerId()),
+                    categoriesOfProduct.getOrDefault(row.getId(), Collections.emptyList())));
+        }
+        return products;
+    }
+}
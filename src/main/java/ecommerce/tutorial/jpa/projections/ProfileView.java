@@ -0,0 +1,84 @@
+package ecommerce.tutorial.jpa.projections;
+
+import java.util.Date;
+
+import ecommerce.tutorial.enums.Gender;
+
+public final class ProfileView
+{
+    private final long id;
+
+    private final long version;
+
+    private final String firstName;
+
+    private final String lastName;
+
+    private final String website;
+
+    private final Date birthday;
+
+    private final String address;
+
+    private final String emailAddress;
+
+    private final Gender gender;
+
+    public ProfileView(long id, long version, String firstName, String lastName, String website, Date birthday, String address, String emailAddress, Gender gender)
+    {
+        this.id = id;
+        this.version = version;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.website = website;
+        this.birthday = birthday;
+        this.address = address;
+        this.emailAddress = emailAddress;
+        this.gender = gender;
+    }
+
+    public long getId()
+    {
+        return id;
+    }
+
+    public long getVersion()
+    {
+        return version;
+    }
+
+    public String getFirstName()
+    {
+        return firstName;
+    }
+
+    public String getLastName()
+    {
+        return lastName;
+    }
+
+    public String getWebsite()
+    {
+        return website;
+    }
+
+    public Date getBirthday()
+    {
+        return birthday;
+    }
+
+    public String getAddress()
+    {
+        return address;
+    }
+
+    public String getEmailAddress()
+    {
+        return emailAddress;
+    }
+
+    public Gender getGender()
+    {
+        return gender;
+    }
+}
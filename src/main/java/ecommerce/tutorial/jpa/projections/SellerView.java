@@ -0,0 +1,65 @@
+package ecommerce.tutorial.jpa.projections;
+
+import java.util.Date;
+
+import ecommerce.tutorial.enums.Gender;
+import ecommerce.tutorial.versioning.ETags;
+
+public final class SellerView
+{
+    private final long id;
+
+    private final long version;
+
+    private final String accountId;
+
+    private final ProfileView profile;
+
+    //The arguments of the constructor expression of SellerJpaRepository, the profile columns are null for a seller without profile.
+    public SellerView(long id, long version, String accountId, Long profileId, Long profileVersion, String firstName, String lastName, String website, Date birthday, String address, String emailAddress, Gender gender)
+    {
+        this.id = id;
+        this.version = version;
+        this.accountId = accountId;
+        this.profile = profileId == null ? null : new ProfileView(profileId, profileVersion, firstName, lastName, website, birthday, address, emailAddress, gender);
+    }
+
+    public long getId()
+    {
+        return id;
+    }
+
+    public long getVersion()
+    {
+        return version;
+    }
+
+    public String getAccountId()
+    {
+        return accountId;
+    }
+
+    public ProfileView getProfile()
+    {
+        return profile;
+    }
+
+    //The profile is written together with the seller but has its own version.
+    public String eTag()
+    {
+        return ETags.of(id, version, profile == null ? null : profile.getVersion());
+    }
+
+    @Override
+    public String toString()
+    {
+        if (profile == null)
+        {
+            return super.toString();
+        }
+        else
+        {
+            return profile.getFirstName() + " " + profile.getLastName();
+        }
+    }
+}
@@ -1,12 +1,48 @@
 package ecommerce.tutorial.jpa.repositories;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
 
 import ecommerce.tutorial.jpa.entities.CategoryEntity;
+import ecommerce.tutorial.jpa.projections.CategoryView;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_CACHE_REGION;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 public interface CategoryJpaRepository extends JpaRepository<CategoryEntity, Long>
 {
+    String CATEGORY_VIEW = "select new ecommerce.tutorial.jpa.projections.CategoryView(c.id, c.name, c.version) from CategoryEntity c";
+
+    //The ids of the result are kept in the query cache until a category is written, the categories come from their region.
+    @QueryHints({@QueryHint(name = HINT_CACHEABLE, value = "true"), @QueryHint(name = HINT_CACHE_REGION, value = "categoriesByName")})
     List<CategoryEntity> findAllByName(String name);
+
+    List<CategoryEntity> findByIdGreaterThanOrderByIdAsc(long id, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("select c from CategoryEntity c order by c.id")
+    Stream<CategoryEntity> streamAll();
+
+    //Rows of id, name and the number of products; size() counts the rows of product_category without joining the products.
+    @Query("select c.id, c.name, size(c.products) from CategoryEntity c")
+    List<Object[]> countProductsPerCategory();
+
+    //----------Projections----------------------
+    @Query(CATEGORY_VIEW + " where c.name = :name")
+    List<CategoryView> findViewsByName(@Param("name") String name);
+
+    @Query(CATEGORY_VIEW + " order by c.id")
+    List<CategoryView> findAllViews();
+
+    @Query(CATEGORY_VIEW + " where c.id > :after order by c.id")
+    List<CategoryView> findViewsAfter(@Param("after") long after, Pageable pageable);
 }
@@ -0,0 +1,17 @@
+package ecommerce.tutorial.jpa.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+
+import ecommerce.tutorial.jpa.entities.CollectionVersionEntity;
+
+public interface CollectionVersionJpaRepository extends JpaRepository<CollectionVersionEntity, String>
+{
+    @Modifying
+    @Query("update CollectionVersionEntity v set v.version = v.version + 1 where v.name in :names")
+    int increment(@Param("names") Collection<String> names);
+}
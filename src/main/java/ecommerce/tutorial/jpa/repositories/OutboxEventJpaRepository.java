@@ -0,0 +1,45 @@
+package ecommerce.tutorial.jpa.repositories;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+import ecommerce.tutorial.jpa.entities.OutboxEventEntity;
+
+public interface OutboxEventJpaRepository extends JpaRepository<OutboxEventEntity, Long>
+{
+    @Query("select e.id from OutboxEventEntity e where e.processedAt is null and (e.claimedUntil is null or e.claimedUntil < :now) order by e.id")
+    List<Long> findClaimableIds(@Param("now") Date now, Pageable pageable);
+
+    //The conditions are checked again on the locked rows, so of two nodes claiming the same events only one gets each.
+    @Modifying
+    @Query("update OutboxEventEntity e set e.claimedBy = :claim, e.claimedUntil = :until " +
+            "where e.id in :ids and e.processedAt is null and (e.claimedUntil is null or e.claimedUntil < :now)")
+    int claim(@Param("ids") Collection<Long> ids, @Param("claim") String claim, @Param("now") Date now, @Param("until") Date until);
+
+    List<OutboxEventEntity> findByIdInAndClaimedByOrderByIdAsc(Collection<Long> ids, String claimedBy);
+
+    long countByProcessedAtIsNull();
+
+    @Query("select min(e.createdAt) from OutboxEventEntity e where e.processedAt is null")
+    Date findOldestPendingCreatedAt();
+
+    @Modifying
+    @Query("update OutboxEventEntity e set e.processedAt = :processedAt where e.id in :ids")
+    int markProcessed(@Param("ids") Collection<Long> ids, @Param("processedAt") Date processedAt);
+
+    @Modifying
+    @Query("update OutboxEventEntity e set e.processedAt = null, e.claimedBy = null, e.claimedUntil = null " +
+            "where e.createdAt >= :since and e.processedAt is not null")
+    int markPending(@Param("since") Date since);
+
+    @Modifying
+    @Query("delete from OutboxEventEntity e where e.processedAt < :before")
+    int deleteProcessedBefore(@Param("before") Date before);
+}
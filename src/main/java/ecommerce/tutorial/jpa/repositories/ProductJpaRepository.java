@@ -1,10 +1,97 @@
 package ecommerce.tutorial.jpa.repositories;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
 
 import ecommerce.tutorial.jpa.entities.ProductEntity;
+import ecommerce.tutorial.jpa.projections.ProductRow;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 public interface ProductJpaRepository extends JpaRepository<ProductEntity, Long>
 {
+    //p.seller.id is read from the foreign key of the product, without joining the seller.
+    String PRODUCT_ROW = "select new ecommerce.tutorial.jpa.projections.ProductRow(p.id, p.version, p.name, p.description, p.price, p.seller.id) from ProductEntity p";
+
+    @EntityGraph(ProductEntity.WITH_SELLER)
     ProductEntity findByName(String name);
+
+    @Override
+    @EntityGraph(ProductEntity.WITH_SELLER)
+    List<ProductEntity> findAll();
+
+    @EntityGraph(ProductEntity.WITH_SELLER)
+    List<ProductEntity> findByIdGreaterThanOrderByIdAsc(long id, Pageable pageable);
+
+    //The columns the in-memory product indexes are built from: id, name, description, price, category id, category name.
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("select p.id, p.name, p.description, p.price, c.id, c.name from ProductEntity p join p.fallIntoCategories c order by p.id")
+    Stream<Object[]> streamIndexRows();
+
+    //Rows of id, name, price; the sort of the pageable decides the order.
+    @Query("select p.id, p.name, p.price from ProductEntity p where p.price between :min and :max")
+    List<Object[]> findByPriceRange(@Param("min") float min, @Param("max") float max, Pageable pageable);
+
+    @Query("select count(p) from ProductEntity p where p.price between :min and :max")
+    long countByPriceRange(@Param("min") float min, @Param("max") float max);
+
+    @Query("select p.id, p.name, p.price from ProductEntity p join p.fallIntoCategories c where c.id = :categoryId and p.price between :min and :max")
+    List<Object[]> findByPriceRangeInCategory(@Param("min") float min, @Param("max") float max, @Param("categoryId") long categoryId, Pageable pageable);
+
+    @Query("select count(p) from ProductEntity p join p.fallIntoCategories c where c.id = :categoryId and p.price between :min and :max")
+    long countByPriceRangeInCategory(@Param("min") float min, @Param("max") float max, @Param("categoryId") long categoryId);
+
+    //----------Projections----------------------
+    @Query(PRODUCT_ROW + " where p.name = :name order by p.id")
+    List<ProductRow> findRowsByName(@Param("name") String name, Pageable pageable);
+
+    @Query(PRODUCT_ROW + " order by p.id")
+    List<ProductRow> findAllRows();
+
+    @Query(PRODUCT_ROW + " where p.id > :after order by p.id")
+    List<ProductRow> findRowsAfter(@Param("after") long after, Pageable pageable);
+
+    @Query(PRODUCT_ROW + " where p.id in :ids")
+    List<ProductRow> findRowsByIdIn(@Param("ids") Collection<Long> ids);
+
+    //----------Products of a category-----------
+    //A keyset query over product_category: each page starts right after the last row of the previous one, whatever its depth.
+    //The ids come back as the numbers of the driver. The orders by price and name are read from ProductSortKeyJpaRepository.
+    @Query(value = "select pc.product_id from product_category pc where pc.category_id = :categoryId and pc.product_id > :afterId"
+            + " order by pc.product_id limit :limit", nativeQuery = true)
+    List<Number> findIdsInCategory(@Param("categoryId") long categoryId, @Param("afterId") long afterId, @Param("limit") int limit);
+
+    //----------Products of a change-------------
+    @Query("select p.id from ProductEntity p where p.seller.id in :sellerIds")
+    List<Long> findIdsBySellerIdIn(@Param("sellerIds") Collection<Long> sellerIds);
+
+    @Query("select distinct p.id from ProductEntity p join p.fallIntoCategories c where c.id in :categoryIds")
+    List<Long> findIdsByCategoryIdIn(@Param("categoryIds") Collection<Long> categoryIds);
+
+    @Query("select p.id from ProductEntity p where p.id > :after order by p.id")
+    List<Long> findIdsAfter(@Param("after") long after, Pageable pageable);
+
+    //Rows of product id, category id, category name, category version.
+    @Query("select p.id, c.id, c.name, c.version from ProductEntity p join p.fallIntoCategories c where p.id in :ids")
+    List<Object[]> findCategoryRows(@Param("ids") Collection<Long> ids);
+
+    @Query("select p.id, c.id, c.name, c.version from ProductEntity p join p.fallIntoCategories c")
+    List<Object[]> findAllCategoryRows();
+
+    //Rows of product id, image URL.
+    @Query("select p.id, i from ProductEntity p join p.images i where p.id in :ids")
+    List<Object[]> findImageRows(@Param("ids") Collection<Long> ids);
+
+    @Query("select p.id, i from ProductEntity p join p.images i")
+    List<Object[]> findAllImageRows();
 }
@@ -0,0 +1,46 @@
+package ecommerce.tutorial.jpa.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+import ecommerce.tutorial.jpa.entities.ProductSortKeyEntity;
+
+public interface ProductSortKeyJpaRepository extends JpaRepository<ProductSortKeyEntity, ProductSortKeyEntity.Key>
+{
+    @Modifying
+    @Query("delete from ProductSortKeyEntity k where k.productId in :productIds")
+    int deleteByProductIdIn(@Param("productIds") Collection<Long> productIds);
+
+    //----------Products of a category-----------
+    //Keyset queries over the index of the category and the key: the first condition on the key is the range the index is
+    //entered at, the second one skips the rows of the same key up to the last id of the previous page. The ids come back
+    //as the numbers of the driver; the price is bound as a double holding the exact float, so it compares equal to the
+    //FLOAT column.
+    @Query(value = "select k.product_id from product_sort_keys k where k.category_id = :categoryId and k.price >= :afterPrice"
+            + " and (k.price > :afterPrice or k.product_id > :afterId) order by k.price, k.product_id limit :limit", nativeQuery = true)
+    List<Number> findIdsInCategoryByPrice(@Param("categoryId") long categoryId, @Param("afterPrice") double afterPrice,
+                                          @Param("afterId") long afterId, @Param("limit") int limit);
+
+    @Query(value = "select k.product_id from product_sort_keys k where k.category_id = :categoryId and k.name >= :afterName"
+            + " and (k.name > :afterName or k.product_id > :afterId) order by k.name, k.product_id limit :limit", nativeQuery = true)
+    List<Number> findIdsInCategoryByName(@Param("categoryId") long categoryId, @Param("afterName") String afterName,
+                                         @Param("afterId") long afterId, @Param("limit") int limit);
+
+    //----------Rebuild--------------------------
+    @Query(value = "select count(*) from product_category", nativeQuery = true)
+    long countMemberships();
+
+    @Modifying
+    @Query(value = "delete from product_sort_keys", nativeQuery = true)
+    int deleteAllRows();
+
+    @Modifying
+    @Query(value = "insert into product_sort_keys (product_id, category_id, price, name)"
+            + " select p.id, pc.category_id, p.price, p.name from product_category pc join products p on p.id = pc.product_id", nativeQuery = true)
+    int insertFromMemberships();
+}
@@ -1,10 +1,44 @@
 package ecommerce.tutorial.jpa.repositories;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
 
 import ecommerce.tutorial.jpa.entities.SellerEntity;
+import ecommerce.tutorial.jpa.projections.SellerView;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 public interface SellerJpaRepository extends JpaRepository<SellerEntity, Long>
 {
+    String SELLER_VIEW = "select new ecommerce.tutorial.jpa.projections.SellerView(s.id, s.version, s.accountId, pr.id, pr.version, pr.firstName, pr.lastName, pr.website, pr.birthday, pr.address, pr.emailAddress, pr.gender)"
+            + " from SellerEntity s left join s.profile pr";
+
+    List<SellerEntity> findByIdGreaterThanOrderByIdAsc(long id, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("select s from SellerEntity s order by s.id")
+    Stream<SellerEntity> streamAll();
+
+    //----------Projections----------------------
+    @Query(SELLER_VIEW + " where s.id = :id")
+    Optional<SellerView> findViewById(@Param("id") long id);
+
+    @Query(SELLER_VIEW + " where s.id in :ids")
+    List<SellerView> findViewsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query(SELLER_VIEW + " order by s.id")
+    List<SellerView> findAllViews();
 
+    @Query(SELLER_VIEW + " where s.id > :after order by s.id")
+    List<SellerView> findViewsAfter(@Param("after") long after, Pageable pageable);
 }
@@ -0,0 +1,194 @@
+package ecommerce.tutorial.membership;
+
+import com.mongodb.DBRef;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.result.DeleteResult;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import ecommerce.tutorial.mongodb.models.Category;
+import ecommerce.tutorial.mongodb.models.CategoryMembership;
+import ecommerce.tutorial.mongodb.repositories.CategoryMembershipRepository;
+import ecommerce.tutorial.versioning.CollectionVersions;
+
+//The products of the MongoDB categories, one small document per product and category instead of an ever-growing array
+//in the category. The category keeps only the number of its products, incremented by the memberships actually created.
+@Component
+public class CategoryMemberships
+{
+    private static final Logger LOG = LoggerFactory.getLogger(CategoryMemberships.class);
+
+    private static final int MIGRATION_CHUNK = 1000;
+
+    private static final int DUPLICATE_KEY = 11000;
+
+    @Autowired
+    private MongoOperations _mongoOperations;
+    @Autowired
+    private CategoryMembershipRepository _categoryMembershipRepository;
+    @Autowired
+    private CollectionVersions _collectionVersions;
+
+    public int add(String productId, Collection<String> categoryIds)
+    {
+        Map<String, List<String>> productIdsByCategory = new LinkedHashMap<>();
+        categoryIds.forEach(categoryId -> productIdsByCategory.put(categoryId, Collections.singletonList(productId)));
+        return addAll(productIdsByCategory);
+    }
+
+    //Adding a membership twice changes nothing, so a retried write does not count a product twice.
+    public int addAll(Map<String, List<String>> productIdsByCategory)
+    {
+        if (productIdsByCategory.isEmpty())
+        {
+            return 0;
+        }
+        BulkOperations upserts = _mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, CategoryMembership.class);
+        List<String> categoryOfUpsert = new ArrayList<>();
+        productIdsByCategory.forEach((categoryId, productIds) -> {
+            for (String productId : productIds)
+            {
+                upserts.upsert(new Query(Criteria.where("categoryId").is(categoryId).and("productId").is(productId)),
+                        new Update().setOnInsert("categoryId", categoryId).setOnInsert("productId", productId));
+                categoryOfUpsert.add(categoryId);
+            }
+        });
+        List<Integer> inserted;
+        try
+        {
+            inserted = upserts.execute().getUpserts().stream().map(upsert -> upsert.getIndex()).collect(Collectors.toList());
+        }
+        catch (MongoBulkWriteException e)
+        {
+            //Two writers inserted the same membership at once, the unique index kept one of them. Any other failure leaves
+            //memberships out and the counts wrong, it is thrown.
+            if (e.getWriteConcernError() != null || e.getWriteErrors().stream().anyMatch(error -> error.getCode() != DUPLICATE_KEY))
+            {
+                throw e;
+            }
+            inserted = e.getWriteResult().getUpserts().stream().map(upsert -> upsert.getIndex()).collect(Collectors.toList());
+        }
+        Map<String, Integer> addedByCategory = new HashMap<>();
+        inserted.forEach(index -> addedByCategory.merge(categoryOfUpsert.get(index), 1, Integer::sum));
+        incrementCounts(addedByCategory);
+        return inserted.size();
+    }
+
+    //Keeps the memberships of a product in line with the categories it now falls into, true if any of them changed.
+    public boolean replace(String productId, Collection<String> categoryIds)
+    {
+        Set<String> current = _categoryMembershipRepository.findByProductId(productId).stream()
+                .map(CategoryMembership::getCategoryId)
+                .collect(Collectors.toSet());
+        Map<String, Integer> removedByCategory = new HashMap<>();
+        for (String categoryId : current)
+        {
+            if (categoryIds.contains(categoryId))
+            {
+                continue;
+            }
+            DeleteResult result = _mongoOperations.remove(
+                    new Query(Criteria.where("categoryId").is(categoryId).and("productId").is(productId)), CategoryMembership.class);
+            if (result.getDeletedCount() > 0)
+            {
+                removedByCategory.put(categoryId, -1);
+            }
+        }
+        incrementCounts(removedByCategory);
+        Set<String> added = new HashSet<>(categoryIds);
+        added.removeAll(current);
+        return add(productId, added) > 0 || !removedByCategory.isEmpty();
+    }
+
+    //The ids of the products of a category after the given one, in order.
+    public List<String> productIds(String categoryId, String after, int limit)
+    {
+        List<CategoryMembership> memberships = after == null
+                ? _categoryMembershipRepository.findByCategoryIdOrderByProductIdAsc(categoryId, PageRequest.of(0, limit))
+                : _categoryMembershipRepository.findByCategoryIdAndProductIdGreaterThanOrderByProductIdAsc(categoryId, after, PageRequest.of(0, limit));
+        return memberships.stream().map(CategoryMembership::getProductId).collect(Collectors.toList());
+    }
+
+    private void incrementCounts(Map<String, Integer> deltaByCategory)
+    {
+        if (deltaByCategory.isEmpty())
+        {
+            return;
+        }
+        BulkOperations increments = _mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, Category.class);
+        deltaByCategory.forEach((categoryId, delta) ->
+                increments.updateOne(new Query(Criteria.where("_id").is(categoryId)), new Update().inc("productCount", delta)));
+        increments.execute();
+    }
+
+
+    //----------Migration------------------------
+    //Categories written before the memberships existed hold their products in an array, which is moved out once at startup.
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrate()
+    {
+        List<String> categoryIds = _mongoOperations.getCollection(_mongoOperations.getCollectionName(Category.class))
+                .find(Filters.exists("productsOfCategory"))
+                .projection(Projections.include("_id"))
+                .into(new ArrayList<>()).stream()
+                .map(category -> String.valueOf(category.get("_id")))
+                .collect(Collectors.toList());
+        if (categoryIds.isEmpty())
+        {
+            return;
+        }
+        long start = System.nanoTime();
+        for (String categoryId : categoryIds)
+        {
+            migrate(categoryId);
+        }
+        _collectionVersions.mongoWritten(CollectionVersions.CATEGORIES);
+        LOG.info("The products of {} categories moved into their memberships in {} ms.", categoryIds.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    //The count is taken from the memberships at the end, the ones added meanwhile by new products are already in it.
+    private void migrate(String categoryId)
+    {
+        Query query = new Query(Criteria.where("_id").is(categoryId));
+        query.fields().include("productsOfCategory");
+        Document category = _mongoOperations.findOne(query, Document.class, _mongoOperations.getCollectionName(Category.class));
+        List<?> references = category == null ? null : category.get("productsOfCategory", List.class);
+        if (references != null)
+        {
+            for (int from = 0; from < references.size(); from += MIGRATION_CHUNK)
+            {
+                List<String> productIds = references.subList(from, Math.min(from + MIGRATION_CHUNK, references.size())).stream()
+                        .map(reference -> String.valueOf(reference instanceof DBRef ? ((DBRef) reference).getId() : reference))
+                        .collect(Collectors.toList());
+                addAll(Collections.singletonMap(categoryId, productIds));
+            }
+        }
+        Update update = new Update().unset("productsOfCategory").set("productCount", _categoryMembershipRepository.countByCategoryId(categoryId));
+        _mongoOperations.updateFirst(new Query(Criteria.where("_id").is(categoryId)), update, Category.class);
+    }
+}
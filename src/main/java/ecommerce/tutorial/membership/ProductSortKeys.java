@@ -0,0 +1,70 @@
+package ecommerce.tutorial.membership;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.Collections;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import ecommerce.tutorial.jpa.entities.CategoryEntity;
+import ecommerce.tutorial.jpa.entities.ProductEntity;
+import ecommerce.tutorial.jpa.entities.ProductSortKeyEntity;
+import ecommerce.tutorial.jpa.repositories.ProductSortKeyJpaRepository;
+
+//The sort keys of the MySQL products in their categories, written in the transaction of the product write itself.
+@Component
+public class ProductSortKeys
+{
+    private static final Logger LOG = LoggerFactory.getLogger(ProductSortKeys.class);
+
+    @PersistenceContext
+    private EntityManager _entityManager;
+    @Autowired
+    private ProductSortKeyJpaRepository _productSortKeyJpaRepository;
+
+    //The products were just persisted, they have no keys yet. The keys are sent with the inserts of the products.
+    public void created(Collection<ProductEntity> products)
+    {
+        for (ProductEntity product : products)
+        {
+            for (CategoryEntity category : product.getFallIntoCategories())
+            {
+                _entityManager.persist(new ProductSortKeyEntity(product.getId(), category.getId(), product.getPrice(), product.getName()));
+            }
+        }
+    }
+
+    //The price, the name and the categories of the product may all have changed.
+    public void updated(ProductEntity product)
+    {
+        _productSortKeyJpaRepository.deleteByProductIdIn(Collections.singleton(product.getId()));
+        created(Collections.singleton(product));
+    }
+
+
+    //----------Rebuild--------------------------
+    //A database written before the keys existed, or whose products were written around the application, has not one key per
+    //row of product_category: the keys are then built again from the rows, with one statement.
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void rebuild()
+    {
+        long memberships = _productSortKeyJpaRepository.countMemberships();
+        if (_productSortKeyJpaRepository.count() == memberships)
+        {
+            return;
+        }
+        long start = System.nanoTime();
+        _productSortKeyJpaRepository.deleteAllRows();
+        int keys = _productSortKeyJpaRepository.insertFromMemberships();
+        LOG.info("{} sort keys of the products in their categories built again in {} ms.", keys, (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -0,0 +1,92 @@
+package ecommerce.tutorial.metrics;
+
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+
+import org.springframework.boot.actuate.metrics.web.servlet.DefaultWebMvcTagsProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+//The tags of http.server.requests: the ones of Spring Boot, the database an endpoint reads or writes, named by a segment
+//of its path, as in /product/mysql or /category/mongo/{id}/products, and the class of its status.
+@Component
+public class CatalogWebMvcTagsProvider extends DefaultWebMvcTagsProvider
+{
+    private static final Tag NO_BACKEND = Tag.of("backend", "none");
+
+    private static final Tag MONGO = Tag.of("backend", "mongo");
+
+    private static final Tag MYSQL = Tag.of("backend", "mysql");
+
+    private static final Tag INFORMATIONAL = Tag.of("outcome", "INFORMATIONAL");
+
+    private static final Tag SUCCESS = Tag.of("outcome", "SUCCESS");
+
+    private static final Tag REDIRECTION = Tag.of("outcome", "REDIRECTION");
+
+    private static final Tag CLIENT_ERROR = Tag.of("outcome", "CLIENT_ERROR");
+
+    private static final Tag SERVER_ERROR = Tag.of("outcome", "SERVER_ERROR");
+
+    @Override
+    public Iterable<Tag> getTags(HttpServletRequest request, HttpServletResponse response, Object handler, Throwable exception)
+    {
+        return Tags.of(super.getTags(request, response, handler, exception)).and(backend(request), outcome(response));
+    }
+
+    @Override
+    public Iterable<Tag> getLongRequestTags(HttpServletRequest request, Object handler)
+    {
+        return Tags.of(super.getLongRequestTags(request, handler)).and(backend(request));
+    }
+
+    private static Tag backend(HttpServletRequest request)
+    {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String path = pattern == null ? request.getRequestURI() : pattern.toString();
+        if (hasSegment(path, "mongo"))
+        {
+            return MONGO;
+        }
+        if (hasSegment(path, "mysql"))
+        {
+            return MYSQL;
+        }
+        return NO_BACKEND;
+    }
+
+    //A whole segment only, so /stats/mongo-pool is not tagged as an endpoint of MongoDB.
+    private static boolean hasSegment(String path, String segment)
+    {
+        for (int from = path.indexOf('/' + segment); from >= 0; from = path.indexOf('/' + segment, from + 1))
+        {
+            int end = from + 1 + segment.length();
+            if (end == path.length() || path.charAt(end) == '/')
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Tag outcome(HttpServletResponse response)
+    {
+        int status = response == null ? 200 : response.getStatus();
+        if (status < 200)
+        {
+            return INFORMATIONAL;
+        }
+        if (status < 300)
+        {
+            return SUCCESS;
+        }
+        if (status < 400)
+        {
+            return REDIRECTION;
+        }
+        return status < 500 ? CLIENT_ERROR : SERVER_ERROR;
+    }
+}
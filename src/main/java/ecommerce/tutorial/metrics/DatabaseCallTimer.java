@@ -0,0 +1,149 @@
+package ecommerce.tutorial.metrics;
+
+import com.mongodb.client.MongoCollection;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+//Times every call to a Spring Data repository and to MongoOperations as catalog.db.calls, tagged by the database, the
+//repository and its method, and the exception thrown. A call made inside another one, a repository calling MongoOperations,
+//is part of the outer call and is not timed again. The reactive repositories return before their query runs, they are left out.
+@Aspect
+@Component
+public class DatabaseCallTimer
+{
+    public static final String METRIC = "catalog.db.calls";
+
+    //What MongoOperations returns without going to the database: the bulk operations are timed when they are executed.
+    private static final Set<Class<?>> LOCAL_RESULTS = new HashSet<>(Arrays.asList(
+            MongoConverter.class, MongoCollection.class, BulkOperations.class, IndexOperations.class, String.class));
+
+    private static final String FLUENT_OPERATIONS = "org.springframework.data.mongodb.core.Executable";
+
+    private static final ThreadLocal<Boolean> TIMING = new ThreadLocal<>();
+
+    private final MeterRegistry registry;
+
+    private final Map<Class<?>, Target> targets = new ConcurrentHashMap<>();
+
+    public DatabaseCallTimer(MeterRegistry registry)
+    {
+        this.registry = registry;
+    }
+
+    @Around("execution(* org.springframework.data.repository.Repository+.*(..)) || execution(* org.springframework.data.mongodb.core.MongoOperations.*(..))")
+    public Object time(ProceedingJoinPoint call) throws Throwable
+    {
+        if (TIMING.get() != null || call.getTarget() instanceof ReactiveCrudRepository)
+        {
+            return call.proceed();
+        }
+        Target target = targets.computeIfAbsent(call.getTarget().getClass(), type -> Target.of(call.getTarget()));
+        Method method = ((MethodSignature) call.getSignature()).getMethod();
+        if (target.operations && isLocal(method))
+        {
+            Object result = call.proceed();
+            return result instanceof BulkOperations ? timedExecute((BulkOperations) result, target) : result;
+        }
+        return time(target, method.getName(), call::proceed);
+    }
+
+    private Object time(Target target, String method, Call call) throws Throwable
+    {
+        String exception = "None";
+        TIMING.set(Boolean.TRUE);
+        long start = registry.config().clock().monotonicTime();
+        try
+        {
+            return call.proceed();
+        }
+        catch (Throwable e)
+        {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        }
+        finally
+        {
+            long nanos = registry.config().clock().monotonicTime() - start;
+            TIMING.remove();
+            Timer.builder(METRIC)
+                    .tag("backend", target.backend)
+                    .tag("repository", target.name)
+                    .tag("method", method)
+                    .tag("exception", exception)
+                    .register(registry)
+                    .record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private BulkOperations timedExecute(BulkOperations operations, Target target)
+    {
+        ProxyFactory factory = new ProxyFactory(operations);
+        factory.addAdvice((MethodInterceptor) invocation -> "execute".equals(invocation.getMethod().getName())
+                ? time(target, "bulkOps.execute", invocation::proceed)
+                : invocation.proceed());
+        return (BulkOperations) factory.getProxy();
+    }
+
+    private static boolean isLocal(Method method)
+    {
+        return LOCAL_RESULTS.contains(method.getReturnType()) || method.getReturnType().getName().startsWith(FLUENT_OPERATIONS);
+    }
+
+    private interface Call
+    {
+        Object proceed() throws Throwable;
+    }
+
+    //The repositories are proxies, named after the interface they implement.
+    private static class Target
+    {
+        private final String backend;
+
+        private final String name;
+
+        private final boolean operations;
+
+        private Target(String backend, String name, boolean operations)
+        {
+            this.backend = backend;
+            this.name = name;
+            this.operations = operations;
+        }
+
+        private static Target of(Object target)
+        {
+            if (target instanceof MongoOperations)
+            {
+                return new Target("mongo", MongoOperations.class.getSimpleName(), true);
+            }
+            Class<?>[] interfaces = target instanceof Advised ? AopProxyUtils.proxiedUserInterfaces(target) : target.getClass().getInterfaces();
+            String name = interfaces.length == 0 ? target.getClass().getSimpleName() : interfaces[0].getSimpleName();
+            return new Target(target instanceof JpaRepository ? "mysql" : "mongo", name, false);
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package ecommerce.tutorial.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import ecommerce.tutorial.paging.NdjsonWriter;
+
+//Counts the database work of every request, the lazy loads of the serialization included, and reports it in the response
+//headers and in the catalog.request.queries and catalog.request.documents summaries. A request over the budget is logged,
+//or, in the strict mode meant for the tests, answered with a 500 in place of its body while the response is not committed.
+//The headers are written after the body, so the body is held in the buffer of the response: the flushes of the message
+//converters are deferred, and a response larger than the buffer, or a stream of lines, goes out without them.
+@Component
+public class QueryBudgetFilter extends OncePerRequestFilter
+{
+    private static final Logger LOG = LoggerFactory.getLogger(QueryBudgetFilter.class);
+
+    public static final String STATEMENTS_HEADER = "X-Db-Statements";
+
+    public static final String COMMANDS_HEADER = "X-Db-Commands";
+
+    public static final String DOCUMENTS_HEADER = "X-Db-Documents";
+
+    private final MeterRegistry registry;
+
+    private final int maxQueries;
+
+    private final long maxDocuments;
+
+    private final boolean strict;
+
+    private final int bufferBytes;
+
+    public QueryBudgetFilter(MeterRegistry registry,
+                             @Value("${catalog.query-budget.max-queries:20}") int maxQueries,
+                             @Value("${catalog.query-budget.max-documents:2000}") long maxDocuments,
+                             @Value("${catalog.query-budget.strict:false}") boolean strict,
+                             @Value("${catalog.query-budget.response-buffer-bytes:65536}") int bufferBytes)
+    {
+        this.registry = registry;
+        this.maxQueries = maxQueries;
+        this.maxDocuments = maxDocuments;
+        this.strict = strict;
+        this.bufferBytes = bufferBytes;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain) throws ServletException, IOException
+    {
+        RequestQueries queries = RequestQueries.open();
+        response.setBufferSize(bufferBytes);
+        try
+        {
+            chain.doFilter(request, new DeferredFlushResponse(response));
+        }
+        finally
+        {
+            RequestQueries.close();
+        }
+        String overBudget = record(request, queries);
+        if (!response.isCommitted())
+        {
+            response.setIntHeader(STATEMENTS_HEADER, queries.getStatements());
+            response.setIntHeader(COMMANDS_HEADER, queries.getCommands());
+            response.setHeader(DOCUMENTS_HEADER, Long.toString(queries.getDocuments()));
+            if (overBudget != null && strict)
+            {
+                LOG.error(overBudget);
+                response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, overBudget);
+                return;
+            }
+        }
+        response.flushBuffer();
+        if (overBudget == null)
+        {
+            return;
+        }
+        //A stream, or a body larger than the buffer, has gone out with its status already.
+        if (strict)
+        {
+            LOG.error("{}, after the response was committed", overBudget);
+        }
+        else
+        {
+            LOG.warn(overBudget);
+        }
+    }
+
+    //The message of a request over the budget, or null.
+    private String record(HttpServletRequest request, RequestQueries queries)
+    {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern == null ? "none" : pattern.toString();
+        DistributionSummary.builder("catalog.request.queries").tag("uri", uri).tag("backend", "mysql").register(registry).record(queries.getStatements());
+        DistributionSummary.builder("catalog.request.queries").tag("uri", uri).tag("backend", "mongo").register(registry).record(queries.getCommands());
+        DistributionSummary.builder("catalog.request.documents").tag("uri", uri).register(registry).record(queries.getDocuments());
+        if (queries.getQueries() <= maxQueries && queries.getDocuments() <= maxDocuments)
+        {
+            return null;
+        }
+        return request.getMethod() + " " + uri + " ran " + queries.getStatements() + " statements and " + queries.getCommands()
+                + " commands and read " + queries.getDocuments() + " documents, over the budget of " + maxQueries + " queries and "
+                + maxDocuments + " documents";
+    }
+
+    //The message converters flush the stream when they are done, which would send the headers before the filter can add its own.
+    private static class DeferredFlushResponse extends HttpServletResponseWrapper
+    {
+        private ServletOutputStream outputStream;
+
+        private DeferredFlushResponse(HttpServletResponse response)
+        {
+            super(response);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException
+        {
+            if (outputStream == null)
+            {
+                outputStream = new DeferredFlushOutputStream(super.getOutputStream(), this);
+            }
+            return outputStream;
+        }
+
+        @Override
+        public void flushBuffer() throws IOException
+        {
+            if (isStream())
+            {
+                super.flushBuffer();
+            }
+        }
+
+        private boolean isStream()
+        {
+            return getContentType() != null && getContentType().startsWith(NdjsonWriter.MEDIA_TYPE);
+        }
+    }
+
+    private static class DeferredFlushOutputStream extends ServletOutputStream
+    {
+        private final ServletOutputStream out;
+
+        private final DeferredFlushResponse response;
+
+        private DeferredFlushOutputStream(ServletOutputStream out, DeferredFlushResponse response)
+        {
+            this.out = out;
+            this.response = response;
+        }
+
+        @Override
+        public void write(int b) throws IOException
+        {
+            out.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException
+        {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException
+        {
+            if (response.isStream())
+            {
+                out.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            if (response.isStream())
+            {
+                out.close();
+            }
+        }
+
+        @Override
+        public boolean isReady()
+        {
+            return out.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener)
+        {
+            out.setWriteListener(writeListener);
+        }
+    }
+}
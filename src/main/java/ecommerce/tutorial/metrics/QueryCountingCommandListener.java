@@ -0,0 +1,45 @@
+package ecommerce.tutorial.metrics;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+
+//The synchronous driver calls the listener on the thread sending the command. The documents are the ones of the batches of
+//the cursors and the one returned by findAndModify.
+public class QueryCountingCommandListener implements CommandListener
+{
+    @Override
+    public void commandStarted(CommandStartedEvent event)
+    {
+        RequestQueries.commandSent();
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event)
+    {
+        RequestQueries.documentsReturned(documents(event.getResponse()));
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event)
+    {
+    }
+
+    private static int documents(BsonDocument response)
+    {
+        BsonValue cursor = response.get("cursor");
+        if (cursor != null && cursor.isDocument())
+        {
+            BsonValue batch = cursor.asDocument().containsKey("firstBatch")
+                    ? cursor.asDocument().get("firstBatch")
+                    : cursor.asDocument().get("nextBatch");
+            return batch != null && batch.isArray() ? batch.asArray().size() : 0;
+        }
+        BsonValue value = response.get("value");
+        return value != null && value.isDocument() ? 1 : 0;
+    }
+}
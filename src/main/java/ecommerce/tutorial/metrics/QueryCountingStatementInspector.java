@@ -0,0 +1,17 @@
+package ecommerce.tutorial.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+//Hibernate passes every statement it prepares through the inspector named by hibernate.session_factory.statement_inspector;
+//a batch of inserts is prepared once.
+public class QueryCountingStatementInspector implements StatementInspector
+{
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public String inspect(String sql)
+    {
+        RequestQueries.statementPrepared();
+        return sql;
+    }
+}
@@ -0,0 +1,73 @@
+package ecommerce.tutorial.metrics;
+
+//The database work of the request served by the current thread: the SQL statements prepared by Hibernate, the commands sent
+//to MongoDB and the documents they returned. The work of the other threads, the background jobs, is not counted.
+public class RequestQueries
+{
+    private static final ThreadLocal<RequestQueries> CURRENT = new ThreadLocal<>();
+
+    private int statements;
+
+    private int commands;
+
+    private long documents;
+
+    static RequestQueries open()
+    {
+        RequestQueries queries = new RequestQueries();
+        CURRENT.set(queries);
+        return queries;
+    }
+
+    static void close()
+    {
+        CURRENT.remove();
+    }
+
+    static void statementPrepared()
+    {
+        RequestQueries queries = CURRENT.get();
+        if (queries != null)
+        {
+            queries.statements++;
+        }
+    }
+
+    static void commandSent()
+    {
+        RequestQueries queries = CURRENT.get();
+        if (queries != null)
+        {
+            queries.commands++;
+        }
+    }
+
+    static void documentsReturned(int documents)
+    {
+        RequestQueries queries = CURRENT.get();
+        if (queries != null)
+        {
+            queries.documents += documents;
+        }
+    }
+
+    public int getStatements()
+    {
+        return statements;
+    }
+
+    public int getCommands()
+    {
+        return commands;
+    }
+
+    public long getDocuments()
+    {
+        return documents;
+    }
+
+    public int getQueries()
+    {
+        return statements + commands;
+    }
+}
@@ -0,0 +1,96 @@
+package ecommerce.tutorial.mongodb.client;
+
+import com.mongodb.event.ConnectionAddedEvent;
+import com.mongodb.event.ConnectionCheckedInEvent;
+import com.mongodb.event.ConnectionCheckedOutEvent;
+import com.mongodb.event.ConnectionPoolListenerAdapter;
+import com.mongodb.event.ConnectionPoolOpenedEvent;
+import com.mongodb.event.ConnectionPoolWaitQueueEnteredEvent;
+import com.mongodb.event.ConnectionPoolWaitQueueExitedEvent;
+import com.mongodb.event.ConnectionRemovedEvent;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+//Counts the connections of the MongoDB pools and times their checkouts. The driver calls a listener on the thread taking
+//the connection, every checkout enters and exits the wait queue, so the time between the two is the wait for a connection.
+public class ConnectionPoolMetrics extends ConnectionPoolListenerAdapter
+{
+    private final ThreadLocal<Long> waitStart = new ThreadLocal<>();
+
+    private final AtomicInteger pools = new AtomicInteger();
+
+    private final AtomicInteger connections = new AtomicInteger();
+
+    private final AtomicInteger inUse = new AtomicInteger();
+
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    private final LongAccumulator peakWaiting = new LongAccumulator(Math::max, 0);
+
+    private final LongAdder checkouts = new LongAdder();
+
+    private final LongAdder checkoutNanos = new LongAdder();
+
+    private final AtomicLong maxCheckoutNanos = new AtomicLong();
+
+    @Override
+    public void connectionPoolOpened(ConnectionPoolOpenedEvent event)
+    {
+        pools.incrementAndGet();
+    }
+
+    @Override
+    public void connectionAdded(ConnectionAddedEvent event)
+    {
+        connections.incrementAndGet();
+    }
+
+    @Override
+    public void connectionRemoved(ConnectionRemovedEvent event)
+    {
+        connections.decrementAndGet();
+    }
+
+    @Override
+    public void waitQueueEntered(ConnectionPoolWaitQueueEnteredEvent event)
+    {
+        peakWaiting.accumulate(waiting.incrementAndGet());
+        waitStart.set(System.nanoTime());
+    }
+
+    @Override
+    public void waitQueueExited(ConnectionPoolWaitQueueExitedEvent event)
+    {
+        waiting.decrementAndGet();
+        Long start = waitStart.get();
+        if (start != null)
+        {
+            waitStart.remove();
+            long nanos = System.nanoTime() - start;
+            checkouts.increment();
+            checkoutNanos.add(nanos);
+            maxCheckoutNanos.accumulateAndGet(nanos, Math::max);
+        }
+    }
+
+    @Override
+    public void connectionCheckedOut(ConnectionCheckedOutEvent event)
+    {
+        inUse.incrementAndGet();
+    }
+
+    @Override
+    public void connectionCheckedIn(ConnectionCheckedInEvent event)
+    {
+        inUse.decrementAndGet();
+    }
+
+    public ConnectionPoolStats stats()
+    {
+        return new ConnectionPoolStats(pools.get(), connections.get(), inUse.get(), waiting.get(), peakWaiting.get(),
+                checkouts.sum(), checkoutNanos.sum(), maxCheckoutNanos.get());
+    }
+}
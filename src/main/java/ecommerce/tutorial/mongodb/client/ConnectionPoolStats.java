@@ -0,0 +1,79 @@
+package ecommerce.tutorial.mongodb.client;
+
+public class ConnectionPoolStats
+{
+    private final int pools;
+
+    private final int connections;
+
+    private final int inUse;
+
+    private final int waiting;
+
+    private final long peakWaiting;
+
+    private final long checkouts;
+
+    private final long checkoutNanos;
+
+    private final long maxCheckoutNanos;
+
+    public ConnectionPoolStats(int pools, int connections, int inUse, int waiting, long peakWaiting, long checkouts, long checkoutNanos, long maxCheckoutNanos)
+    {
+        this.pools = pools;
+        this.connections = connections;
+        this.inUse = inUse;
+        this.waiting = waiting;
+        this.peakWaiting = peakWaiting;
+        this.checkouts = checkouts;
+        this.checkoutNanos = checkoutNanos;
+        this.maxCheckoutNanos = maxCheckoutNanos;
+    }
+
+    //One pool per server of the cluster.
+    public int getPools()
+    {
+        return pools;
+    }
+
+    public int getConnections()
+    {
+        return connections;
+    }
+
+    public int getInUse()
+    {
+        return inUse;
+    }
+
+    //The threads waiting for a connection right now.
+    public int getWaiting()
+    {
+        return waiting;
+    }
+
+    public long getPeakWaiting()
+    {
+        return peakWaiting;
+    }
+
+    public long getCheckouts()
+    {
+        return checkouts;
+    }
+
+    public long getCheckoutNanos()
+    {
+        return checkoutNanos;
+    }
+
+    public double getAverageCheckoutMillis()
+    {
+        return checkouts == 0 ? 0 : checkoutNanos / 1_000_000.0 / checkouts;
+    }
+
+    public double getMaxCheckoutMillis()
+    {
+        return maxCheckoutNanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,77 @@
+package ecommerce.tutorial.mongodb.client;
+
+import com.mongodb.MongoClientOptions;
+import com.mongodb.MongoCompressor;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import ecommerce.tutorial.metrics.QueryCountingCommandListener;
+
+//The options of the one MongoClient of the application. Spring Boot builds the client from spring.data.mongodb.uri with
+//these options, and the repositories and every MongoOperations user share it and its pool.
+@Configuration
+public class MongoClientConfiguration
+{
+    @Bean
+    public ConnectionPoolMetrics connectionPoolMetrics()
+    {
+        return new ConnectionPoolMetrics();
+    }
+
+    //A thread waits at most max-wait-millis for a connection, and at most max-pool-size * wait-queue-multiple threads wait at once.
+    @Bean
+    public MongoClientOptions mongoClientOptions(ConnectionPoolMetrics connectionPoolMetrics,
+                                                 @Value("${catalog.mongo-client.max-pool-size:100}") int maxPoolSize,
+                                                 @Value("${catalog.mongo-client.min-pool-size:0}") int minPoolSize,
+                                                 @Value("${catalog.mongo-client.wait-queue-multiple:5}") int waitQueueMultiple,
+                                                 @Value("${catalog.mongo-client.max-wait-millis:2000}") int maxWaitMillis,
+                                                 @Value("${catalog.mongo-client.max-connection-idle-millis:0}") int maxConnectionIdleMillis,
+                                                 @Value("${catalog.mongo-client.connect-timeout-millis:5000}") int connectTimeoutMillis,
+                                                 @Value("${catalog.mongo-client.socket-timeout-millis:0}") int socketTimeoutMillis,
+                                                 @Value("${catalog.mongo-client.server-selection-timeout-millis:5000}") int serverSelectionTimeoutMillis,
+                                                 @Value("${catalog.mongo-client.compressors:}") String compressors)
+    {
+        return MongoClientOptions.builder()
+                .connectionsPerHost(maxPoolSize)
+                .minConnectionsPerHost(minPoolSize)
+                .threadsAllowedToBlockForConnectionMultiplier(waitQueueMultiple)
+                .maxWaitTime(maxWaitMillis)
+                .maxConnectionIdleTime(maxConnectionIdleMillis)
+                .connectTimeout(connectTimeoutMillis)
+                .socketTimeout(socketTimeoutMillis)
+                .serverSelectionTimeout(serverSelectionTimeoutMillis)
+                .compressorList(compressors(compressors))
+                .addConnectionPoolListener(connectionPoolMetrics)
+                .addCommandListener(new QueryCountingCommandListener())
+                .build();
+    }
+
+    //The server uses the first one of the list it supports as well, and no compression when there is none.
+    private static List<MongoCompressor> compressors(String names)
+    {
+        List<MongoCompressor> compressors = new ArrayList<>();
+        for (String name : names.split(","))
+        {
+            switch (name.trim().toLowerCase(Locale.ROOT))
+            {
+                case "":
+                    break;
+                case "zlib":
+                    compressors.add(MongoCompressor.createZlibCompressor());
+                    break;
+                case "snappy":
+                    compressors.add(MongoCompressor.createSnappyCompressor());
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown MongoDB compressor: " + name);
+            }
+        }
+        return compressors;
+    }
+}
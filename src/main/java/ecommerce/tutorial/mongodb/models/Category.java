@@ -2,12 +2,10 @@ package ecommerce.tutorial.mongodb.models;
 
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.TypeAlias;
-import org.springframework.data.mongodb.core.mapping.DBRef;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.List;
 
 @Document(collection = "categories")
 @TypeAlias(value = "Category")
@@ -16,10 +14,13 @@ public class Category implements Serializable
     @Id
     private String id;
 
+    @Version
+    private Long version;
+
     private String name;
 
-    @DBRef(lazy = true)
-    private List<Product> productsOfCategory = new ArrayList<>();
+    //The products themselves are in the CategoryMembership documents.
+    private long productCount;
 
     public Category()
     {
@@ -40,6 +41,16 @@ public class Category implements Serializable
         this.id = id;
     }
 
+    public Long getVersion()
+    {
+        return version;
+    }
+
+    public void setVersion(Long version)
+    {
+        this.version = version;
+    }
+
     public String getName()
     {
         return name;
@@ -50,13 +61,13 @@ public class Category implements Serializable
         this.name = name;
     }
 
-    public List<Product> getProductsOfCategory()
+    public long getProductCount()
     {
-        return productsOfCategory;
+        return productCount;
     }
 
-    public void setProductsOfCategory(List<Product> productsOfCategory)
+    public void setProductCount(long productCount)
     {
-        this.productsOfCategory = productsOfCategory;
+        this.productCount = productCount;
     }
 }
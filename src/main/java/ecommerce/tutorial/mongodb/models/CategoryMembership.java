@@ -0,0 +1,65 @@
+package ecommerce.tutorial.mongodb.models;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.TypeAlias;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+//One product of one category. The products of a category are read in the order of their ids from the first index,
+//the categories of a product from the second one.
+@Document(collection = "categoryMemberships")
+@TypeAlias(value = "CategoryMembership")
+@CompoundIndexes({
+        @CompoundIndex(name = "category_product", def = "{'categoryId': 1, 'productId': 1}", unique = true),
+        @CompoundIndex(name = "product_category", def = "{'productId': 1, 'categoryId': 1}")
+})
+public class CategoryMembership
+{
+    @Id
+    private String id;
+
+    private String categoryId;
+
+    private String productId;
+
+    public CategoryMembership()
+    {
+    }
+
+    public CategoryMembership(String categoryId, String productId)
+    {
+        this.categoryId = categoryId;
+        this.productId = productId;
+    }
+
+    public String getId()
+    {
+        return id;
+    }
+
+    public void setId(String id)
+    {
+        this.id = id;
+    }
+
+    public String getCategoryId()
+    {
+        return categoryId;
+    }
+
+    public void setCategoryId(String categoryId)
+    {
+        this.categoryId = categoryId;
+    }
+
+    public String getProductId()
+    {
+        return productId;
+    }
+
+    public void setProductId(String productId)
+    {
+        this.productId = productId;
+    }
+}
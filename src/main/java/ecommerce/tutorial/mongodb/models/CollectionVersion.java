@@ -0,0 +1,40 @@
+package ecommerce.tutorial.mongodb.models;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.TypeAlias;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+//A counter bumped by every write to the collection it is named after.
+@Document(collection = "collectionVersions")
+@TypeAlias(value = "CollectionVersion")
+public class CollectionVersion
+{
+    @Id
+    private String name;
+
+    private long version;
+
+    public CollectionVersion()
+    {
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public void setName(String name)
+    {
+        this.name = name;
+    }
+
+    public long getVersion()
+    {
+        return version;
+    }
+
+    public void setVersion(long version)
+    {
+        this.version = version;
+    }
+}
@@ -0,0 +1,73 @@
+package ecommerce.tutorial.mongodb.models;
+
+//The seller as a product shows it, copied into the product so reading it costs no lookup of the sellers. The version is
+//the one of the seller it was copied from; a fan-out job replaces only the older copies.
+public class EmbeddedSeller
+{
+    private String id;
+
+    private Long version;
+
+    private String accountId;
+
+    private String name;
+
+    public EmbeddedSeller()
+    {
+    }
+
+    public EmbeddedSeller(String id, Long version, String accountId, String name)
+    {
+        this.id = id;
+        this.version = version;
+        this.accountId = accountId;
+        this.name = name;
+    }
+
+    //The name shown is the one of the profile, as the seller prints itself.
+    public static EmbeddedSeller of(Seller seller)
+    {
+        String name = seller.getProfile() == null ? null : seller.getProfile().getFirstName() + " " + seller.getProfile().getLastName();
+        return new EmbeddedSeller(seller.getId(), seller.getVersion(), seller.getAccountId(), name);
+    }
+
+    public String getId()
+    {
+        return id;
+    }
+
+    public void setId(String id)
+    {
+        this.id = id;
+    }
+
+    public Long getVersion()
+    {
+        return version;
+    }
+
+    public void setVersion(Long version)
+    {
+        this.version = version;
+    }
+
+    public String getAccountId()
+    {
+        return accountId;
+    }
+
+    public void setAccountId(String accountId)
+    {
+        this.accountId = accountId;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public void setName(String name)
+    {
+        this.name = name;
+    }
+}
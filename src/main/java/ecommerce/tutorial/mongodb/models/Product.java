@@ -2,7 +2,9 @@ package ecommerce.tutorial.mongodb.models;
 
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.TypeAlias;
-import org.springframework.data.mongodb.core.mapping.DBRef;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.ArrayList;
@@ -12,11 +14,20 @@ import java.util.Set;
 
 @Document(collection = "products")
 @TypeAlias("Product")
+@CompoundIndexes({
+        @CompoundIndex(name = "price_id", def = "{'price': 1, '_id': 1}"),
+        @CompoundIndex(name = "category_price", def = "{'fallIntoCategories._id': 1, 'price': 1}"),
+        @CompoundIndex(name = "category_id", def = "{'fallIntoCategories._id': 1, '_id': 1}"),
+        @CompoundIndex(name = "seller_id", def = "{'seller._id': 1, '_id': 1}")
+})
 public class Product
 {
     @Id
     private String id;
 
+    @Version
+    private Long version;
+
     private String name;
 
     private String description;
@@ -25,8 +36,7 @@ public class Product
 
     private List<String> image_URLs = new ArrayList<>();
 
-    @DBRef
-    private Seller seller;
+    private EmbeddedSeller seller;
 
     private Set<EmbeddedCategory> fallIntoCategories = new HashSet<>();
 
@@ -34,7 +44,7 @@ public class Product
     {
     }
 
-    public Product(String name, String description, float price, Seller seller, HashSet<EmbeddedCategory> fallIntoCategories)
+    public Product(String name, String description, float price, EmbeddedSeller seller, HashSet<EmbeddedCategory> fallIntoCategories)
     {
         this.name = name;
         this.description = description;
@@ -53,6 +63,16 @@ public class Product
         this.id = id;
     }
 
+    public Long getVersion()
+    {
+        return version;
+    }
+
+    public void setVersion(Long version)
+    {
+        this.version = version;
+    }
+
     public String getName()
     {
         return name;
@@ -93,12 +113,12 @@ public class Product
         this.image_URLs = image_URLs;
     }
 
-    public Seller getSeller()
+    public EmbeddedSeller getSeller()
     {
         return seller;
     }
 
-    public void setSeller(Seller seller)
+    public void setSeller(EmbeddedSeller seller)
     {
         this.seller = seller;
     }
@@ -0,0 +1,201 @@
+package ecommerce.tutorial.mongodb.models;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.TypeAlias;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+import ecommerce.tutorial.enums.FanOutKind;
+import ecommerce.tutorial.enums.JobStatus;
+
+//A change of a category or seller to copy into every product embedding it, in chunks. The id of the last updated product
+//is kept, so a job resumes where it stopped after a restart.
+@Document(collection = "productFanOutJobs")
+@TypeAlias(value = "ProductFanOutJob")
+@CompoundIndexes({
+        @CompoundIndex(name = "status_created", def = "{'status': 1, 'createdAt': 1}"),
+        @CompoundIndex(name = "kind_target_status", def = "{'kind': 1, 'targetId': 1, 'status': 1}")
+})
+public class ProductFanOutJob
+{
+    @Id
+    private String id;
+
+    private FanOutKind kind;
+
+    //The id of the category or seller.
+    private String targetId;
+
+    //The new value to copy, such as the new name of the category.
+    private String value;
+
+    //The copy of the seller a SellerSnapshot job writes into the products.
+    private EmbeddedSeller seller;
+
+    private JobStatus status;
+
+    private String lastProductId;
+
+    //The products still to update when the scan started from the first one.
+    private long totalProducts;
+
+    private long updatedProducts;
+
+    private int chunks;
+
+    private Date createdAt;
+
+    //Written by every chunk; a running job whose heartbeat is too old lost its worker and may be claimed again.
+    private Date heartbeatAt;
+
+    private Date finishedAt;
+
+    private String error;
+
+    public ProductFanOutJob()
+    {
+    }
+
+    public String getId()
+    {
+        return id;
+    }
+
+    public void setId(String id)
+    {
+        this.id = id;
+    }
+
+    public FanOutKind getKind()
+    {
+        return kind;
+    }
+
+    public void setKind(FanOutKind kind)
+    {
+        this.kind = kind;
+    }
+
+    public String getTargetId()
+    {
+        return targetId;
+    }
+
+    public void setTargetId(String targetId)
+    {
+        this.targetId = targetId;
+    }
+
+    public String getValue()
+    {
+        return value;
+    }
+
+    public void setValue(String value)
+    {
+        this.value = value;
+    }
+
+    public JobStatus getStatus()
+    {
+        return status;
+    }
+
+    public void setStatus(JobStatus status)
+    {
+        this.status = status;
+    }
+
+    public String getLastProductId()
+    {
+        return lastProductId;
+    }
+
+    public void setLastProductId(String lastProductId)
+    {
+        this.lastProductId = lastProductId;
+    }
+
+    public long getTotalProducts()
+    {
+        return totalProducts;
+    }
+
+    public void setTotalProducts(long totalProducts)
+    {
+        this.totalProducts = totalProducts;
+    }
+
+    public long getUpdatedProducts()
+    {
+        return updatedProducts;
+    }
+
+    public void setUpdatedProducts(long updatedProducts)
+    {
+        this.updatedProducts = updatedProducts;
+    }
+
+    public int getChunks()
+    {
+        return chunks;
+    }
+
+    public void setChunks(int chunks)
+    {
+        this.chunks = chunks;
+    }
+
+    public Date getCreatedAt()
+    {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Date createdAt)
+    {
+        this.createdAt = createdAt;
+    }
+
+    public Date getHeartbeatAt()
+    {
+        return heartbeatAt;
+    }
+
+    public void setHeartbeatAt(Date heartbeatAt)
+    {
+        this.heartbeatAt = heartbeatAt;
+    }
+
+    public Date getFinishedAt()
+    {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(Date finishedAt)
+    {
+        this.finishedAt = finishedAt;
+    }
+
+    public String getError()
+    {
+        return error;
+    }
+
+    public void setError(String error)
+    {
+        this.error = error;
+    }
+
+    public EmbeddedSeller getSeller()
+    {
+        return seller;
+    }
+
+    public void setSeller(EmbeddedSeller seller)
+    {
+        this.seller = seller;
+    }
+}
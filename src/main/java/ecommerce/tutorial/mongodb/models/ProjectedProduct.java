@@ -0,0 +1,130 @@
+package ecommerce.tutorial.mongodb.models;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.TypeAlias;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+//A product of MySQL projected from the catalog outbox, with its seller and categories embedded so it is read with one
+//lookup. MySQL stays the system of record: the document is only ever rewritten from the rows, under the MySQL id.
+@Document(collection = "projectedProducts")
+@TypeAlias("ProjectedProduct")
+public class ProjectedProduct
+{
+    @Id
+    private long id;
+
+    //The version of the row the document was projected from.
+    private long version;
+
+    private String name;
+
+    private String description;
+
+    private float price;
+
+    private List<String> image_URLs = new ArrayList<>();
+
+    private ProjectedSeller seller;
+
+    private List<EmbeddedCategory> fallIntoCategories = new ArrayList<>();
+
+    private Date projectedAt;
+
+    public ProjectedProduct()
+    {
+    }
+
+    public long getId()
+    {
+        return id;
+    }
+
+    public void setId(long id)
+    {
+        this.id = id;
+    }
+
+    public long getVersion()
+    {
+        return version;
+    }
+
+    public void setVersion(long version)
+    {
+        this.version = version;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public void setName(String name)
+    {
+        this.name = name;
+    }
+
+    public String getDescription()
+    {
+        return description;
+    }
+
+    public void setDescription(String description)
+    {
+        this.description = description;
+    }
+
+    public float getPrice()
+    {
+        return price;
+    }
+
+    public void setPrice(float price)
+    {
+        this.price = price;
+    }
+
+    public List<String> getImage_URLs()
+    {
+        return image_URLs;
+    }
+
+    public void setImage_URLs(List<String> image_URLs)
+    {
+        this.image_URLs = image_URLs;
+    }
+
+    public ProjectedSeller getSeller()
+    {
+        return seller;
+    }
+
+    public void setSeller(ProjectedSeller seller)
+    {
+        this.seller = seller;
+    }
+
+    public List<EmbeddedCategory> getFallIntoCategories()
+    {
+        return fallIntoCategories;
+    }
+
+    public void setFallIntoCategories(List<EmbeddedCategory> fallIntoCategories)
+    {
+        this.fallIntoCategories = fallIntoCategories;
+    }
+
+    public Date getProjectedAt()
+    {
+        return projectedAt;
+    }
+
+    public void setProjectedAt(Date projectedAt)
+    {
+        this.projectedAt = projectedAt;
+    }
+}
@@ -0,0 +1,65 @@
+package ecommerce.tutorial.mongodb.models;
+
+//The seller of a projected product, as much of it as a product listing shows.
+public class ProjectedSeller
+{
+    private long id;
+
+    private String accountId;
+
+    private String firstName;
+
+    private String lastName;
+
+    public ProjectedSeller()
+    {
+    }
+
+    public ProjectedSeller(long id, String accountId, String firstName, String lastName)
+    {
+        this.id = id;
+        this.accountId = accountId;
+        this.firstName = firstName;
+        this.lastName = lastName;
+    }
+
+    public long getId()
+    {
+        return id;
+    }
+
+    public void setId(long id)
+    {
+        this.id = id;
+    }
+
+    public String getAccountId()
+    {
+        return accountId;
+    }
+
+    public void setAccountId(String accountId)
+    {
+        this.accountId = accountId;
+    }
+
+    public String getFirstName()
+    {
+        return firstName;
+    }
+
+    public void setFirstName(String firstName)
+    {
+        this.firstName = firstName;
+    }
+
+    public String getLastName()
+    {
+        return lastName;
+    }
+
+    public void setLastName(String lastName)
+    {
+        this.lastName = lastName;
+    }
+}
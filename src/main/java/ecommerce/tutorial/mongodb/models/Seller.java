@@ -2,6 +2,7 @@ package ecommerce.tutorial.mongodb.models;
 
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.TypeAlias;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
@@ -12,6 +13,9 @@ public class Seller
     @Id
     private String id;
 
+    @Version
+    private Long version;
+
     @Indexed(unique = true)
     private String accountId;
 
@@ -37,6 +41,16 @@ public class Seller
         this.id = id;
     }
 
+    public Long getVersion()
+    {
+        return version;
+    }
+
+    public void setVersion(Long version)
+    {
+        this.version = version;
+    }
+
     public String getAccountId()
     {
         return accountId;
@@ -0,0 +1,19 @@
+package ecommerce.tutorial.mongodb.repositories;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.List;
+
+import ecommerce.tutorial.mongodb.models.CategoryMembership;
+
+public interface CategoryMembershipRepository extends MongoRepository<CategoryMembership, String>
+{
+    List<CategoryMembership> findByCategoryIdOrderByProductIdAsc(String categoryId, Pageable pageable);
+
+    List<CategoryMembership> findByCategoryIdAndProductIdGreaterThanOrderByProductIdAsc(String categoryId, String productId, Pageable pageable);
+
+    List<CategoryMembership> findByProductId(String productId);
+
+    long countByCategoryId(String categoryId);
+}
@@ -1,10 +1,17 @@
 package ecommerce.tutorial.mongodb.repositories;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
+import java.util.List;
+
 import ecommerce.tutorial.mongodb.models.Category;
 
 public interface CategoryRepository extends MongoRepository<Category, String>
 {
     Category findByName(String categoryName);
+
+    List<Category> findAllByOrderByIdAsc(Pageable pageable);
+
+    List<Category> findByIdGreaterThanOrderByIdAsc(String id, Pageable pageable);
 }
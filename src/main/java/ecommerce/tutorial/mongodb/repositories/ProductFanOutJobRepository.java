@@ -0,0 +1,15 @@
+package ecommerce.tutorial.mongodb.repositories;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.List;
+
+import ecommerce.tutorial.enums.JobStatus;
+import ecommerce.tutorial.mongodb.models.ProductFanOutJob;
+
+public interface ProductFanOutJobRepository extends MongoRepository<ProductFanOutJob, String>
+{
+    List<ProductFanOutJob> findTop100ByOrderByCreatedAtDesc();
+
+    List<ProductFanOutJob> findTop100ByStatusOrderByCreatedAtAsc(JobStatus status);
+}
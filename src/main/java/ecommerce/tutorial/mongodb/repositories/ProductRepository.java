@@ -1,7 +1,10 @@
 package ecommerce.tutorial.mongodb.repositories;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 
+import java.util.List;
 import java.util.Optional;
 
 import ecommerce.tutorial.mongodb.models.Product;
@@ -13,4 +16,20 @@ public interface ProductRepository extends MongoRepository<Product, String>
 
     @Override
     Optional<Product> findById(String id);
+
+    List<Product> findAllByOrderByIdAsc(Pageable pageable);
+
+    List<Product> findByIdGreaterThanOrderByIdAsc(String id, Pageable pageable);
+
+    @Query(value = "{'price': {$gte: ?0, $lte: ?1}}", fields = "{'name': 1, 'price': 1}")
+    List<Product> findByPriceRange(float min, float max, Pageable pageable);
+
+    @Query(value = "{'price': {$gte: ?0, $lte: ?1}}", count = true)
+    long countByPriceRange(float min, float max);
+
+    @Query(value = "{'fallIntoCategories._id': ?2, 'price': {$gte: ?0, $lte: ?1}}", fields = "{'name': 1, 'price': 1}")
+    List<Product> findByPriceRangeInCategory(float min, float max, String categoryId, Pageable pageable);
+
+    @Query(value = "{'fallIntoCategories._id': ?2, 'price': {$gte: ?0, $lte: ?1}}", count = true)
+    long countByPriceRangeInCategory(float min, float max, String categoryId);
 }
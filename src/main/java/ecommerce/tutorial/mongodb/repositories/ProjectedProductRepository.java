@@ -0,0 +1,13 @@
+package ecommerce.tutorial.mongodb.repositories;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.List;
+
+import ecommerce.tutorial.mongodb.models.ProjectedProduct;
+
+public interface ProjectedProductRepository extends MongoRepository<ProjectedProduct, Long>
+{
+    List<ProjectedProduct> findByIdGreaterThanOrderByIdAsc(long id, Pageable pageable);
+}
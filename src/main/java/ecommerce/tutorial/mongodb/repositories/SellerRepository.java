@@ -1,5 +1,6 @@
 package ecommerce.tutorial.mongodb.repositories;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 
@@ -15,4 +16,8 @@ public interface SellerRepository extends MongoRepository<Seller, String>
 
     @Override
     Optional<Seller> findById(String s);
+
+    List<Seller> findAllByOrderByIdAsc(Pageable pageable);
+
+    List<Seller> findByIdGreaterThanOrderByIdAsc(String id, Pageable pageable);
 }
@@ -0,0 +1,31 @@
+package ecommerce.tutorial.outbox;
+
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+//What a MySQL write changes in memory, the caches and the search index, is changed once the write is committed: before
+//the commit a concurrent reader could load the old row back into a cache, and a rolled back write would stay in the index.
+//Outside of a transaction the action runs at once.
+public final class AfterCommit
+{
+    private AfterCommit()
+    {
+    }
+
+    public static void run(Runnable action)
+    {
+        if (!TransactionSynchronizationManager.isSynchronizationActive())
+        {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter()
+        {
+            @Override
+            public void afterCommit()
+            {
+                action.run();
+            }
+        });
+    }
+}
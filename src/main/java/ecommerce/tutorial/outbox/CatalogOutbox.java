@@ -0,0 +1,123 @@
+package ecommerce.tutorial.outbox;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import ecommerce.tutorial.enums.OutboxAggregate;
+import ecommerce.tutorial.jpa.entities.OutboxEventEntity;
+import ecommerce.tutorial.jpa.repositories.OutboxEventJpaRepository;
+import ecommerce.tutorial.jpa.repositories.ProductJpaRepository;
+
+//The writes of the MySQL catalog record what they changed here, in their own transaction, so a change and its event are
+//committed or rolled back together and the projection can never miss one.
+@Component
+public class CatalogOutbox
+{
+    private static final int CHUNK_SIZE = 1000;
+
+    @Autowired
+    private OutboxEventJpaRepository _outboxEventJpaRepository;
+    @Autowired
+    private ProductJpaRepository _productJpaRepository;
+    @Autowired
+    private PlatformTransactionManager _transactionManager;
+
+    @PersistenceContext
+    private EntityManager _entityManager;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void changed(OutboxAggregate aggregate, long id)
+    {
+        changed(aggregate, Collections.singletonList(id));
+    }
+
+    //The events are inserted with the JDBC batches of the transaction.
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void changed(OutboxAggregate aggregate, Collection<Long> ids)
+    {
+        Date now = new Date();
+        for (Long id : ids)
+        {
+            _entityManager.persist(new OutboxEventEntity(aggregate, id, now));
+        }
+    }
+
+    //Leases the oldest pending events no other node holds, so each batch is projected by one node. A batch not marked as
+    //processed when its lease runs out is claimed again. Events another node claimed first are passed over for the next ones;
+    //each attempt is a transaction of its own, as a repeatable read would keep showing them as pending.
+    public List<OutboxEventEntity> claim(int limit, long leaseMillis)
+    {
+        String claim = UUID.randomUUID().toString();
+        TransactionTemplate transaction = new TransactionTemplate(_transactionManager);
+        List<OutboxEventEntity> events = null;
+        while (events == null)
+        {
+            events = transaction.execute(status ->
+            {
+                Date now = new Date();
+                List<Long> ids = _outboxEventJpaRepository.findClaimableIds(now, PageRequest.of(0, limit));
+                if (ids.isEmpty())
+                {
+                    return Collections.<OutboxEventEntity>emptyList();
+                }
+                if (_outboxEventJpaRepository.claim(ids, claim, now, new Date(now.getTime() + leaseMillis)) == 0)
+                {
+                    return null;
+                }
+                return _outboxEventJpaRepository.findByIdInAndClaimedByOrderByIdAsc(ids, claim);
+            });
+        }
+        return events;
+    }
+
+    @Transactional
+    public void processed(Collection<Long> eventIds, Date processedAt)
+    {
+        _outboxEventJpaRepository.markProcessed(eventIds, processedAt);
+    }
+
+    //----------Replay---------------------------
+    //The events kept since the given time are projected again.
+    @Transactional
+    public int replaySince(Date since)
+    {
+        return _outboxEventJpaRepository.markPending(since);
+    }
+
+    //One event for every product, for a read model that is empty or was lost.
+    @Transactional
+    public long rebuild()
+    {
+        long count = 0;
+        List<Long> ids = _productJpaRepository.findIdsAfter(0, PageRequest.of(0, CHUNK_SIZE));
+        while (!ids.isEmpty())
+        {
+            changed(OutboxAggregate.Product, ids);
+            _entityManager.flush();
+            _entityManager.clear();
+            count += ids.size();
+            ids = _productJpaRepository.findIdsAfter(ids.get(ids.size() - 1), PageRequest.of(0, CHUNK_SIZE));
+        }
+        return count;
+    }
+
+    @Transactional
+    public int purgeProcessedBefore(Date before)
+    {
+        return _outboxEventJpaRepository.deleteProcessedBefore(before);
+    }
+}
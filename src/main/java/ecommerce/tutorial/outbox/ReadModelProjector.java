@@ -0,0 +1,289 @@
+package ecommerce.tutorial.outbox;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+import ecommerce.tutorial.jpa.entities.OutboxEventEntity;
+import ecommerce.tutorial.jpa.projections.CategoryView;
+import ecommerce.tutorial.jpa.projections.ProductView;
+import ecommerce.tutorial.jpa.projections.ProductViewReader;
+import ecommerce.tutorial.jpa.projections.SellerView;
+import ecommerce.tutorial.jpa.repositories.OutboxEventJpaRepository;
+import ecommerce.tutorial.jpa.repositories.ProductJpaRepository;
+import ecommerce.tutorial.mongodb.models.EmbeddedCategory;
+import ecommerce.tutorial.mongodb.models.ProjectedProduct;
+import ecommerce.tutorial.mongodb.models.ProjectedSeller;
+
+//Tails the catalog outbox and rewrites the projected products of MongoDB from the current MySQL rows, a batch of events at
+//a time. A change of a seller or category is projected into each of its products. The products of a batch are read with the
+//few queries of ProductViewReader and written with one bulk write; a product gone from MySQL is removed from the read model.
+//The events are marked as processed only after their documents are written, so a crash projects them again, which is harmless.
+//Each node claims the batch it projects for a lease, so the nodes share the outbox instead of all projecting the same events.
+//The lag is published as gauges of the meter registry as well as on /stats/read-model.
+@Component
+public class ReadModelProjector implements MeterBinder
+{
+    private static final Logger LOG = LoggerFactory.getLogger(ReadModelProjector.class);
+
+    private static final int DUPLICATE_KEY = 11000;
+
+    @Autowired
+    private OutboxEventJpaRepository _outboxEventJpaRepository;
+    @Autowired
+    private ProductJpaRepository _productJpaRepository;
+    @Autowired
+    private ProductViewReader _productViewReader;
+    @Autowired
+    private CatalogOutbox _catalogOutbox;
+    @Autowired
+    private MongoOperations _mongoOperations;
+
+    private final int batchSize;
+
+    private final long leaseMillis;
+
+    private final long retentionMillis;
+
+    private final LongAdder processedEvents = new LongAdder();
+
+    private final LongAdder projectedProducts = new LongAdder();
+
+    private final LongAdder removedProducts = new LongAdder();
+
+    private final LongAdder batches = new LongAdder();
+
+    private final LongAdder batchNanos = new LongAdder();
+
+    private final AtomicLong lastLagMillis = new AtomicLong();
+
+    private final AtomicLong maxLagMillis = new AtomicLong();
+
+    public ReadModelProjector(@Value("${catalog.read-model.batch-size:500}") int batchSize,
+                              @Value("${catalog.read-model.lease-millis:60000}") long leaseMillis,
+                              @Value("${catalog.read-model.retention-hours:168}") long retentionHours)
+    {
+        this.batchSize = batchSize;
+        this.leaseMillis = leaseMillis;
+        this.retentionMillis = TimeUnit.HOURS.toMillis(retentionHours);
+    }
+
+    @Scheduled(fixedDelayString = "${catalog.read-model.poll-millis:500}")
+    public void project()
+    {
+        while (projectBatch() == batchSize)
+        {
+            //a full batch, there may be more waiting
+        }
+    }
+
+    //The processed events are kept for the retention period, so they can be replayed.
+    @Scheduled(fixedDelayString = "${catalog.read-model.purge-millis:3600000}")
+    public void purge()
+    {
+        int purged = _catalogOutbox.purgeProcessedBefore(new Date(System.currentTimeMillis() - retentionMillis));
+        if (purged > 0)
+        {
+            LOG.info("{} processed events purged from the catalog outbox.", purged);
+        }
+    }
+
+    public ReadModelStats stats()
+    {
+        return new ReadModelStats(_outboxEventJpaRepository.countByProcessedAtIsNull(), oldestPendingMillis(),
+                processedEvents.sum(), projectedProducts.sum(), removedProducts.sum(),
+                batches.sum(), batchNanos.sum(), lastLagMillis.get(), maxLagMillis.get());
+    }
+
+    //The pending gauges are read from MySQL when the registry is scraped, so they show a stalled projector too.
+    @Override
+    public void bindTo(MeterRegistry registry)
+    {
+        TimeGauge.builder("catalog.read.model.lag", lastLagMillis, TimeUnit.MILLISECONDS, AtomicLong::get)
+                .description("Time from the oldest event of the last projected batch to its projection")
+                .register(registry);
+        TimeGauge.builder("catalog.read.model.oldest.pending", this, TimeUnit.MILLISECONDS, ReadModelProjector::oldestPendingMillis)
+                .description("Age of the oldest event of the catalog outbox not projected yet")
+                .register(registry);
+        Gauge.builder("catalog.read.model.pending", _outboxEventJpaRepository, OutboxEventJpaRepository::countByProcessedAtIsNull)
+                .description("Events of the catalog outbox not projected yet")
+                .register(registry);
+    }
+
+    private long oldestPendingMillis()
+    {
+        Date oldestPending = _outboxEventJpaRepository.findOldestPendingCreatedAt();
+        return oldestPending == null ? 0 : System.currentTimeMillis() - oldestPending.getTime();
+    }
+
+    //The size of the claimed batch, which is smaller than a full one when other nodes hold some of the pending events.
+    private int projectBatch()
+    {
+        List<OutboxEventEntity> events = _catalogOutbox.claim(batchSize, leaseMillis);
+        if (events.isEmpty())
+        {
+            return 0;
+        }
+        long start = System.nanoTime();
+        Set<Long> productIds = new LinkedHashSet<>();
+        Set<Long> sellerIds = new HashSet<>();
+        Set<Long> categoryIds = new HashSet<>();
+        for (OutboxEventEntity event : events)
+        {
+            switch (event.getAggregate())
+            {
+                case Product:
+                    productIds.add(event.getAggregateId());
+                    break;
+                case Seller:
+                    sellerIds.add(event.getAggregateId());
+                    break;
+                case Category:
+                    categoryIds.add(event.getAggregateId());
+                    break;
+            }
+        }
+        if (!sellerIds.isEmpty())
+        {
+            productIds.addAll(_productJpaRepository.findIdsBySellerIdIn(sellerIds));
+        }
+        if (!categoryIds.isEmpty())
+        {
+            productIds.addAll(_productJpaRepository.findIdsByCategoryIdIn(categoryIds));
+        }
+        List<Long> ids = new ArrayList<>(productIds);
+        for (int from = 0; from < ids.size(); from += batchSize)
+        {
+            write(ids.subList(from, Math.min(from + batchSize, ids.size())));
+        }
+        Date now = new Date();
+        _catalogOutbox.processed(events.stream().map(OutboxEventEntity::getId).collect(Collectors.toList()), now);
+
+        long lag = now.getTime() - events.stream().mapToLong(event -> event.getCreatedAt().getTime()).min().getAsLong();
+        lastLagMillis.set(lag);
+        maxLagMillis.accumulateAndGet(lag, Math::max);
+        processedEvents.add(events.size());
+        batches.increment();
+        batchNanos.add(System.nanoTime() - start);
+        return events.size();
+    }
+
+    private void write(List<Long> ids)
+    {
+        List<ProductView> products = _productViewReader.findByIds(ids);
+        Date now = new Date();
+        BulkOperations writes = _mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, ProjectedProduct.class);
+        Set<Long> found = new HashSet<>(products.size() * 2);
+        for (ProductView product : products)
+        {
+            found.add(product.getId());
+            upsert(writes, product, now);
+        }
+        List<Long> removed = ids.stream().filter(id -> !found.contains(id)).collect(Collectors.toList());
+        if (!removed.isEmpty())
+        {
+            writes.remove(new Query(Criteria.where("_id").in(removed)));
+        }
+        List<ProductView> conflicting = execute(writes, products);
+        if (!conflicting.isEmpty())
+        {
+            //Another node may have inserted the same new document first, from an older row as well as from a newer one:
+            //written again, an older document is matched and updated, and only a newer one conflicts once more.
+            BulkOperations retries = _mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, ProjectedProduct.class);
+            for (ProductView product : conflicting)
+            {
+                upsert(retries, product, now);
+            }
+            conflicting = execute(retries, conflicting);
+            LOG.debug("{} products of the read model already projected from newer rows.", conflicting.size());
+        }
+        projectedProducts.add(products.size() - conflicting.size());
+        removedProducts.add(removed.size());
+    }
+
+    //Only a document of the same or an older version is matched, so a node that read the row before another one wrote it
+    //cannot set it back: the upsert then tries to insert the same _id, and the newer document is kept.
+    private void upsert(BulkOperations writes, ProductView product, Date now)
+    {
+        writes.upsert(new Query(Criteria.where("_id").is(product.getId()).and("version").lte(product.getVersion())), update(product, now));
+    }
+
+    //The products whose upserts, the first operations of the bulk write, met a document of the same _id it did not match.
+    //Any other failure is thrown.
+    private List<ProductView> execute(BulkOperations writes, List<ProductView> products)
+    {
+        try
+        {
+            writes.execute();
+            return Collections.emptyList();
+        }
+        catch (MongoBulkWriteException e)
+        {
+            List<ProductView> conflicting = new ArrayList<>();
+            for (BulkWriteError error : e.getWriteErrors())
+            {
+                if (error.getCode() != DUPLICATE_KEY || error.getIndex() >= products.size())
+                {
+                    throw e;
+                }
+                conflicting.add(products.get(error.getIndex()));
+            }
+            if (e.getWriteConcernError() != null)
+            {
+                throw e;
+            }
+            return conflicting;
+        }
+    }
+
+    //Every field is set, so the document holds the row as it is now whether it existed before or not.
+    private Update update(ProductView product, Date now)
+    {
+        SellerView seller = product.getSeller();
+        ProjectedSeller projectedSeller = seller == null ? null : new ProjectedSeller(seller.getId(), seller.getAccountId(),
+                seller.getProfile() == null ? null : seller.getProfile().getFirstName(),
+                seller.getProfile() == null ? null : seller.getProfile().getLastName());
+        List<EmbeddedCategory> categories = new ArrayList<>(product.getFallIntoCategories().size());
+        for (CategoryView category : product.getFallIntoCategories())
+        {
+            categories.add(new EmbeddedCategory(String.valueOf(category.getId()), category.getName()));
+        }
+        return new Update()
+                .set("version", product.getVersion())
+                .set("name", product.getName())
+                .set("description", product.getDescription())
+                .set("price", product.getPrice())
+                .set("image_URLs", product.getImages())
+                .set("seller", projectedSeller)
+                .set("fallIntoCategories", categories)
+                .set("projectedAt", now);
+    }
+}
@@ -0,0 +1,83 @@
+package ecommerce.tutorial.outbox;
+
+public class ReadModelStats
+{
+    private final long pendingEvents;
+
+    private final long oldestPendingMillis;
+
+    private final long processedEvents;
+
+    private final long projectedProducts;
+
+    private final long removedProducts;
+
+    private final long batches;
+
+    private final long batchNanos;
+
+    private final long lastLagMillis;
+
+    private final long maxLagMillis;
+
+    public ReadModelStats(long pendingEvents, long oldestPendingMillis, long processedEvents, long projectedProducts, long removedProducts,
+                          long batches, long batchNanos, long lastLagMillis, long maxLagMillis)
+    {
+        this.pendingEvents = pendingEvents;
+        this.oldestPendingMillis = oldestPendingMillis;
+        this.processedEvents = processedEvents;
+        this.projectedProducts = projectedProducts;
+        this.removedProducts = removedProducts;
+        this.batches = batches;
+        this.batchNanos = batchNanos;
+        this.lastLagMillis = lastLagMillis;
+        this.maxLagMillis = maxLagMillis;
+    }
+
+    public long getPendingEvents()
+    {
+        return pendingEvents;
+    }
+
+    //How long the oldest event not yet projected has been waiting, 0 when there is none.
+    public long getOldestPendingMillis()
+    {
+        return oldestPendingMillis;
+    }
+
+    public long getProcessedEvents()
+    {
+        return processedEvents;
+    }
+
+    public long getProjectedProducts()
+    {
+        return projectedProducts;
+    }
+
+    public long getRemovedProducts()
+    {
+        return removedProducts;
+    }
+
+    public long getBatches()
+    {
+        return batches;
+    }
+
+    public double getAverageBatchMillis()
+    {
+        return batches == 0 ? 0 : batchNanos / 1_000_000.0 / batches;
+    }
+
+    //From the commit of the oldest event of the last batch to its document being written; a replayed event counts from its first commit.
+    public long getLastLagMillis()
+    {
+        return lastLagMillis;
+    }
+
+    public long getMaxLagMillis()
+    {
+        return maxLagMillis;
+    }
+}
@@ -0,0 +1,58 @@
+package ecommerce.tutorial.paging;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+//The position after the last row of a page for an order other than the id: the sort, the sort key and the id of that row.
+//It is handed out encoded, so clients pass it back as it is instead of building it.
+public final class KeysetCursor
+{
+    private static final char SEPARATOR = ':';
+
+    private final String sort;
+
+    private final String key;
+
+    private final long id;
+
+    public KeysetCursor(String sort, String key, long id)
+    {
+        this.sort = sort;
+        this.key = key;
+        this.id = id;
+    }
+
+    //The key may hold the separator, the sort and the id cannot, so they are split at the first and the last one.
+    public static KeysetCursor decode(String cursor)
+    {
+        String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        int first = decoded.indexOf(SEPARATOR);
+        int last = decoded.lastIndexOf(SEPARATOR);
+        if (first < 0 || first == last)
+        {
+            throw new IllegalArgumentException("Malformed cursor: " + cursor);
+        }
+        return new KeysetCursor(decoded.substring(0, first), decoded.substring(first + 1, last), Long.parseLong(decoded.substring(last + 1)));
+    }
+
+    public String encode()
+    {
+        String decoded = sort + SEPARATOR + key + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(decoded.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public String getSort()
+    {
+        return sort;
+    }
+
+    public String getKey()
+    {
+        return key;
+    }
+
+    public long getId()
+    {
+        return id;
+    }
+}
@@ -0,0 +1,82 @@
+package ecommerce.tutorial.paging;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+import java.util.function.Function;
+
+import ecommerce.tutorial.search.FacetCount;
+
+public class KeysetPage<T>
+{
+    public static final int DEFAULT_SIZE = 50;
+
+    public static final int MAX_SIZE = 500;
+
+    private List<T> items;
+
+    private String nextCursor;
+
+    //Counts of the whole catalog per category, only when asked for.
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<FacetCount> facets;
+
+    public KeysetPage()
+    {
+    }
+
+    public KeysetPage(List<T> items, String nextCursor)
+    {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    //The cursor of the next page is the key of the last row, as long as the page came back full.
+    public static <T> KeysetPage<T> of(List<T> items, int size, Function<T, ?> keyOf)
+    {
+        if (items.size() < size)
+        {
+            return new KeysetPage<>(items, null);
+        }
+        return new KeysetPage<>(items, String.valueOf(keyOf.apply(items.get(items.size() - 1))));
+    }
+
+    public static int limit(Integer size)
+    {
+        if (size == null || size < 1)
+        {
+            return DEFAULT_SIZE;
+        }
+        return Math.min(size, MAX_SIZE);
+    }
+
+    public List<T> getItems()
+    {
+        return items;
+    }
+
+    public void setItems(List<T> items)
+    {
+        this.items = items;
+    }
+
+    public String getNextCursor()
+    {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor)
+    {
+        this.nextCursor = nextCursor;
+    }
+
+    public List<FacetCount> getFacets()
+    {
+        return facets;
+    }
+
+    public void setFacets(List<FacetCount> facets)
+    {
+        this.facets = facets;
+    }
+}
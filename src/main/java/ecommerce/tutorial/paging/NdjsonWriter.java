@@ -0,0 +1,56 @@
+package ecommerce.tutorial.paging;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import javax.servlet.http.HttpServletResponse;
+
+//Writes one JSON document per line straight to the response, so nothing but the current row is held in memory.
+public class NdjsonWriter implements Closeable
+{
+    public static final String MEDIA_TYPE = "application/x-ndjson";
+
+    private static final int FLUSH_EVERY = 100;
+
+    private final OutputStream out;
+
+    private final SequenceWriter writer;
+
+    private int pending;
+
+    private boolean empty = true;
+
+    public NdjsonWriter(ObjectMapper mapper, HttpServletResponse response) throws IOException
+    {
+        response.setContentType(MEDIA_TYPE);
+        response.setCharacterEncoding("UTF-8");
+        this.out = response.getOutputStream();
+        this.writer = mapper.writer().withRootValueSeparator("\n").writeValues(out);
+    }
+
+    public void write(Object value) throws IOException
+    {
+        writer.write(value);
+        empty = false;
+        if (++pending == FLUSH_EVERY)
+        {
+            writer.flush();
+            pending = 0;
+        }
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        writer.flush();
+        if (!empty)
+        {
+            out.write('\n');
+        }
+        writer.close();
+    }
+}
@@ -0,0 +1,65 @@
+package ecommerce.tutorial.reactive;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import java.util.Optional;
+
+import ecommerce.tutorial.mongodb.models.Category;
+import ecommerce.tutorial.paging.KeysetPage;
+import ecommerce.tutorial.reactive.repositories.ReactiveCategoryRepository;
+
+public class CategoryHandler
+{
+    private final ReactiveCategoryRepository categoryRepository;
+
+    public CategoryHandler(ReactiveCategoryRepository categoryRepository)
+    {
+        this.categoryRepository = categoryRepository;
+    }
+
+    public Mono<ServerResponse> getCategory(ServerRequest request)
+    {
+        Optional<String> name = request.queryParam("name");
+        if (!name.isPresent())
+        {
+            return ServerResponse.badRequest().build();
+        }
+        return categoryRepository.findByName(name.get())
+                .flatMap(category -> ServerResponse.ok().syncBody(category))
+                .switchIfEmpty(ServerResponse.notFound().build());
+    }
+
+    public Mono<ServerResponse> getAllCategories(ServerRequest request)
+    {
+        return ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).body(categoryRepository.findAll(), Category.class);
+    }
+
+    public Mono<ServerResponse> getCategorySummary(ServerRequest request)
+    {
+        Flux<Category> categories = categoryRepository.findAll(Sort.by(Sort.Direction.DESC, "productCount"));
+        return ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).body(categories, Category.class);
+    }
+
+    public Mono<ServerResponse> getCategoryPage(ServerRequest request)
+    {
+        int limit = KeysetPage.limit(RequestParams.integer(request, "size"));
+        Optional<String> after = request.queryParam("after");
+        Flux<Category> categories = after.isPresent()
+                ? categoryRepository.findByIdGreaterThanOrderByIdAsc(after.get(), PageRequest.of(0, limit))
+                : categoryRepository.findAllByOrderByIdAsc(PageRequest.of(0, limit));
+        return categories.collectList().flatMap(page -> ServerResponse.ok().syncBody(KeysetPage.of(page, limit, Category::getId)));
+    }
+
+    public Mono<ServerResponse> streamAllCategories(ServerRequest request)
+    {
+        Flux<Category> categories = categoryRepository.findAll(Sort.by(Sort.Direction.ASC, "_id"));
+        return ServerResponse.ok().contentType(MediaType.APPLICATION_STREAM_JSON).body(categories, Category.class);
+    }
+}
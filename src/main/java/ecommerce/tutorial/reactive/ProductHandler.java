@@ -0,0 +1,92 @@
+package ecommerce.tutorial.reactive;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import java.util.Optional;
+
+import ecommerce.tutorial.enums.Backend;
+import ecommerce.tutorial.mongodb.models.Product;
+import ecommerce.tutorial.paging.KeysetPage;
+import ecommerce.tutorial.reactive.repositories.ReactiveProductRepository;
+import ecommerce.tutorial.search.PriceRangeResult;
+import ecommerce.tutorial.search.ProductSummary;
+
+public class ProductHandler
+{
+    private final ReactiveMongoOperations operations;
+
+    private final ReactiveProductRepository productRepository;
+
+    public ProductHandler(ReactiveMongoOperations operations, ReactiveProductRepository productRepository)
+    {
+        this.operations = operations;
+        this.productRepository = productRepository;
+    }
+
+    public Mono<ServerResponse> getProduct(ServerRequest request)
+    {
+        Optional<String> name = request.queryParam("name");
+        if (!name.isPresent())
+        {
+            return ServerResponse.badRequest().build();
+        }
+        return operations.find(new Query(Criteria.where("name").is(name.get())).limit(1), Product.class)
+                .next()
+                .flatMap(product -> ServerResponse.ok().syncBody(product))
+                .switchIfEmpty(ServerResponse.notFound().build());
+    }
+
+    //A JSON array written as the products arrive from the database.
+    public Mono<ServerResponse> getAllProducts(ServerRequest request)
+    {
+        return ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).body(operations.find(new Query(), Product.class), Product.class);
+    }
+
+    public Mono<ServerResponse> getProductPage(ServerRequest request)
+    {
+        int limit = KeysetPage.limit(RequestParams.integer(request, "size"));
+        Query query = new Query().with(Sort.by(Sort.Direction.ASC, "_id")).limit(limit);
+        request.queryParam("after").ifPresent(after -> query.addCriteria(Criteria.where("_id").gt(after)));
+        return operations.find(query, Product.class)
+                .collectList()
+                .flatMap(products -> ServerResponse.ok().syncBody(KeysetPage.of(products, limit, Product::getId)));
+    }
+
+    //One product per line; the next products are read only as fast as the client takes them.
+    public Mono<ServerResponse> streamAllProducts(ServerRequest request)
+    {
+        Query query = new Query().with(Sort.by(Sort.Direction.ASC, "_id"));
+        return ServerResponse.ok().contentType(MediaType.APPLICATION_STREAM_JSON).body(operations.find(query, Product.class), Product.class);
+    }
+
+    public Mono<ServerResponse> getProductsInPriceRange(ServerRequest request)
+    {
+        Float min = RequestParams.decimal(request, "min");
+        Float max = RequestParams.decimal(request, "max");
+        Sort.Direction direction = Sort.Direction.fromOptionalString(request.queryParam("order").orElse("asc")).orElse(null);
+        if (min == null || max == null || direction == null || min > max)
+        {
+            return ServerResponse.badRequest().syncBody("The price range or the order is not valid!");
+        }
+        PageRequest page = PageRequest.of(0, KeysetPage.limit(RequestParams.integer(request, "size")), Sort.by(direction, "price", "id"));
+        Optional<String> categoryId = request.queryParam("category");
+        Flux<Product> products = categoryId.isPresent()
+                ? productRepository.findByPriceRangeInCategory(min, max, categoryId.get(), page)
+                : productRepository.findByPriceRange(min, max, page);
+        Mono<Long> total = categoryId.isPresent()
+                ? productRepository.countByPriceRangeInCategory(min, max, categoryId.get())
+                : productRepository.countByPriceRange(min, max);
+        return Mono.zip(total, products.map(product -> new ProductSummary(Backend.MongoDB, product.getId(), product.getName(), product.getPrice())).collectList())
+                .flatMap(result -> ServerResponse.ok().syncBody(new PriceRangeResult(result.getT1(), result.getT2())));
+    }
+}
@@ -0,0 +1,72 @@
+package ecommerce.tutorial.reactive;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.boot.web.server.WebServer;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.server.reactive.HttpHandler;
+
+//The Netty server of the reactive endpoints, started and stopped with the application context.
+public class ReactiveServer implements SmartLifecycle
+{
+    private static final Logger LOG = LoggerFactory.getLogger(ReactiveServer.class);
+
+    private final HttpHandler httpHandler;
+
+    private final int port;
+
+    private WebServer webServer;
+
+    public ReactiveServer(HttpHandler httpHandler, int port)
+    {
+        this.httpHandler = httpHandler;
+        this.port = port;
+    }
+
+    @Override
+    public synchronized void start()
+    {
+        if (webServer == null)
+        {
+            webServer = new NettyReactiveWebServerFactory(port).getWebServer(httpHandler);
+            webServer.start();
+            LOG.info("The reactive endpoints of MongoDB are served on port {}.", webServer.getPort());
+        }
+    }
+
+    @Override
+    public synchronized void stop()
+    {
+        if (webServer != null)
+        {
+            webServer.stop();
+            webServer = null;
+        }
+    }
+
+    @Override
+    public synchronized boolean isRunning()
+    {
+        return webServer != null;
+    }
+
+    @Override
+    public boolean isAutoStartup()
+    {
+        return true;
+    }
+
+    @Override
+    public void stop(Runnable callback)
+    {
+        stop();
+        callback.run();
+    }
+
+    @Override
+    public int getPhase()
+    {
+        return Integer.MAX_VALUE;
+    }
+}
@@ -0,0 +1,74 @@
+package ecommerce.tutorial.reactive;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.data.mongo.MongoReactiveDataAutoConfiguration;
+import org.springframework.boot.autoconfigure.mongo.MongoReactiveAutoConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.repository.config.EnableReactiveMongoRepositories;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import ecommerce.tutorial.reactive.repositories.ReactiveCategoryRepository;
+import ecommerce.tutorial.reactive.repositories.ReactiveProductRepository;
+import ecommerce.tutorial.reactive.repositories.ReactiveSellerRepository;
+
+import static org.springframework.web.reactive.function.server.RequestPredicates.GET;
+
+//The opt-in reactive mode: the GET endpoints of MongoDB served by functional handlers on the reactive driver, from a Netty
+//server of their own next to Tomcat. The paths are the ones of the blocking controllers, only the port differs, so the same
+//load can be run against both stacks.
+@Configuration
+@ConditionalOnProperty(name = "catalog.reactive.enabled", havingValue = "true")
+@ImportAutoConfiguration({MongoReactiveAutoConfiguration.class, MongoReactiveDataAutoConfiguration.class})
+@EnableReactiveMongoRepositories(basePackages = "ecommerce.tutorial.reactive.repositories")
+public class ReactiveServingConfiguration
+{
+    @Bean
+    public RouterFunction<ServerResponse> reactiveRoutes(ReactiveMongoOperations reactiveMongoOperations, ReactiveProductRepository productRepository,
+                                                         ReactiveCategoryRepository categoryRepository,
+                                                         ReactiveSellerRepository sellerRepository)
+    {
+        ProductHandler products = new ProductHandler(reactiveMongoOperations, productRepository);
+        CategoryHandler categories = new CategoryHandler(categoryRepository);
+        SellerHandler sellers = new SellerHandler(sellerRepository);
+        return RouterFunctions
+                .route(GET("/product/mongo"), products::getProduct)
+                .andRoute(GET("/product/all/mongo"), products::getAllProducts)
+                .andRoute(GET("/product/page/mongo"), products::getProductPage)
+                .andRoute(GET("/product/stream/mongo"), products::streamAllProducts)
+                .andRoute(GET("/product/price-range/mongo"), products::getProductsInPriceRange)
+                .andRoute(GET("/category/mongo"), categories::getCategory)
+                .andRoute(GET("/category/all/mongo"), categories::getAllCategories)
+                .andRoute(GET("/category/summary/mongo"), categories::getCategorySummary)
+                .andRoute(GET("/category/page/mongo"), categories::getCategoryPage)
+                .andRoute(GET("/category/stream/mongo"), categories::streamAllCategories)
+                .andRoute(GET("/seller/mongo"), sellers::getSellers)
+                .andRoute(GET("/seller/all/mongo"), sellers::getAllSellers)
+                .andRoute(GET("/seller/page/mongo"), sellers::getSellerPage)
+                .andRoute(GET("/seller/stream/mongo"), sellers::streamAllSellers);
+    }
+
+    //The JSON of the reactive endpoints is written by the same ObjectMapper as the one of the controllers.
+    @Bean
+    public ReactiveServer reactiveServer(RouterFunction<ServerResponse> reactiveRoutes, ObjectMapper objectMapper,
+                                         @Value("${catalog.reactive.port:8081}") int port)
+    {
+        HandlerStrategies strategies = HandlerStrategies.builder()
+                .codecs(codecs -> {
+                    codecs.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper));
+                    codecs.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper));
+                })
+                .build();
+        return new ReactiveServer(RouterFunctions.toHttpHandler(reactiveRoutes, strategies), port);
+    }
+}
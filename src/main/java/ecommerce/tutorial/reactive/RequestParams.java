@@ -0,0 +1,35 @@
+package ecommerce.tutorial.reactive;
+
+import org.springframework.web.reactive.function.server.ServerRequest;
+
+//Numeric query parameters of the functional handlers, null when missing or not a number.
+final class RequestParams
+{
+    private RequestParams()
+    {
+    }
+
+    static Integer integer(ServerRequest request, String name)
+    {
+        try
+        {
+            return request.queryParam(name).map(Integer::valueOf).orElse(null);
+        }
+        catch (NumberFormatException e)
+        {
+            return null;
+        }
+    }
+
+    static Float decimal(ServerRequest request, String name)
+    {
+        try
+        {
+            return request.queryParam(name).map(Float::valueOf).orElse(null);
+        }
+        catch (NumberFormatException e)
+        {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package ecommerce.tutorial.reactive;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import java.util.Optional;
+
+import ecommerce.tutorial.mongodb.models.Seller;
+import ecommerce.tutorial.paging.KeysetPage;
+import ecommerce.tutorial.reactive.repositories.ReactiveSellerRepository;
+
+public class SellerHandler
+{
+    private final ReactiveSellerRepository sellerRepository;
+
+    public SellerHandler(ReactiveSellerRepository sellerRepository)
+    {
+        this.sellerRepository = sellerRepository;
+    }
+
+    public Mono<ServerResponse> getSellers(ServerRequest request)
+    {
+        Optional<String> firstName = request.queryParam("firstName");
+        if (!firstName.isPresent())
+        {
+            return ServerResponse.badRequest().build();
+        }
+        return sellerRepository.findByFirstName(firstName.get())
+                .collectList()
+                .flatMap(sellers -> sellers.isEmpty()
+                        ? ServerResponse.status(HttpStatus.NOT_FOUND).syncBody("There isn't any seller with this name in MongoDB.")
+                        : ServerResponse.ok().syncBody(sellers));
+    }
+
+    public Mono<ServerResponse> getAllSellers(ServerRequest request)
+    {
+        return ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).body(sellerRepository.findAll(), Seller.class);
+    }
+
+    public Mono<ServerResponse> getSellerPage(ServerRequest request)
+    {
+        int limit = KeysetPage.limit(RequestParams.integer(request, "size"));
+        Optional<String> after = request.queryParam("after");
+        Flux<Seller> sellers = after.isPresent()
+                ? sellerRepository.findByIdGreaterThanOrderByIdAsc(after.get(), PageRequest.of(0, limit))
+                : sellerRepository.findAllByOrderByIdAsc(PageRequest.of(0, limit));
+        return sellers.collectList().flatMap(page -> ServerResponse.ok().syncBody(KeysetPage.of(page, limit, Seller::getId)));
+    }
+
+    public Mono<ServerResponse> streamAllSellers(ServerRequest request)
+    {
+        Flux<Seller> sellers = sellerRepository.findAll(Sort.by(Sort.Direction.ASC, "_id"));
+        return ServerResponse.ok().contentType(MediaType.APPLICATION_STREAM_JSON).body(sellers, Seller.class);
+    }
+}
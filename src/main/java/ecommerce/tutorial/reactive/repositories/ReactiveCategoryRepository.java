@@ -0,0 +1,18 @@
+package ecommerce.tutorial.reactive.repositories;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+import ecommerce.tutorial.mongodb.models.Category;
+
+public interface ReactiveCategoryRepository extends ReactiveMongoRepository<Category, String>
+{
+    Mono<Category> findByName(String categoryName);
+
+    Flux<Category> findAllByOrderByIdAsc(Pageable pageable);
+
+    Flux<Category> findByIdGreaterThanOrderByIdAsc(String id, Pageable pageable);
+}
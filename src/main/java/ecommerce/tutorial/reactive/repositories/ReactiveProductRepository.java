@@ -0,0 +1,26 @@
+package ecommerce.tutorial.reactive.repositories;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+import ecommerce.tutorial.mongodb.models.Product;
+
+//The price ranges read only the name and the price of the products.
+public interface ReactiveProductRepository extends ReactiveMongoRepository<Product, String>
+{
+    @Query(value = "{'price': {$gte: ?0, $lte: ?1}}", fields = "{'name': 1, 'price': 1}")
+    Flux<Product> findByPriceRange(float min, float max, Pageable pageable);
+
+    @Query(value = "{'price': {$gte: ?0, $lte: ?1}}", count = true)
+    Mono<Long> countByPriceRange(float min, float max);
+
+    @Query(value = "{'fallIntoCategories._id': ?2, 'price': {$gte: ?0, $lte: ?1}}", fields = "{'name': 1, 'price': 1}")
+    Flux<Product> findByPriceRangeInCategory(float min, float max, String categoryId, Pageable pageable);
+
+    @Query(value = "{'fallIntoCategories._id': ?2, 'price': {$gte: ?0, $lte: ?1}}", count = true)
+    Mono<Long> countByPriceRangeInCategory(float min, float max, String categoryId);
+}
@@ -0,0 +1,19 @@
+package ecommerce.tutorial.reactive.repositories;
+
+import reactor.core.publisher.Flux;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+import ecommerce.tutorial.mongodb.models.Seller;
+
+public interface ReactiveSellerRepository extends ReactiveMongoRepository<Seller, String>
+{
+    @Query("{'profile.firstName': ?0}")
+    Flux<Seller> findByFirstName(String firstName);
+
+    Flux<Seller> findAllByOrderByIdAsc(Pageable pageable);
+
+    Flux<Seller> findByIdGreaterThanOrderByIdAsc(String id, Pageable pageable);
+}
@@ -0,0 +1,53 @@
+package ecommerce.tutorial.search;
+
+import java.util.Arrays;
+
+//A growable bitset over product ordinals that can count its intersection with another one without allocating.
+class Bits
+{
+    private long[] words = new long[1];
+
+    private int cardinality;
+
+    void set(int bit)
+    {
+        int word = bit >>> 6;
+        if (word >= words.length)
+        {
+            words = Arrays.copyOf(words, Math.max(words.length * 2, word + 1));
+        }
+        long mask = 1L << bit;
+        if ((words[word] & mask) == 0)
+        {
+            words[word] |= mask;
+            cardinality++;
+        }
+    }
+
+    void clear(int bit)
+    {
+        int word = bit >>> 6;
+        long mask = 1L << bit;
+        if (word < words.length && (words[word] & mask) != 0)
+        {
+            words[word] &= ~mask;
+            cardinality--;
+        }
+    }
+
+    int cardinality()
+    {
+        return cardinality;
+    }
+
+    int andCardinality(Bits other)
+    {
+        int count = 0;
+        int length = Math.min(words.length, other.words.length);
+        for (int i = 0; i < length; i++)
+        {
+            count += Long.bitCount(words[i] & other.words[i]);
+        }
+        return count;
+    }
+}
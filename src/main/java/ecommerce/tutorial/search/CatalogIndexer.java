@@ -0,0 +1,171 @@
+package ecommerce.tutorial.search;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import ecommerce.tutorial.enums.Backend;
+import ecommerce.tutorial.jpa.repositories.ProductJpaRepository;
+import ecommerce.tutorial.mongodb.models.EmbeddedCategory;
+import ecommerce.tutorial.mongodb.models.Product;
+
+//Fills every ProductIndex from both databases once the application is up, then keeps them current with the product writes.
+@Component
+public class CatalogIndexer
+{
+    private static final Logger LOG = LoggerFactory.getLogger(CatalogIndexer.class);
+
+    @Autowired
+    private List<ProductIndex> _indexes;
+    @Autowired
+    private MongoOperations _mongoOperations;
+    @Autowired
+    private ProductJpaRepository _productJpaRepository;
+    @Autowired
+    private PlatformTransactionManager _transactionManager;
+
+    private volatile boolean ready;
+
+    //Products written while the initial load runs, the load must not overwrite them with what it read before.
+    private final Set<String> writtenDuringLoad = ConcurrentHashMap.newKeySet();
+
+    //Categories renamed while the initial load runs, the documents it read before may still carry the old names.
+    private final Map<String, Runnable> renamedDuringLoad = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load()
+    {
+        long start = System.nanoTime();
+        int mongoProducts = loadFromMongoDB();
+        int mysqlProducts = loadFromMysql();
+        for (ProductIndex index : _indexes)
+        {
+            index.loaded();
+        }
+        ready = true;
+        writtenDuringLoad.clear();
+        renamedDuringLoad.values().forEach(Runnable::run);
+        renamedDuringLoad.clear();
+        LOG.info("The product indexes loaded {} products of MongoDB and {} products of MySQL in {} ms.", mongoProducts, mysqlProducts, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public void indexed(ProductDocument document)
+    {
+        if (!ready)
+        {
+            writtenDuringLoad.add(document.getKey());
+        }
+        for (ProductIndex index : _indexes)
+        {
+            index.index(document);
+        }
+    }
+
+    //The products of a renamed category are not indexed again: what the indexes keep of a category besides its id is its name.
+    public void categoryRenamed(Backend backend, String categoryId, String name)
+    {
+        if (!ready)
+        {
+            renamedDuringLoad.put(ProductDocument.key(backend, categoryId), () -> renamed(backend, categoryId, name));
+        }
+        renamed(backend, categoryId, name);
+    }
+
+    public boolean isReady()
+    {
+        return ready;
+    }
+
+    private void renamed(Backend backend, String categoryId, String name)
+    {
+        for (ProductIndex index : _indexes)
+        {
+            index.categoryRenamed(backend, categoryId, name);
+        }
+    }
+
+    private void loadDocument(ProductDocument document)
+    {
+        if (writtenDuringLoad.contains(document.getKey()))
+        {
+            return;
+        }
+        for (ProductIndex index : _indexes)
+        {
+            index.index(document);
+        }
+    }
+
+    private int loadFromMongoDB()
+    {
+        Query query = new Query().with(Sort.by(Sort.Direction.ASC, "_id"));
+        query.fields().include("name").include("description").include("price").include("fallIntoCategories");
+        int count = 0;
+        try (CloseableIterator<Product> products = _mongoOperations.stream(query, Product.class))
+        {
+            while (products.hasNext())
+            {
+                loadDocument(ProductDocument.of(products.next()));
+                count++;
+            }
+        }
+        return count;
+    }
+
+    //One row per product and category, ordered by product, so consecutive rows are folded into one document.
+    private int loadFromMysql()
+    {
+        TransactionTemplate transaction = new TransactionTemplate(_transactionManager);
+        transaction.setReadOnly(true);
+        Integer loaded = transaction.execute(status -> {
+            int count = 0;
+            try (Stream<Object[]> rows = _productJpaRepository.streamIndexRows())
+            {
+                Iterator<Object[]> iterator = rows.iterator();
+                Object[] product = null;
+                List<EmbeddedCategory> categories = new ArrayList<>();
+                while (iterator.hasNext())
+                {
+                    Object[] row = iterator.next();
+                    if (product != null && !product[0].equals(row[0]))
+                    {
+                        loadDocument(toDocument(product, categories));
+                        categories = new ArrayList<>();
+                        count++;
+                    }
+                    product = row;
+                    categories.add(new EmbeddedCategory(String.valueOf(row[4]), (String) row[5]));
+                }
+                if (product != null)
+                {
+                    loadDocument(toDocument(product, categories));
+                    count++;
+                }
+            }
+            return count;
+        });
+        return loaded == null ? 0 : loaded;
+    }
+
+    private static ProductDocument toDocument(Object[] row, List<EmbeddedCategory> categories)
+    {
+        return new ProductDocument(Backend.MySQL, String.valueOf(row[0]), (String) row[1], (String) row[2], (Float) row[3], categories);
+    }
+}
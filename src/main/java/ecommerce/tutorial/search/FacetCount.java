@@ -0,0 +1,47 @@
+package ecommerce.tutorial.search;
+
+import java.util.Comparator;
+
+import ecommerce.tutorial.enums.Backend;
+
+public class FacetCount
+{
+    public static final Comparator<FacetCount> BY_COUNT = Comparator.comparingLong(FacetCount::getCount).reversed()
+            .thenComparing(FacetCount::getName, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    private final Backend backend;
+
+    private final String categoryId;
+
+    private final String name;
+
+    private final long count;
+
+    public FacetCount(Backend backend, String categoryId, String name, long count)
+    {
+        this.backend = backend;
+        this.categoryId = categoryId;
+        this.name = name;
+        this.count = count;
+    }
+
+    public Backend getBackend()
+    {
+        return backend;
+    }
+
+    public String getCategoryId()
+    {
+        return categoryId;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public long getCount()
+    {
+        return count;
+    }
+}
@@ -0,0 +1,105 @@
+package ecommerce.tutorial.search;
+
+import java.util.Arrays;
+
+//The documents of one term as (document gap, term frequency) pairs, both written as variable-length ints in a growable byte array.
+//Documents are only ever appended in increasing order, an updated product gets a new document number.
+class PostingList
+{
+    private byte[] bytes = new byte[8];
+
+    private int length;
+
+    private int lastDocument = -1;
+
+    //The documents of the list not marked as deleted, the document frequency of the term.
+    private int liveDocuments;
+
+    void add(int document, int frequency)
+    {
+        ensureCapacity(10);
+        writeVarInt(document - lastDocument);
+        writeVarInt(frequency);
+        lastDocument = document;
+        liveDocuments++;
+    }
+
+    //One of the documents of the list is marked as deleted; it stays in the list until the index is rebuilt.
+    void deleted()
+    {
+        liveDocuments--;
+    }
+
+    int liveDocuments()
+    {
+        return liveDocuments;
+    }
+
+    Reader reader()
+    {
+        return new Reader();
+    }
+
+    private void writeVarInt(int value)
+    {
+        while ((value & ~0x7F) != 0)
+        {
+            bytes[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[length++] = (byte) value;
+    }
+
+    private void ensureCapacity(int extra)
+    {
+        if (length + extra > bytes.length)
+        {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+        }
+    }
+
+    class Reader
+    {
+        private int position;
+
+        private int document = -1;
+
+        private int frequency;
+
+        boolean next()
+        {
+            if (position >= length)
+            {
+                return false;
+            }
+            document += readVarInt();
+            frequency = readVarInt();
+            return true;
+        }
+
+        int document()
+        {
+            return document;
+        }
+
+        int frequency()
+        {
+            return frequency;
+        }
+
+        private int readVarInt()
+        {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do
+            {
+                b = bytes[position++];
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            }
+            while ((b & 0x80) != 0);
+            return value;
+        }
+    }
+}
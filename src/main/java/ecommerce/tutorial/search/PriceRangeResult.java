@@ -0,0 +1,26 @@
+package ecommerce.tutorial.search;
+
+import java.util.List;
+
+public class PriceRangeResult
+{
+    private final long total;
+
+    private final List<ProductSummary> products;
+
+    public PriceRangeResult(long total, List<ProductSummary> products)
+    {
+        this.total = total;
+        this.products = products;
+    }
+
+    public long getTotal()
+    {
+        return total;
+    }
+
+    public List<ProductSummary> getProducts()
+    {
+        return products;
+    }
+}
@@ -0,0 +1,103 @@
+package ecommerce.tutorial.search;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import ecommerce.tutorial.enums.Backend;
+import ecommerce.tutorial.jpa.entities.CategoryEntity;
+import ecommerce.tutorial.jpa.entities.ProductEntity;
+import ecommerce.tutorial.mongodb.models.EmbeddedCategory;
+import ecommerce.tutorial.mongodb.models.Product;
+
+//The part of a product of either database which the in-memory indexes need, with the category ids of MySQL written as strings.
+public class ProductDocument
+{
+    private final Backend backend;
+
+    private final String id;
+
+    private final String name;
+
+    private final String description;
+
+    private final float price;
+
+    private final List<EmbeddedCategory> categories;
+
+    public ProductDocument(Backend backend, String id, String name, String description, float price, List<EmbeddedCategory> categories)
+    {
+        this.backend = backend;
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.price = price;
+        this.categories = Collections.unmodifiableList(categories);
+    }
+
+    public static ProductDocument of(Product product)
+    {
+        List<EmbeddedCategory> categories = new ArrayList<>();
+        if (product.getFallIntoCategories() != null)
+        {
+            for (EmbeddedCategory embCat : product.getFallIntoCategories())
+            {
+                categories.add(new EmbeddedCategory(embCat.getId(), embCat.getName()));
+            }
+        }
+        return new ProductDocument(Backend.MongoDB, product.getId(), product.getName(), product.getDescription(), product.getPrice(), categories);
+    }
+
+    public static ProductDocument of(ProductEntity product)
+    {
+        List<EmbeddedCategory> categories = new ArrayList<>();
+        if (product.getFallIntoCategories() != null)
+        {
+            for (CategoryEntity categoryEntity : product.getFallIntoCategories())
+            {
+                categories.add(new EmbeddedCategory(String.valueOf(categoryEntity.getId()), categoryEntity.getName()));
+            }
+        }
+        return new ProductDocument(Backend.MySQL, String.valueOf(product.getId()), product.getName(), product.getDescription(), product.getPrice(), categories);
+    }
+
+    public String getKey()
+    {
+        return key(backend, id);
+    }
+
+    public static String key(Backend backend, String id)
+    {
+        return backend.name() + ":" + id;
+    }
+
+    public Backend getBackend()
+    {
+        return backend;
+    }
+
+    public String getId()
+    {
+        return id;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public String getDescription()
+    {
+        return description;
+    }
+
+    public float getPrice()
+    {
+        return price;
+    }
+
+    public List<EmbeddedCategory> getCategories()
+    {
+        return categories;
+    }
+}
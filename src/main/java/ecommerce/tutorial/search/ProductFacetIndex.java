@@ -0,0 +1,162 @@
+package ecommerce.tutorial.search;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import ecommerce.tutorial.enums.Backend;
+import ecommerce.tutorial.mongodb.models.EmbeddedCategory;
+
+//One bitset of product ordinals per category and database. The facets of the whole catalog are the cardinalities,
+//the facets of a set of products are the intersections of its own bitset with each category.
+@Component
+public class ProductFacetIndex implements ProductIndex
+{
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Backend, Facets> facetsOfBackend = new EnumMap<>(Backend.class);
+
+    public ProductFacetIndex()
+    {
+        for (Backend backend : Backend.values())
+        {
+            facetsOfBackend.put(backend, new Facets());
+        }
+    }
+
+    @Override
+    public void index(ProductDocument document)
+    {
+        lock.writeLock().lock();
+        try
+        {
+            facetsOfBackend.get(document.getBackend()).index(document);
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void categoryRenamed(Backend backend, String categoryId, String name)
+    {
+        lock.writeLock().lock();
+        try
+        {
+            facetsOfBackend.get(backend).names.computeIfPresent(categoryId, (id, previous) -> name);
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<FacetCount> counts(Backend backend)
+    {
+        lock.readLock().lock();
+        try
+        {
+            Facets facets = facetsOfBackend.get(backend);
+            List<FacetCount> counts = new ArrayList<>(facets.members.size());
+            facets.members.forEach((categoryId, members) -> {
+                if (members.cardinality() > 0)
+                {
+                    counts.add(new FacetCount(backend, categoryId, facets.names.get(categoryId), members.cardinality()));
+                }
+            });
+            counts.sort(FacetCount.BY_COUNT);
+            return counts;
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<FacetCount> counts(Collection<ProductDocument> documents)
+    {
+        lock.readLock().lock();
+        try
+        {
+            Map<Backend, Bits> selected = new EnumMap<>(Backend.class);
+            for (ProductDocument document : documents)
+            {
+                Integer ordinal = facetsOfBackend.get(document.getBackend()).ordinalOfProduct.get(document.getId());
+                if (ordinal != null)
+                {
+                    selected.computeIfAbsent(document.getBackend(), backend -> new Bits()).set(ordinal);
+                }
+            }
+            List<FacetCount> counts = new ArrayList<>();
+            selected.forEach((backend, bits) -> {
+                Facets facets = facetsOfBackend.get(backend);
+                facets.members.forEach((categoryId, members) -> {
+                    int count = members.andCardinality(bits);
+                    if (count > 0)
+                    {
+                        counts.add(new FacetCount(backend, categoryId, facets.names.get(categoryId), count));
+                    }
+                });
+            });
+            counts.sort(FacetCount.BY_COUNT);
+            return counts;
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static class Facets
+    {
+        private final Map<String, Bits> members = new HashMap<>();
+
+        private final Map<String, String> names = new HashMap<>();
+
+        private final Map<String, Integer> ordinalOfProduct = new HashMap<>();
+
+        //Only the ids: the names are kept once per category, where a rename changes them.
+        private final List<List<String>> categoriesOfProduct = new ArrayList<>();
+
+        private void index(ProductDocument document)
+        {
+            Integer ordinal = ordinalOfProduct.get(document.getId());
+            if (ordinal == null)
+            {
+                ordinal = categoriesOfProduct.size();
+                categoriesOfProduct.add(categoryIds(document));
+                ordinalOfProduct.put(document.getId(), ordinal);
+            }
+            else
+            {
+                for (String categoryId : categoriesOfProduct.set(ordinal, categoryIds(document)))
+                {
+                    members.get(categoryId).clear(ordinal);
+                }
+            }
+            for (EmbeddedCategory category : document.getCategories())
+            {
+                members.computeIfAbsent(category.getId(), id -> new Bits()).set(ordinal);
+                names.put(category.getId(), category.getName());
+            }
+        }
+
+        private static List<String> categoryIds(ProductDocument document)
+        {
+            List<String> ids = new ArrayList<>(document.getCategories().size());
+            for (EmbeddedCategory category : document.getCategories())
+            {
+                ids.add(category.getId());
+            }
+            return ids;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package ecommerce.tutorial.search;
+
+import ecommerce.tutorial.enums.Backend;
+
+//An in-memory view over the products of both databases. A document replaces the previous one with the same key.
+public interface ProductIndex
+{
+    void index(ProductDocument document);
+
+    //The documents read at startup have all been indexed, what follows are the writes.
+    default void loaded()
+    {
+    }
+
+    //A category renamed in place: the documents of its products are not written again, an index which shows the names of the
+    //categories takes the new one from here.
+    default void categoryRenamed(Backend backend, String categoryId, String name)
+    {
+    }
+}
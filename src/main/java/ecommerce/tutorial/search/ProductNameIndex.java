@@ -0,0 +1,83 @@
+package ecommerce.tutorial.search;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+//The product names kept sorted by their lower case form, so the completions of a prefix are the entries right after it.
+@Component
+public class ProductNameIndex implements ProductIndex
+{
+    private final ConcurrentSkipListMap<String, Name> names = new ConcurrentSkipListMap<>();
+
+    private final Map<String, String> nameOfProduct = new ConcurrentHashMap<>();
+
+    @Override
+    public synchronized void index(ProductDocument document)
+    {
+        String name = document.getName() == null ? null : document.getName().trim();
+        String previous = name == null || name.isEmpty()
+                ? nameOfProduct.remove(document.getKey())
+                : nameOfProduct.put(document.getKey(), name);
+        if (previous != null && previous.equals(name))
+        {
+            return;
+        }
+        if (previous != null)
+        {
+            names.computeIfPresent(normalize(previous), (key, entry) -> entry.products == 1 ? null : new Name(entry.display, entry.products - 1));
+        }
+        if (name != null && !name.isEmpty())
+        {
+            names.merge(normalize(name), new Name(name, 1), (entry, added) -> new Name(entry.display, entry.products + 1));
+        }
+    }
+
+    //Lexicographic order, a name shared by several products is suggested once.
+    public List<String> suggest(String prefix, int size)
+    {
+        List<String> suggestions = new ArrayList<>(size);
+        String from = normalize(prefix);
+        if (from.isEmpty())
+        {
+            return suggestions;
+        }
+        for (Map.Entry<String, Name> entry : names.tailMap(from).entrySet())
+        {
+            if (!entry.getKey().startsWith(from) || suggestions.size() == size)
+            {
+                break;
+            }
+            suggestions.add(entry.getValue().display);
+        }
+        return suggestions;
+    }
+
+    public int size()
+    {
+        return names.size();
+    }
+
+    private static String normalize(String name)
+    {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static class Name
+    {
+        private final String display;
+
+        private final int products;
+
+        private Name(String display, int products)
+        {
+            this.display = display;
+            this.products = products;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package ecommerce.tutorial.search;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import ecommerce.tutorial.enums.Backend;
+import ecommerce.tutorial.mongodb.models.EmbeddedCategory;
+
+//The prices of the products of each database in sorted primitive arrays, one over all the products and one per category,
+//so a price range is two binary searches and a walk over the products it returns. The products read at startup are
+//appended to the arrays, which are sorted once the load is over.
+@Component
+public class ProductPriceIndex implements ProductIndex
+{
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Backend, Prices> pricesOfBackend = new EnumMap<>(Backend.class);
+
+    public ProductPriceIndex()
+    {
+        for (Backend backend : Backend.values())
+        {
+            pricesOfBackend.put(backend, new Prices());
+        }
+    }
+
+    private boolean loading = true;
+
+    @Override
+    public void index(ProductDocument document)
+    {
+        lock.writeLock().lock();
+        try
+        {
+            pricesOfBackend.get(document.getBackend()).index(document, loading);
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void loaded()
+    {
+        lock.writeLock().lock();
+        try
+        {
+            for (Prices prices : pricesOfBackend.values())
+            {
+                prices.all.sort();
+                prices.byCategory.values().forEach(SortedPriceArray::sort);
+            }
+            loading = false;
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //The category is optional, the products come cheapest first unless descending is asked.
+    public PriceRangeResult find(Backend backend, float min, float max, String categoryId, boolean descending, int size)
+    {
+        lock.readLock().lock();
+        try
+        {
+            Prices prices = pricesOfBackend.get(backend);
+            SortedPriceArray array = categoryId == null ? prices.all : prices.byCategory.get(categoryId);
+            List<ProductSummary> products = new ArrayList<>(size);
+            if (array == null)
+            {
+                return new PriceRangeResult(0, products);
+            }
+            int from = array.lowerBound(min);
+            int to = array.upperBound(max);
+            if (descending)
+            {
+                for (int i = to - 1; i >= from && products.size() < size; i--)
+                {
+                    products.add(new ProductSummary(prices.documents.get(array.ordinalAt(i))));
+                }
+            }
+            else
+            {
+                for (int i = from; i < to && products.size() < size; i++)
+                {
+                    products.add(new ProductSummary(prices.documents.get(array.ordinalAt(i))));
+                }
+            }
+            return new PriceRangeResult(Math.max(0, to - from), products);
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static class Prices
+    {
+        private final SortedPriceArray all = new SortedPriceArray();
+
+        private final Map<String, SortedPriceArray> byCategory = new HashMap<>();
+
+        //A product keeps its ordinal across updates, only its entries in the arrays move.
+        private final Map<String, Integer> ordinalOfProduct = new HashMap<>();
+
+        private final List<ProductDocument> documents = new ArrayList<>();
+
+        private void index(ProductDocument document, boolean loading)
+        {
+            Integer ordinal = ordinalOfProduct.get(document.getId());
+            if (ordinal == null)
+            {
+                ordinal = documents.size();
+                documents.add(document);
+                ordinalOfProduct.put(document.getId(), ordinal);
+            }
+            else
+            {
+                ProductDocument previous = documents.set(ordinal, document);
+                all.remove(previous.getPrice(), ordinal);
+                for (EmbeddedCategory category : previous.getCategories())
+                {
+                    SortedPriceArray array = byCategory.get(category.getId());
+                    if (array != null)
+                    {
+                        array.remove(previous.getPrice(), ordinal);
+                    }
+                }
+            }
+            add(all, document.getPrice(), ordinal, loading);
+            for (EmbeddedCategory category : document.getCategories())
+            {
+                add(byCategory.computeIfAbsent(category.getId(), id -> new SortedPriceArray()), document.getPrice(), ordinal, loading);
+            }
+        }
+
+        private static void add(SortedPriceArray array, float price, int ordinal, boolean loading)
+        {
+            if (loading)
+            {
+                array.append(price, ordinal);
+            }
+            else
+            {
+                array.insert(price, ordinal);
+            }
+        }
+    }
+}
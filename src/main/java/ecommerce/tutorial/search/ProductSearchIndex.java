@@ -0,0 +1,266 @@
+package ecommerce.tutorial.search;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+//An inverted index over the name and the description of the products, ranked with BM25.
+//An updated product is appended as a new document and its old document is marked as deleted; the index is rebuilt once half of it is deleted.
+@Component
+public class ProductSearchIndex implements ProductIndex
+{
+    private static final float K1 = 1.2f;
+
+    private static final float B = 0.75f;
+
+    //A word of the name counts as much as this many words of the description.
+    private static final int NAME_BOOST = 3;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Map<String, PostingList> postings = new HashMap<>();
+
+    private List<ProductDocument> documents = new ArrayList<>();
+
+    private int[] lengths = new int[1024];
+
+    private BitSet deleted = new BitSet();
+
+    private Map<String, Integer> documentOfProduct = new HashMap<>();
+
+    private long totalLength;
+
+    @Override
+    public void index(ProductDocument document)
+    {
+        lock.writeLock().lock();
+        try
+        {
+            Integer previous = documentOfProduct.get(document.getKey());
+            if (previous != null)
+            {
+                delete(previous);
+            }
+            add(document);
+            if (deleted.cardinality() > documentOfProduct.size())
+            {
+                rebuild();
+            }
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //Every matching product, not only the returned ones, is also handed to the consumer.
+    public SearchResult search(String text, int size, Consumer<ProductDocument> matches)
+    {
+        Set<String> terms = new LinkedHashSet<>(Tokenizer.tokenize(text));
+        lock.readLock().lock();
+        try
+        {
+            int liveDocuments = documentOfProduct.size();
+            if (terms.isEmpty() || liveDocuments == 0)
+            {
+                return new SearchResult(0, new ArrayList<>());
+            }
+            float averageLength = (float) totalLength / liveDocuments;
+            Accumulator accumulator = new Accumulator();
+            for (String term : terms)
+            {
+                PostingList postingList = postings.get(term);
+                if (postingList == null)
+                {
+                    continue;
+                }
+                int frequency = postingList.liveDocuments();
+                float idf = (float) Math.log(1 + (liveDocuments - frequency + 0.5) / (frequency + 0.5));
+                PostingList.Reader reader = postingList.reader();
+                while (reader.next())
+                {
+                    int document = reader.document();
+                    if (deleted.get(document))
+                    {
+                        continue;
+                    }
+                    float tf = reader.frequency();
+                    float norm = K1 * (1 - B + B * lengths[document] / averageLength);
+                    accumulator.add(document, idf * tf * (K1 + 1) / (tf + norm));
+                }
+            }
+            for (int document : accumulator.documents)
+            {
+                if (document >= 0)
+                {
+                    matches.accept(documents.get(document));
+                }
+            }
+            return new SearchResult(accumulator.size, topHits(accumulator, size));
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    //Keeps the best slots of the accumulator in a min-heap of the requested size.
+    private List<SearchHit> topHits(Accumulator accumulator, int size)
+    {
+        PriorityQueue<Integer> top = new PriorityQueue<>(size + 1, (a, b) -> Float.compare(accumulator.scores[a], accumulator.scores[b]));
+        for (int slot = 0; slot < accumulator.documents.length; slot++)
+        {
+            if (accumulator.documents[slot] < 0)
+            {
+                continue;
+            }
+            top.add(slot);
+            if (top.size() > size)
+            {
+                top.poll();
+            }
+        }
+        List<SearchHit> hits = new ArrayList<>(top.size());
+        while (!top.isEmpty())
+        {
+            int slot = top.poll();
+            hits.add(new SearchHit(documents.get(accumulator.documents[slot]), accumulator.scores[slot]));
+        }
+        //The heap gives the lowest score first.
+        Collections.reverse(hits);
+        return hits;
+    }
+
+    private void add(ProductDocument document)
+    {
+        Map<String, Integer> frequencies = frequencies(document);
+        int number = documents.size();
+        documents.add(document);
+        documentOfProduct.put(document.getKey(), number);
+        if (number == lengths.length)
+        {
+            lengths = Arrays.copyOf(lengths, lengths.length * 2);
+        }
+        int length = 0;
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet())
+        {
+            postings.computeIfAbsent(entry.getKey(), term -> new PostingList()).add(number, entry.getValue());
+            length += entry.getValue();
+        }
+        lengths[number] = length;
+        totalLength += length;
+    }
+
+    //The terms of the document are tokenized again to take it from the document frequencies of their posting lists.
+    private void delete(int number)
+    {
+        deleted.set(number);
+        totalLength -= lengths[number];
+        for (String term : frequencies(documents.get(number)).keySet())
+        {
+            postings.get(term).deleted();
+        }
+    }
+
+    private static Map<String, Integer> frequencies(ProductDocument document)
+    {
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String token : Tokenizer.tokenize(document.getName()))
+        {
+            frequencies.merge(token, NAME_BOOST, Integer::sum);
+        }
+        for (String token : Tokenizer.tokenize(document.getDescription()))
+        {
+            frequencies.merge(token, 1, Integer::sum);
+        }
+        return frequencies;
+    }
+
+    private void rebuild()
+    {
+        List<ProductDocument> live = new ArrayList<>(documentOfProduct.size());
+        for (int number : documentOfProduct.values())
+        {
+            live.add(documents.get(number));
+        }
+        postings = new HashMap<>();
+        documents = new ArrayList<>(live.size());
+        lengths = new int[Math.max(1024, live.size())];
+        deleted = new BitSet();
+        documentOfProduct = new HashMap<>();
+        totalLength = 0;
+        live.forEach(this::add);
+    }
+
+    //The scores of the matching documents in an open-addressing map of primitives, it grows with the matches and not with the index.
+    private static class Accumulator
+    {
+        private int[] documents = new int[64];
+
+        private float[] scores = new float[64];
+
+        private int size;
+
+        private Accumulator()
+        {
+            Arrays.fill(documents, -1);
+        }
+
+        private void add(int document, float score)
+        {
+            int slot = slot(documents, document);
+            if (documents[slot] < 0)
+            {
+                documents[slot] = document;
+                if (++size * 2 > documents.length)
+                {
+                    grow();
+                }
+                slot = slot(documents, document);
+            }
+            scores[slot] += score;
+        }
+
+        private void grow()
+        {
+            int[] oldDocuments = documents;
+            float[] oldScores = scores;
+            documents = new int[oldDocuments.length * 2];
+            scores = new float[oldDocuments.length * 2];
+            Arrays.fill(documents, -1);
+            for (int i = 0; i < oldDocuments.length; i++)
+            {
+                if (oldDocuments[i] >= 0)
+                {
+                    int slot = slot(documents, oldDocuments[i]);
+                    documents[slot] = oldDocuments[i];
+                    scores[slot] = oldScores[i];
+                }
+            }
+        }
+
+        private static int slot(int[] documents, int document)
+        {
+            int mask = documents.length - 1;
+            int hash = document * 0x9E3779B9;
+            int slot = (hash ^ hash >>> 16) & mask;
+            while (documents[slot] >= 0 && documents[slot] != document)
+            {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package ecommerce.tutorial.search;
+
+import ecommerce.tutorial.enums.Backend;
+
+public class ProductSummary
+{
+    private final Backend backend;
+
+    private final String id;
+
+    private final String name;
+
+    private final float price;
+
+    public ProductSummary(Backend backend, String id, String name, float price)
+    {
+        this.backend = backend;
+        this.id = id;
+        this.name = name;
+        this.price = price;
+    }
+
+    public ProductSummary(ProductDocument document)
+    {
+        this(document.getBackend(), document.getId(), document.getName(), document.getPrice());
+    }
+
+    public Backend getBackend()
+    {
+        return backend;
+    }
+
+    public String getId()
+    {
+        return id;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public float getPrice()
+    {
+        return price;
+    }
+}
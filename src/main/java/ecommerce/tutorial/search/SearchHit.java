@@ -0,0 +1,17 @@
+package ecommerce.tutorial.search;
+
+public class SearchHit extends ProductSummary
+{
+    private final float score;
+
+    public SearchHit(ProductDocument document, float score)
+    {
+        super(document);
+        this.score = score;
+    }
+
+    public float getScore()
+    {
+        return score;
+    }
+}
@@ -0,0 +1,39 @@
+package ecommerce.tutorial.search;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class SearchResult
+{
+    private final int total;
+
+    private final List<SearchHit> hits;
+
+    private List<FacetCount> facets = new ArrayList<>();
+
+    public SearchResult(int total, List<SearchHit> hits)
+    {
+        this.total = total;
+        this.hits = hits;
+    }
+
+    public int getTotal()
+    {
+        return total;
+    }
+
+    public List<SearchHit> getHits()
+    {
+        return hits;
+    }
+
+    public List<FacetCount> getFacets()
+    {
+        return facets;
+    }
+
+    public void setFacets(List<FacetCount> facets)
+    {
+        this.facets = facets;
+    }
+}
@@ -0,0 +1,193 @@
+package ecommerce.tutorial.search;
+
+import java.util.Arrays;
+
+//Prices in ascending order with the product ordinal of each one in a parallel array, ties ordered by ordinal.
+//A bulk load appends its entries unsorted and sorts them once at the end; an insert or a removal shifts the arrays, which
+//is only affordable for the writes that follow the load.
+class SortedPriceArray
+{
+    private float[] prices = new float[16];
+
+    private int[] ordinals = new int[16];
+
+    private int size;
+
+    private boolean sorted = true;
+
+    void append(float price, int ordinal)
+    {
+        grow();
+        prices[size] = price;
+        ordinals[size] = ordinal;
+        size++;
+        sorted = false;
+    }
+
+    //Each entry becomes one long, the price in the high bits, flipped so that the longs order like the prices, and the
+    //ordinal in the low bits: one sort of primitives orders by price then ordinal. An entry appended twice is kept once.
+    void sort()
+    {
+        if (sorted)
+        {
+            return;
+        }
+        long[] keys = new long[size];
+        for (int i = 0; i < size; i++)
+        {
+            keys[i] = ((long) flip(Float.floatToIntBits(prices[i])) << 32) | ordinals[i];
+        }
+        Arrays.sort(keys);
+        int count = 0;
+        for (int i = 0; i < keys.length; i++)
+        {
+            if (i > 0 && keys[i] == keys[i - 1])
+            {
+                continue;
+            }
+            prices[count] = Float.intBitsToFloat(flip((int) (keys[i] >> 32)));
+            ordinals[count] = (int) keys[i];
+            count++;
+        }
+        size = count;
+        sorted = true;
+    }
+
+    void insert(float price, int ordinal)
+    {
+        if (!sorted)
+        {
+            append(price, ordinal);
+            return;
+        }
+        int position = search(price, ordinal);
+        if (position >= 0)
+        {
+            return;
+        }
+        position = -position - 1;
+        grow();
+        System.arraycopy(prices, position, prices, position + 1, size - position);
+        System.arraycopy(ordinals, position, ordinals, position + 1, size - position);
+        prices[position] = price;
+        ordinals[position] = ordinal;
+        size++;
+    }
+
+    void remove(float price, int ordinal)
+    {
+        int position = sorted ? search(price, ordinal) : scan(price, ordinal);
+        if (position < 0)
+        {
+            return;
+        }
+        System.arraycopy(prices, position + 1, prices, position, size - position - 1);
+        System.arraycopy(ordinals, position + 1, ordinals, position, size - position - 1);
+        size--;
+    }
+
+    //The first position whose price is not below the given one.
+    int lowerBound(float price)
+    {
+        int low = 0;
+        int high = size;
+        while (low < high)
+        {
+            int middle = (low + high) >>> 1;
+            if (prices[middle] < price)
+            {
+                low = middle + 1;
+            }
+            else
+            {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    //The first position whose price is above the given one.
+    int upperBound(float price)
+    {
+        int low = 0;
+        int high = size;
+        while (low < high)
+        {
+            int middle = (low + high) >>> 1;
+            if (prices[middle] <= price)
+            {
+                low = middle + 1;
+            }
+            else
+            {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    int ordinalAt(int position)
+    {
+        return ordinals[position];
+    }
+
+    int size()
+    {
+        return size;
+    }
+
+    private void grow()
+    {
+        if (size == prices.length)
+        {
+            prices = Arrays.copyOf(prices, size * 2);
+            ordinals = Arrays.copyOf(ordinals, size * 2);
+        }
+    }
+
+    //The bits of the negative floats order backwards as ints, all but their sign are flipped; flipping twice gives them back.
+    private static int flip(int bits)
+    {
+        return bits ^ ((bits >> 31) & 0x7fffffff);
+    }
+
+    private int scan(float price, int ordinal)
+    {
+        for (int i = 0; i < size; i++)
+        {
+            if (ordinals[i] == ordinal && Float.compare(prices[i], price) == 0)
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int search(float price, int ordinal)
+    {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high)
+        {
+            int middle = (low + high) >>> 1;
+            int compare = Float.compare(prices[middle], price);
+            if (compare == 0)
+            {
+                compare = Integer.compare(ordinals[middle], ordinal);
+            }
+            if (compare < 0)
+            {
+                low = middle + 1;
+            }
+            else if (compare > 0)
+            {
+                high = middle - 1;
+            }
+            else
+            {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+}
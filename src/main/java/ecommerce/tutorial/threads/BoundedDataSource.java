@@ -0,0 +1,154 @@
+package ecommerce.tutorial.threads;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.sql.DataSource;
+
+//Lets at most as many threads hold a connection as the pool has connections. With a virtual thread per request, thousands
+//of requests may want a connection at once; they queue cheaply and in order on the semaphore instead of inside the pool.
+//A permit is returned when the connection is closed.
+public class BoundedDataSource extends DelegatingDataSource implements Closeable
+{
+    private final Semaphore permits;
+
+    private final int maxConnections;
+
+    private final long timeoutMillis;
+
+    private final LongAdder acquisitions = new LongAdder();
+
+    private final LongAdder waitNanos = new LongAdder();
+
+    private final LongAdder timeouts = new LongAdder();
+
+    public BoundedDataSource(DataSource dataSource, int maxConnections, long timeoutMillis)
+    {
+        super(dataSource);
+        this.permits = new Semaphore(maxConnections, true);
+        this.maxConnections = maxConnections;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException
+    {
+        acquire();
+        return bounded(super::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException
+    {
+        acquire();
+        return bounded(() -> super.getConnection(username, password));
+    }
+
+    public BoundedDataSourceStats stats()
+    {
+        return new BoundedDataSourceStats(maxConnections, maxConnections - permits.availablePermits(), permits.getQueueLength(),
+                acquisitions.sum(), waitNanos.sum(), timeouts.sum());
+    }
+
+    //Whoever holds this data source in place of the pool can shut the pool down through it. Closing the pool twice is harmless.
+    @Override
+    public void close() throws IOException
+    {
+        DataSource target = getTargetDataSource();
+        if (!(target instanceof AutoCloseable))
+        {
+            return;
+        }
+        try
+        {
+            ((AutoCloseable) target).close();
+        }
+        catch (IOException | RuntimeException e)
+        {
+            throw e;
+        }
+        catch (Exception e)
+        {
+            throw new IOException("The connection pool could not be closed", e);
+        }
+    }
+
+    private void acquire() throws SQLException
+    {
+        long start = System.nanoTime();
+        try
+        {
+            if (!permits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS))
+            {
+                timeouts.increment();
+                throw new SQLTransientConnectionException("No database connection became free within " + timeoutMillis + " ms, "
+                        + permits.getQueueLength() + " threads are waiting.");
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a database connection.", e);
+        }
+        acquisitions.increment();
+        waitNanos.add(System.nanoTime() - start);
+    }
+
+    private Connection bounded(ConnectionSupplier supplier) throws SQLException
+    {
+        Connection connection;
+        try
+        {
+            connection = supplier.get();
+        }
+        catch (SQLException | RuntimeException e)
+        {
+            permits.release();
+            throw e;
+        }
+        AtomicBoolean closed = new AtomicBoolean();
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (method.getName().equals("close") && closed.compareAndSet(false, true))
+            {
+                try
+                {
+                    return method.invoke(connection, args);
+                }
+                catch (InvocationTargetException e)
+                {
+                    throw e.getCause();
+                }
+                finally
+                {
+                    permits.release();
+                }
+            }
+            try
+            {
+                return method.invoke(connection, args);
+            }
+            catch (InvocationTargetException e)
+            {
+                throw e.getCause();
+            }
+        };
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, handler);
+    }
+
+    private interface ConnectionSupplier
+    {
+        Connection get() throws SQLException;
+    }
+}
@@ -0,0 +1,57 @@
+package ecommerce.tutorial.threads;
+
+public class BoundedDataSourceStats
+{
+    private final int maxConnections;
+
+    private final int inUse;
+
+    private final int waiting;
+
+    private final long acquisitions;
+
+    private final long waitNanos;
+
+    private final long timeouts;
+
+    public BoundedDataSourceStats(int maxConnections, int inUse, int waiting, long acquisitions, long waitNanos, long timeouts)
+    {
+        this.maxConnections = maxConnections;
+        this.inUse = inUse;
+        this.waiting = waiting;
+        this.acquisitions = acquisitions;
+        this.waitNanos = waitNanos;
+        this.timeouts = timeouts;
+    }
+
+    public int getMaxConnections()
+    {
+        return maxConnections;
+    }
+
+    public int getInUse()
+    {
+        return inUse;
+    }
+
+    //The threads waiting for a connection right now.
+    public int getWaiting()
+    {
+        return waiting;
+    }
+
+    public long getAcquisitions()
+    {
+        return acquisitions;
+    }
+
+    public double getAverageWaitMillis()
+    {
+        return acquisitions == 0 ? 0 : waitNanos / 1_000_000.0 / acquisitions;
+    }
+
+    public long getTimeouts()
+    {
+        return timeouts;
+    }
+}
@@ -0,0 +1,135 @@
+package ecommerce.tutorial.threads;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+//Listens to the jdk.VirtualThreadPinned events of Flight Recorder: a virtual thread that blocks inside a synchronized block or
+//a native frame keeps its carrier thread, and too many of them at once starve the other virtual threads. The events are counted
+//by the first frame of the application, or of the stack when there is none, to show where the pinning comes from.
+public class PinningMonitor implements AutoCloseable
+{
+    private static final Logger LOG = LoggerFactory.getLogger(PinningMonitor.class);
+
+    private static final String EVENT = "jdk.VirtualThreadPinned";
+
+    private static final String APPLICATION_PACKAGE = "ecommerce.tutorial.";
+
+    private final LongAdder events = new LongAdder();
+
+    private final LongAdder pinnedNanos = new LongAdder();
+
+    private final Map<String, LongAdder> eventsOfFrame = new ConcurrentHashMap<>();
+
+    private final AutoCloseable stream;
+
+    private final Method getDuration;
+
+    private final Method getStackTrace;
+
+    private final Method getFrames;
+
+    private final Method getMethod;
+
+    private final Method getType;
+
+    private final Method getTypeName;
+
+    private final Method getMethodName;
+
+    private final Method getLineNumber;
+
+    //Only pins longer than the threshold are recorded, short ones cost nothing worth reporting.
+    public PinningMonitor(Duration threshold) throws ReflectiveOperationException
+    {
+        Class<?> recordingStream = Class.forName("jdk.jfr.consumer.RecordingStream");
+        Class<?> recordedEvent = Class.forName("jdk.jfr.consumer.RecordedEvent");
+        Class<?> recordedFrame = Class.forName("jdk.jfr.consumer.RecordedFrame");
+        Class<?> recordedMethod = Class.forName("jdk.jfr.consumer.RecordedMethod");
+        getDuration = recordedEvent.getMethod("getDuration");
+        getStackTrace = recordedEvent.getMethod("getStackTrace");
+        getFrames = Class.forName("jdk.jfr.consumer.RecordedStackTrace").getMethod("getFrames");
+        getMethod = recordedFrame.getMethod("getMethod");
+        getLineNumber = recordedFrame.getMethod("getLineNumber");
+        getType = recordedMethod.getMethod("getType");
+        getMethodName = recordedMethod.getMethod("getName");
+        getTypeName = Class.forName("jdk.jfr.consumer.RecordedClass").getMethod("getName");
+
+        stream = (AutoCloseable) recordingStream.getConstructor().newInstance();
+        Object settings = recordingStream.getMethod("enable", String.class).invoke(stream, EVENT);
+        Class.forName("jdk.jfr.EventSettings").getMethod("withThreshold", Duration.class).invoke(settings, threshold);
+        Class.forName("jdk.jfr.EventSettings").getMethod("withStackTrace").invoke(settings);
+        Consumer<Object> onEvent = this::record;
+        recordingStream.getMethod("onEvent", String.class, Consumer.class).invoke(stream, EVENT, onEvent);
+        recordingStream.getMethod("startAsync").invoke(stream);
+    }
+
+    public PinningStats stats()
+    {
+        List<PinningStats.Frame> frames = new ArrayList<>(eventsOfFrame.size());
+        eventsOfFrame.forEach((frame, count) -> frames.add(new PinningStats.Frame(frame, count.sum())));
+        frames.sort((a, b) -> Long.compare(b.getEvents(), a.getEvents()));
+        return new PinningStats(events.sum(), pinnedNanos.sum(), frames);
+    }
+
+    //The stream is only reached as an AutoCloseable, RecordingStream.close throws no checked exception.
+    @Override
+    public void close()
+    {
+        try
+        {
+            stream.close();
+        }
+        catch (Exception e)
+        {
+            throw new IllegalStateException("The recording of the pinned virtual threads could not be closed", e);
+        }
+    }
+
+    private void record(Object event)
+    {
+        try
+        {
+            events.increment();
+            pinnedNanos.add(((Duration) getDuration.invoke(event)).toNanos());
+            eventsOfFrame.computeIfAbsent(frame(event), frame -> new LongAdder()).increment();
+        }
+        catch (ReflectiveOperationException e)
+        {
+            LOG.warn("A pinned virtual thread could not be recorded: {}", e.toString());
+        }
+    }
+
+    private String frame(Object event) throws ReflectiveOperationException
+    {
+        Object stackTrace = getStackTrace.invoke(event);
+        if (stackTrace == null)
+        {
+            return "unknown";
+        }
+        String first = null;
+        for (Object frame : (List<?>) getFrames.invoke(stackTrace))
+        {
+            Object method = getMethod.invoke(frame);
+            String type = (String) getTypeName.invoke(getType.invoke(method));
+            String name = type + "." + getMethodName.invoke(method) + ":" + getLineNumber.invoke(frame);
+            if (type.startsWith(APPLICATION_PACKAGE))
+            {
+                return name;
+            }
+            if (first == null)
+            {
+                first = name;
+            }
+        }
+        return first == null ? "unknown" : first;
+    }
+}
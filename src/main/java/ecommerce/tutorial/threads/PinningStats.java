@@ -0,0 +1,58 @@
+package ecommerce.tutorial.threads;
+
+import java.util.List;
+
+public class PinningStats
+{
+    private final long events;
+
+    private final long pinnedNanos;
+
+    private final List<Frame> frames;
+
+    public PinningStats(long events, long pinnedNanos, List<Frame> frames)
+    {
+        this.events = events;
+        this.pinnedNanos = pinnedNanos;
+        this.frames = frames;
+    }
+
+    public long getEvents()
+    {
+        return events;
+    }
+
+    public double getPinnedMillis()
+    {
+        return pinnedNanos / 1_000_000.0;
+    }
+
+    //The frames the pinning came from, the most frequent first.
+    public List<Frame> getFrames()
+    {
+        return frames;
+    }
+
+    public static class Frame
+    {
+        private final String frame;
+
+        private final long events;
+
+        public Frame(String frame, long events)
+        {
+            this.frame = frame;
+            this.events = events;
+        }
+
+        public String getFrame()
+        {
+            return frame;
+        }
+
+        public long getEvents()
+        {
+            return events;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package ecommerce.tutorial.threads;
+
+import com.mongodb.MongoClientOptions;
+import com.zaxxer.hikari.HikariDataSource;
+
+import org.apache.coyote.AbstractProtocol;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+
+import javax.sql.DataSource;
+
+//The virtual-thread mode, for JDK 21 and later: Tomcat runs every request on a virtual thread of its own, so the blocking
+//JPA and MongoDB calls of the controllers no longer hold one of a few hundred platform threads while they wait.
+//The connections stay bounded: the JDBC connections by a semaphore in front of the pool, the MongoDB connections by the
+//semaphore of the driver's own pool, whose wait queue is widened to let the many more concurrent requests wait in it.
+@Configuration
+@ConditionalOnProperty(name = "catalog.virtual-threads.enabled", havingValue = "true")
+public class VirtualThreadConfiguration
+{
+    private static final Logger LOG = LoggerFactory.getLogger(VirtualThreadConfiguration.class);
+
+    //Nothing to shut down, a virtual thread ends with its request and does not keep the JVM alive.
+    @Bean(destroyMethod = "")
+    public ExecutorService requestExecutor()
+    {
+        ExecutorService executor = VirtualThreads.newThreadPerTaskExecutor("request-");
+        LOG.info("The requests are served on virtual threads.");
+        return executor;
+    }
+
+    @Bean
+    public WebServerFactoryCustomizer<TomcatServletWebServerFactory> virtualThreadTomcat(ExecutorService requestExecutor)
+    {
+        return factory -> factory.addConnectorCustomizers(connector -> {
+            if (connector.getProtocolHandler() instanceof AbstractProtocol)
+            {
+                ((AbstractProtocol<?>) connector.getProtocolHandler()).setExecutor(requestExecutor);
+            }
+        });
+    }
+
+    //Static, so that it is created before the data source and the MongoDB options it wraps.
+    @Bean
+    public static BeanPostProcessor boundedConnections(Environment environment)
+    {
+        return new BeanPostProcessor()
+        {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName)
+            {
+                if (bean instanceof HikariDataSource)
+                {
+                    HikariDataSource dataSource = (HikariDataSource) bean;
+                    return new BoundedDataSource(dataSource, poolSize(dataSource), dataSource.getConnectionTimeout());
+                }
+                if (bean instanceof MongoClientOptions)
+                {
+                    int waitQueueMultiple = environment.getProperty("catalog.virtual-threads.mongo-wait-queue-multiple", Integer.class, 50);
+                    return MongoClientOptions.builder((MongoClientOptions) bean)
+                            .threadsAllowedToBlockForConnectionMultiplier(waitQueueMultiple)
+                            .build();
+                }
+                return bean;
+            }
+        };
+    }
+
+    //The size Hikari settles on when it starts, left unset it takes the minimum idle connections or else 10.
+    private static int poolSize(HikariDataSource dataSource)
+    {
+        if (dataSource.getMaximumPoolSize() > 0)
+        {
+            return dataSource.getMaximumPoolSize();
+        }
+        return dataSource.getMinimumIdle() > 0 ? dataSource.getMinimumIdle() : 10;
+    }
+
+    @Bean(destroyMethod = "close")
+    public VirtualThreadMode virtualThreadMode(DataSource dataSource,
+                                               @Value("${catalog.virtual-threads.pinned-threshold-millis:20}") long pinnedThresholdMillis)
+    {
+        return new VirtualThreadMode(dataSource, pinningMonitor(pinnedThresholdMillis));
+    }
+
+    //Flight Recorder is not part of every runtime, the mode works without the report.
+    private static PinningMonitor pinningMonitor(long thresholdMillis)
+    {
+        try
+        {
+            return new PinningMonitor(Duration.ofMillis(thresholdMillis));
+        }
+        catch (ReflectiveOperationException | RuntimeException e)
+        {
+            LOG.warn("The pinned virtual threads are not reported: {}", e.toString());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package ecommerce.tutorial.threads;
+
+import javax.sql.DataSource;
+
+//What the virtual-thread mode has to report: the wait for the database connections and the pinned virtual threads.
+public class VirtualThreadMode implements AutoCloseable
+{
+    private final DataSource dataSource;
+
+    private final PinningMonitor pinningMonitor;
+
+    public VirtualThreadMode(DataSource dataSource, PinningMonitor pinningMonitor)
+    {
+        this.dataSource = dataSource;
+        this.pinningMonitor = pinningMonitor;
+    }
+
+    public VirtualThreadStats stats()
+    {
+        return new VirtualThreadStats(
+                dataSource instanceof BoundedDataSource ? ((BoundedDataSource) dataSource).stats() : null,
+                pinningMonitor == null ? null : pinningMonitor.stats());
+    }
+
+    @Override
+    public void close()
+    {
+        if (pinningMonitor != null)
+        {
+            pinningMonitor.close();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package ecommerce.tutorial.threads;
+
+public class VirtualThreadStats
+{
+    private final BoundedDataSourceStats database;
+
+    private final PinningStats pinning;
+
+    public VirtualThreadStats(BoundedDataSourceStats database, PinningStats pinning)
+    {
+        this.database = database;
+        this.pinning = pinning;
+    }
+
+    public BoundedDataSourceStats getDatabase()
+    {
+        return database;
+    }
+
+    //Null when Flight Recorder is not available.
+    public PinningStats getPinning()
+    {
+        return pinning;
+    }
+}
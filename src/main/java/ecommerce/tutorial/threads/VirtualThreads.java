@@ -0,0 +1,32 @@
+package ecommerce.tutorial.threads;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+//The virtual threads of JDK 21, reached through reflection so that the application still builds and runs on Java 8.
+public final class VirtualThreads
+{
+    private VirtualThreads()
+    {
+    }
+
+    //One new virtual thread per task, named with the prefix and a counter.
+    public static ExecutorService newThreadPerTaskExecutor(String namePrefix)
+    {
+        try
+        {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 0L);
+            ThreadFactory factory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+            Method newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            return (ExecutorService) newThreadPerTaskExecutor.invoke(null, factory);
+        }
+        catch (ReflectiveOperationException e)
+        {
+            throw new IllegalStateException("Virtual threads need JDK 21 or later, this is Java " + System.getProperty("java.version"), e);
+        }
+    }
+}
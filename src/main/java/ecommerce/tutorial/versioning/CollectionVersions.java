@@ -0,0 +1,126 @@
+package ecommerce.tutorial.versioning;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import ecommerce.tutorial.jpa.entities.CollectionVersionEntity;
+import ecommerce.tutorial.jpa.repositories.CollectionVersionJpaRepository;
+import ecommerce.tutorial.mongodb.models.CollectionVersion;
+import ecommerce.tutorial.outbox.AfterCommit;
+
+//One counter per collection and table, bumped by the writes of this application. The entity tag of a listing is made of
+//the counters of every collection its JSON is read from, which costs one small query instead of reading the listing.
+@Component
+public class CollectionVersions
+{
+    private static final Logger LOG = LoggerFactory.getLogger(CollectionVersions.class);
+
+    public static final String PRODUCTS = "products";
+
+    public static final String CATEGORIES = "categories";
+
+    public static final String SELLERS = "sellers";
+
+    @Autowired
+    private MongoOperations _mongoOperations;
+    @Autowired
+    private CollectionVersionJpaRepository _collectionVersionJpaRepository;
+    @Autowired
+    private PlatformTransactionManager _transactionManager;
+
+
+    //----------MongoDB--------------------------
+    public void mongoWritten(String... collections)
+    {
+        BulkOperations increments = _mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, CollectionVersion.class);
+        for (String collection : collections)
+        {
+            increments.upsert(new Query(Criteria.where("_id").is(collection)), new Update().inc("version", 1));
+        }
+        increments.execute();
+    }
+
+    public String mongoETag(String... collections)
+    {
+        List<String> names = Arrays.asList(collections);
+        Map<String, Long> versions = new HashMap<>();
+        _mongoOperations.find(new Query(Criteria.where("_id").in(names)), CollectionVersion.class)
+                .forEach(version -> versions.put(version.getName(), version.getVersion()));
+        return eTag("mongo", names, versions);
+    }
+
+
+    //----------MySQL----------------------------
+    //The counters exist before the first write, so a write only ever updates them. Another node creating them at the same
+    //time is no failure, the row is there either way.
+    @EventListener(ContextRefreshedEvent.class)
+    public void createMysqlCounters()
+    {
+        for (String name : Arrays.asList(PRODUCTS, CATEGORIES, SELLERS))
+        {
+            try
+            {
+                newTransaction().execute(status -> _collectionVersionJpaRepository.existsById(name)
+                        ? null : _collectionVersionJpaRepository.save(new CollectionVersionEntity(name, 0)));
+            }
+            catch (DataIntegrityViolationException e)
+            {
+                LOG.debug("The counter of {} was created by another node.", name);
+            }
+        }
+    }
+
+    //The counter is bumped once the write is committed, in a transaction of its own: bumped inside the write, its row would
+    //stay locked until the commit, and every write to the table would wait for the one before it. A listing read between
+    //the commit and the bump is tagged with the old version, its next read gets the new one.
+    public void mysqlWritten(String... tables)
+    {
+        List<String> names = Arrays.asList(tables);
+        AfterCommit.run(() -> newTransaction().execute(status -> _collectionVersionJpaRepository.increment(names)));
+    }
+
+    private TransactionTemplate newTransaction()
+    {
+        TransactionTemplate transaction = new TransactionTemplate(_transactionManager);
+        transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return transaction;
+    }
+
+    @Transactional(readOnly = true)
+    public String mysqlETag(String... tables)
+    {
+        List<String> names = Arrays.asList(tables);
+        Map<String, Long> versions = new HashMap<>();
+        _collectionVersionJpaRepository.findAllById(names).forEach(version -> versions.put(version.getName(), version.getVersion()));
+        return eTag("mysql", names, versions);
+    }
+
+    private static String eTag(String backend, List<String> names, Map<String, Long> versions)
+    {
+        ETags tag = ETags.builder().add(backend);
+        for (String name : names)
+        {
+            tag.add(name).add(versions.getOrDefault(name, 0L));
+        }
+        return tag.build();
+    }
+}
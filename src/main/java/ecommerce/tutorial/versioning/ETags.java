@@ -0,0 +1,48 @@
+package ecommerce.tutorial.versioning;
+
+//Strong entity tags hashed from versions, so a tag never needs the serialized body.
+public final class ETags
+{
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private long hash = FNV_OFFSET;
+
+    private ETags()
+    {
+    }
+
+    public static ETags builder()
+    {
+        return new ETags();
+    }
+
+    public static String of(Object... parts)
+    {
+        ETags tag = new ETags();
+        for (Object part : parts)
+        {
+            tag.add(part);
+        }
+        return tag.build();
+    }
+
+    //A null part, such as the version of a document written before versions existed, counts as its own value.
+    public ETags add(Object part)
+    {
+        String value = String.valueOf(part);
+        for (int i = 0; i < value.length(); i++)
+        {
+            hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+        }
+        //Separates the parts, so "1", "23" and "12", "3" do not hash alike.
+        hash = (hash ^ 0x1f) * FNV_PRIME;
+        return this;
+    }
+
+    public String build()
+    {
+        return "\"" + Long.toHexString(hash) + "\"";
+    }
+}
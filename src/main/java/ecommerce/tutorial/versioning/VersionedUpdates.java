@@ -0,0 +1,36 @@
+package ecommerce.tutorial.versioning;
+
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+//The conditional updates of MongoDB documents: the version the client read is part of the query of a single findAndModify.
+public final class VersionedUpdates
+{
+    private VersionedUpdates()
+    {
+    }
+
+    //Without a version the update is unconditional, with one it only applies to that version of the document.
+    public static Query query(String id, Long version)
+    {
+        Criteria criteria = Criteria.where("_id").is(id);
+        if (version != null)
+        {
+            criteria.and("version").is(version);
+        }
+        return new Query(criteria);
+    }
+
+    //Only a failed conditional update costs a second query, to tell a missing document from a stale version.
+    public static ResponseEntity<String> notUpdated(MongoOperations mongoOperations, String id, Long version, Class<?> type, String name)
+    {
+        if (version != null && mongoOperations.exists(new Query(Criteria.where("_id").is(id)), type))
+        {
+            return new ResponseEntity<>("The " + name + " was modified since version " + version + ", read it again.", HttpStatus.CONFLICT);
+        }
+        return new ResponseEntity<>("This " + name + " doesn't exists in MongoDB.", HttpStatus.NOT_FOUND);
+    }
+}
@@ -0,0 +1,200 @@
+package ecommerce.tutorial.bulk;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.WriteRequest;
+
+import org.bson.BsonDocument;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.EntityManager;
+
+import ecommerce.tutorial.cache.ProductReadCache;
+import ecommerce.tutorial.cache.ReferenceCache;
+import ecommerce.tutorial.enums.OutboxAggregate;
+import ecommerce.tutorial.jpa.entities.CategoryEntity;
+import ecommerce.tutorial.jpa.entities.SellerEntity;
+import ecommerce.tutorial.membership.CategoryMemberships;
+import ecommerce.tutorial.membership.ProductSortKeys;
+import ecommerce.tutorial.mongodb.models.EmbeddedCategory;
+import ecommerce.tutorial.mongodb.models.Product;
+import ecommerce.tutorial.mongodb.models.Seller;
+import ecommerce.tutorial.outbox.CatalogOutbox;
+import ecommerce.tutorial.search.CatalogIndexer;
+import ecommerce.tutorial.search.ProductDocument;
+import ecommerce.tutorial.versioning.CollectionVersions;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+//The report of an import names every rejected line once, with why it was rejected, and counts the others as imported.
+@RunWith(MockitoJUnitRunner.class)
+public class ProductBulkImporterTest
+{
+    @Mock
+    private MongoOperations _mongoOperations;
+    @Mock
+    private BulkOperations _bulkOperations;
+    @Mock
+    private ReferenceCache _referenceCache;
+    @Mock
+    private CatalogIndexer _catalogIndexer;
+    @Mock
+    private CategoryMemberships _categoryMemberships;
+    @Mock
+    private ProductSortKeys _productSortKeys;
+    @Mock
+    private ProductReadCache _productReadCache;
+    @Mock
+    private CollectionVersions _collectionVersions;
+    @Mock
+    private CatalogOutbox _catalogOutbox;
+    @Mock
+    private TransactionTemplate _transactionTemplate;
+    @Mock
+    private EntityManager _entityManager;
+    @Spy
+    private ObjectMapper _objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    @InjectMocks
+    private ProductBulkImporter _productBulkImporter;
+
+    //Each check of a line rejects it on its own line, and a document the bulk write fails is rejected on the line it came from.
+    @Test
+    public void mongoImportRejectsEachLineOnItsOwn() throws Exception
+    {
+        Seller seller = new Seller("judy", null);
+        seller.setId("s1");
+        when(_referenceCache.findMongoSellers(anyCollection())).thenReturn(Collections.singletonMap("s1", seller));
+        when(_referenceCache.findMongoCategories(anyCollection())).thenReturn(Collections.singletonMap("c1", new EmbeddedCategory("c1", "Art")));
+        when(_mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class)).thenReturn(_bulkOperations);
+        when(_bulkOperations.insert(anyList())).thenReturn(_bulkOperations);
+        //The second product that reaches the write, from line 8, is a duplicate.
+        when(_bulkOperations.execute()).thenThrow(new MongoBulkWriteException(
+                BulkWriteResult.acknowledged(WriteRequest.Type.INSERT, 1, Collections.emptyList()),
+                Collections.singletonList(new BulkWriteError(11000, "E11000 duplicate key", new BsonDocument(), 1)),
+                null, new ServerAddress()));
+
+        BulkImportReport report = _productBulkImporter.importIntoMongoDB(body(
+                "{\"name\":\"Lamp\",\"price\":10,\"seller\":{\"id\":\"s1\"},\"fallIntoCategories\":[{\"id\":\"c1\"}]}",
+                "",
+                "{\"name\":",
+                "{\"name\":\" \",\"seller\":{\"id\":\"s1\"},\"fallIntoCategories\":[{\"id\":\"c1\"}]}",
+                "{\"name\":\"Chair\",\"seller\":{\"id\":\"s9\"},\"fallIntoCategories\":[{\"id\":\"c1\"}]}",
+                "{\"name\":\"Desk\",\"seller\":{\"id\":\"s1\"},\"fallIntoCategories\":[{\"id\":\"c9\"}]}",
+                "{\"name\":\"Rug\",\"seller\":{\"id\":\"s1\"},\"fallIntoCategories\":[]}",
+                "{\"name\":\"Sofa\",\"price\":99,\"seller\":{\"id\":\"s1\"},\"fallIntoCategories\":[{\"id\":\"c1\"}]}"));
+
+        assertThat(report.getLines()).isEqualTo(7);
+        assertThat(report.getImported()).isEqualTo(1);
+        assertThat(report.getRejected()).isEqualTo(6);
+        Map<Long, String> errors = errors(report);
+        assertThat(errors.keySet()).containsExactly(3L, 4L, 5L, 6L, 7L, 8L);
+        assertThat(errors.get(3L)).startsWith("The line is not a valid product");
+        assertThat(errors.get(4L)).isEqualTo("The product must have a name!");
+        assertThat(errors.get(5L)).isEqualTo("The seller of this product doesn't exists in MongoDB!");
+        assertThat(errors.get(6L)).isEqualTo("One of the categories which the product falls into, doesn't exists!");
+        assertThat(errors.get(7L)).isEqualTo("The product must belongs to at least one category!");
+        assertThat(errors.get(8L)).isEqualTo("E11000 duplicate key");
+        //Only the product written is indexed.
+        verify(_catalogIndexer, times(1)).indexed(any(ProductDocument.class));
+        verify(_categoryMemberships).addAll(anyMap());
+    }
+
+    //A chunk that fails after its lines were checked is rolled back: the lines rejected by the checks keep their own reason,
+    //every other line is rejected with the failure, and none is reported twice or counted as imported.
+    @Test
+    public void failedMysqlChunkReportsEachLineOnce() throws Exception
+    {
+        mysqlReferences();
+        doThrow(new IllegalStateException("The outbox is down")).when(_catalogOutbox).changed(eq(OutboxAggregate.Product), anyCollection());
+
+        BulkImportReport report = _productBulkImporter.importIntoMysql(body(
+                "{\"name\":\"Lamp\",\"price\":10,\"images\":[\"lamp.png\"],\"seller\":{\"id\":1},\"fallIntoCategories\":[{\"id\":5}]}",
+                "{\"name\":\"Chair\",\"images\":[],\"seller\":{\"id\":1},\"fallIntoCategories\":[{\"id\":5}]}",
+                "{\"name\":\"Desk\",\"price\":50,\"images\":[\"desk.png\"],\"seller\":{\"id\":1},\"fallIntoCategories\":[{\"id\":5}]}"));
+
+        assertThat(report.getLines()).isEqualTo(3);
+        assertThat(report.getImported()).isZero();
+        assertThat(report.getRejected()).isEqualTo(3);
+        Map<Long, String> errors = errors(report);
+        assertThat(errors).hasSize(3);
+        assertThat(errors.get(1L)).isEqualTo("The chunk of this product failed: The outbox is down");
+        assertThat(errors.get(2L)).isEqualTo("The product must have at least one image!");
+        assertThat(errors.get(3L)).isEqualTo("The chunk of this product failed: The outbox is down");
+        verify(_catalogIndexer, never()).indexed(any(ProductDocument.class));
+        verify(_collectionVersions, never()).mysqlWritten(any());
+    }
+
+    @Test
+    public void mysqlImportCountsTheWrittenLines() throws Exception
+    {
+        mysqlReferences();
+
+        BulkImportReport report = _productBulkImporter.importIntoMysql(body(
+                "{\"name\":\"Lamp\",\"price\":10,\"images\":[\"lamp.png\"],\"seller\":{\"id\":1},\"fallIntoCategories\":[{\"id\":5}]}",
+                "{\"name\":\"Chair\",\"images\":[\"chair.png\"],\"seller\":{\"id\":1},\"fallIntoCategories\":[{\"id\":6}]}"));
+
+        assertThat(report.getImported()).isEqualTo(1);
+        assertThat(errors(report)).containsOnlyKeys(2L);
+        assertThat(errors(report).get(2L)).isEqualTo("One of the categories which the product falls into, doesn't exists!");
+        verify(_catalogIndexer, times(1)).indexed(any(ProductDocument.class));
+    }
+
+    //The transaction runs the chunk as it is, on one seller and one category.
+    private void mysqlReferences()
+    {
+        SellerEntity seller = new SellerEntity("judy");
+        seller.setId(1);
+        CategoryEntity category = new CategoryEntity("Art");
+        category.setId(5);
+        when(_referenceCache.findMysqlSellers(anyCollection())).thenReturn(Collections.singletonMap(1L, seller));
+        when(_referenceCache.findMysqlCategories(anyCollection())).thenReturn(Collections.singletonMap(5L, category));
+        when(_transactionTemplate.execute(any())).thenAnswer(call -> call.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    private static Map<Long, String> errors(BulkImportReport report)
+    {
+        Map<Long, String> errors = new LinkedHashMap<>();
+        for (BulkImportReport.LineError error : report.getErrors())
+        {
+            assertThat(errors.put(error.getLine(), error.getMessage())).as("line %d reported twice", error.getLine()).isNull();
+        }
+        return errors;
+    }
+
+    private static InputStream body(String... lines)
+    {
+        return new ByteArrayInputStream(String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+    }
+}
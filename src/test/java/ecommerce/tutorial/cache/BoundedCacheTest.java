@@ -0,0 +1,111 @@
+package ecommerce.tutorial.cache;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BoundedCacheTest
+{
+    //A load that started before an invalidation returns what it read, but does not store it over the invalidation.
+    @Test
+    public void loadRacingAnInvalidationIsNotStored() throws Exception
+    {
+        BoundedCache<String, String> cache = new BoundedCache<>("products", 100);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch invalidated = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try
+        {
+            Future<String> load = executor.submit(() -> cache.get("lamp", key ->
+            {
+                loading.countDown();
+                await(invalidated);
+                return "old lamp";
+            }));
+            await(loading);
+            cache.invalidate("lamp");
+            invalidated.countDown();
+
+            assertThat(load.get(5, TimeUnit.SECONDS)).isEqualTo("old lamp");
+            assertThat(cache.getIfPresent("lamp")).isNull();
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+
+        //The next load, which started after the invalidation, is stored.
+        assertThat(cache.get("lamp", key -> "new lamp")).isEqualTo("new lamp");
+        assertThat(cache.getIfPresent("lamp")).isEqualTo("new lamp");
+    }
+
+    //The same holds for the values of a batch load, whichever key was invalidated.
+    @Test
+    public void batchLoadRacingAnInvalidationIsNotStored()
+    {
+        BoundedCache<String, String> cache = new BoundedCache<>("products", 100);
+        cache.put("chair", "cached chair");
+
+        Map<String, String> found = cache.getAll(Arrays.asList("chair", "lamp", "desk"), missing ->
+        {
+            cache.invalidate("chair");
+            Map<String, String> loaded = new HashMap<>();
+            missing.forEach(key -> loaded.put(key, "old " + key));
+            return loaded;
+        });
+
+        assertThat(found).containsOnlyKeys("chair", "lamp", "desk");
+        assertThat(found.get("chair")).isEqualTo("cached chair");
+        assertThat(cache.getIfPresent("lamp")).isNull();
+        assertThat(cache.getIfPresent("desk")).isNull();
+        assertThat(cache.getIfPresent("chair")).isNull();
+    }
+
+    //Storing past the weight bound evicts the least recently used entries, a read counting as a use.
+    @Test
+    public void weightBoundEvictsTheLeastRecentlyUsed()
+    {
+        BoundedCache<String, String> cache = new BoundedCache<>("names", 10, String::length, 0);
+        cache.put("a", "aaaa");
+        cache.put("b", "bbbb");
+        assertThat(cache.getIfPresent("a")).isEqualTo("aaaa");
+
+        cache.put("c", "ccc");
+
+        assertThat(cache.getIfPresent("b")).isNull();
+        assertThat(cache.getIfPresent("a")).isEqualTo("aaaa");
+        assertThat(cache.getIfPresent("c")).isEqualTo("ccc");
+        CacheStats stats = cache.stats();
+        assertThat(stats.getSize()).isEqualTo(2);
+        assertThat(stats.getWeight()).isEqualTo(7);
+        assertThat(stats.getEvictions()).isEqualTo(1);
+
+        //A replaced value is weighed again, and a value heavier than the whole bound is not kept.
+        cache.put("a", "a");
+        assertThat(cache.stats().getWeight()).isEqualTo(4);
+        cache.put("d", "ddddddddddd");
+        assertThat(cache.getIfPresent("d")).isNull();
+        assertThat(cache.stats().getWeight()).isEqualTo(0);
+    }
+
+    private static void await(CountDownLatch latch)
+    {
+        try
+        {
+            assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        }
+        catch (InterruptedException e)
+        {
+            throw new IllegalStateException(e);
+        }
+    }
+}
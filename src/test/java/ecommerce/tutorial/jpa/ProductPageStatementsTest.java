@@ -0,0 +1,143 @@
+package ecommerce.tutorial.jpa;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import javax.persistence.EntityManagerFactory;
+
+import ecommerce.tutorial.cache.EhcacheConfigLocation;
+import ecommerce.tutorial.enums.Gender;
+import ecommerce.tutorial.jpa.entities.CategoryEntity;
+import ecommerce.tutorial.jpa.entities.ProductEntity;
+import ecommerce.tutorial.jpa.entities.ProfileEntity;
+import ecommerce.tutorial.jpa.entities.SellerEntity;
+import ecommerce.tutorial.jpa.projections.ProductView;
+import ecommerce.tutorial.jpa.projections.ProductViewReader;
+import ecommerce.tutorial.jpa.repositories.ProductJpaRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//A page of MySQL products, with the seller, the profile, the images and the categories of every product, costs the same
+//statements whatever its size. Runs on an in-memory H2 database.
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@TestPropertySource(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+public class ProductPageStatementsTest
+{
+    private static final int PRODUCTS = 100;
+
+    @Autowired
+    private TestEntityManager _entityManager;
+    @Autowired
+    private EntityManagerFactory _entityManagerFactory;
+    @Autowired
+    private ProductJpaRepository _productJpaRepository;
+    @Autowired
+    private ProductViewReader _productViewReader;
+
+    private Statistics statistics;
+
+    //The JPA part of the application alone: the application class would start MongoDB and seed both databases.
+    @Configuration
+    @EntityScan(basePackageClasses = ProductEntity.class)
+    @EnableJpaRepositories(basePackageClasses = ProductJpaRepository.class)
+    @Import({ProductViewReader.class, EhcacheConfigLocation.class})
+    static class JpaOnly
+    {
+    }
+
+    @Before
+    public void setUp()
+    {
+        SellerEntity[] sellers = {seller("judy", "Judy", "Adams", Gender.Female), seller("michael", "Michael", "Martin", Gender.Male)};
+        CategoryEntity[] categories = {new CategoryEntity("Art"), new CategoryEntity("Wall Decor"), new CategoryEntity("Toys")};
+        for (CategoryEntity category : categories)
+        {
+            _entityManager.persist(category);
+        }
+        for (int i = 0; i < PRODUCTS; i++)
+        {
+            HashSet<CategoryEntity> productCategories = new HashSet<>(Arrays.asList(categories[i % 3], categories[(i + 1) % 3]));
+            _entityManager.persist(new ProductEntity("Product " + i, "Description " + i, i,
+                    Arrays.asList("https://images.example.com/" + i + "/front.jpg", "https://images.example.com/" + i + "/back.jpg"),
+                    sellers[i % 2], productCategories));
+        }
+        //Nothing is read from the persistence context: every association of the page comes from the database.
+        _entityManager.flush();
+        _entityManager.clear();
+        statistics = _entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    //The products with their sellers and profiles, then one batch of images and one of categories.
+    @Test
+    public void entityPageCostsThreeStatements()
+    {
+        assertThat(statementsOfEntityPage(5)).isEqualTo(3);
+        _entityManager.clear();
+        assertThat(statementsOfEntityPage(PRODUCTS)).isEqualTo(3);
+    }
+
+    //The product rows, then their sellers, their categories and their images.
+    @Test
+    public void viewPageCostsFourStatements()
+    {
+        assertThat(statementsOfViewPage(5)).isEqualTo(4);
+        assertThat(statementsOfViewPage(PRODUCTS)).isEqualTo(4);
+    }
+
+    private long statementsOfEntityPage(int size)
+    {
+        statistics.clear();
+        List<ProductEntity> products = _productJpaRepository.findByIdGreaterThanOrderByIdAsc(0, PageRequest.of(0, size));
+        assertThat(products).hasSize(size);
+        //What the serialization of the page reads.
+        for (ProductEntity product : products)
+        {
+            assertThat(product.getSeller().getProfile().getFirstName()).isNotNull();
+            assertThat(product.getImages()).hasSize(2);
+            assertThat(product.getFallIntoCategories()).hasSize(2);
+        }
+        return statistics.getPrepareStatementCount();
+    }
+
+    private long statementsOfViewPage(int size)
+    {
+        statistics.clear();
+        List<ProductView> products = _productViewReader.findAfter(0, size);
+        assertThat(products).hasSize(size);
+        for (ProductView product : products)
+        {
+            assertThat(product.getSeller().getProfile().getFirstName()).isNotNull();
+            assertThat(product.getImages()).hasSize(2);
+            assertThat(product.getFallIntoCategories()).hasSize(2);
+        }
+        return statistics.getPrepareStatementCount();
+    }
+
+    private SellerEntity seller(String accountId, String firstName, String lastName, Gender gender)
+    {
+        SellerEntity seller = new SellerEntity(accountId);
+        seller.setProfile(new ProfileEntity(seller, firstName, lastName, gender));
+        return _entityManager.persist(seller);
+    }
+}
@@ -0,0 +1,161 @@
+package ecommerce.tutorial.membership;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import ecommerce.tutorial.cache.EhcacheConfigLocation;
+import ecommerce.tutorial.enums.Gender;
+import ecommerce.tutorial.jpa.entities.CategoryEntity;
+import ecommerce.tutorial.jpa.entities.ProductEntity;
+import ecommerce.tutorial.jpa.entities.ProfileEntity;
+import ecommerce.tutorial.jpa.entities.SellerEntity;
+import ecommerce.tutorial.jpa.projections.ProductView;
+import ecommerce.tutorial.jpa.projections.ProductViewReader;
+import ecommerce.tutorial.jpa.repositories.ProductJpaRepository;
+import ecommerce.tutorial.jpa.repositories.ProductSortKeyJpaRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//The pages of a category by price and by name, read from the sort keys, follow each other without a gap or a repeat,
+//ties of the key included, and follow the writes of the products. Runs on an in-memory H2 database.
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+public class ProductSortKeysTest
+{
+    private static final int PRODUCTS = 40;
+
+    private static final int PAGE = 7;
+
+    @Autowired
+    private TestEntityManager _entityManager;
+    @Autowired
+    private ProductSortKeys _productSortKeys;
+    @Autowired
+    private ProductSortKeyJpaRepository _productSortKeyJpaRepository;
+    @Autowired
+    private ProductViewReader _productViewReader;
+
+    private CategoryEntity art;
+
+    private final List<ProductEntity> inArt = new ArrayList<>();
+
+    @Configuration
+    @EntityScan(basePackageClasses = ProductEntity.class)
+    @EnableJpaRepositories(basePackageClasses = ProductJpaRepository.class)
+    @Import({ProductViewReader.class, ProductSortKeys.class, EhcacheConfigLocation.class})
+    static class JpaOnly
+    {
+    }
+
+    @Before
+    public void setUp()
+    {
+        SellerEntity seller = new SellerEntity("judy");
+        seller.setProfile(new ProfileEntity(seller, "Judy", "Adams", Gender.Female));
+        _entityManager.persist(seller);
+        art = _entityManager.persist(new CategoryEntity("Art"));
+        CategoryEntity toys = _entityManager.persist(new CategoryEntity("Toys"));
+        List<ProductEntity> created = new ArrayList<>();
+        for (int i = 0; i < PRODUCTS; i++)
+        {
+            //Five products per price and per name, spread over both categories.
+            HashSet<CategoryEntity> categories = new HashSet<>(i % 4 == 3 ? Arrays.asList(toys) : Arrays.asList(art, toys));
+            ProductEntity product = _entityManager.persist(new ProductEntity("Product " + (i % 8), "Description " + i, 10 + (i % 8) * 0.5f,
+                    Arrays.asList("https://images.example.com/" + i + ".jpg"), seller, categories));
+            created.add(product);
+            if (categories.contains(art))
+            {
+                inArt.add(product);
+            }
+        }
+        _productSortKeys.created(created);
+        _entityManager.flush();
+        _entityManager.clear();
+    }
+
+    @Test
+    public void pagesByPriceAndNameCoverTheCategoryInOrder()
+    {
+        assertThat(pagesByPrice()).isEqualTo(expected(ProductEntity::getPrice));
+        assertThat(pagesByName()).isEqualTo(expected(ProductEntity::getName));
+    }
+
+    @Test
+    public void updatedProductMovesWithinItsCategory()
+    {
+        ProductEntity product = _entityManager.find(ProductEntity.class, inArt.get(0).getId());
+        product.setPrice(1f);
+        product.setName("A first product");
+        _productSortKeys.updated(product);
+        _entityManager.flush();
+
+        assertThat(pagesByPrice().get(0)).isEqualTo(product.getId());
+        assertThat(pagesByName().get(0)).isEqualTo(product.getId());
+        assertThat(pagesByPrice()).hasSize(inArt.size());
+    }
+
+    @Test
+    public void rebuildRestoresTheKeysFromTheMemberships()
+    {
+        List<Long> byPrice = pagesByPrice();
+        _productSortKeyJpaRepository.deleteAllRows();
+        _productSortKeys.rebuild();
+        _entityManager.clear();
+
+        assertThat(pagesByPrice()).isEqualTo(byPrice);
+    }
+
+    private List<Long> pagesByPrice()
+    {
+        return pages(last -> _productViewReader.findInCategoryByPrice(art.getId(), last == null ? -Float.MAX_VALUE : last.getPrice(),
+                last == null ? 0 : last.getId(), PAGE));
+    }
+
+    private List<Long> pagesByName()
+    {
+        return pages(last -> _productViewReader.findInCategoryByName(art.getId(), last == null ? "" : last.getName(),
+                last == null ? 0 : last.getId(), PAGE));
+    }
+
+    private static List<Long> pages(Function<ProductView, List<ProductView>> pageAfter)
+    {
+        List<Long> ids = new ArrayList<>();
+        ProductView last = null;
+        List<ProductView> page;
+        do
+        {
+            page = pageAfter.apply(last);
+            page.forEach(product -> ids.add(product.getId()));
+            last = page.isEmpty() ? null : page.get(page.size() - 1);
+        }
+        while (page.size() == PAGE);
+        return ids;
+    }
+
+    private <K extends Comparable<K>> List<Long> expected(Function<ProductEntity, K> key)
+    {
+        return inArt.stream()
+                .sorted(Comparator.comparing(key).thenComparing(ProductEntity::getId))
+                .map(ProductEntity::getId)
+                .collect(Collectors.toList());
+    }
+}
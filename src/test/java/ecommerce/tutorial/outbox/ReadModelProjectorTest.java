@@ -0,0 +1,146 @@
+package ecommerce.tutorial.outbox;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.WriteRequest;
+
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import ecommerce.tutorial.enums.OutboxAggregate;
+import ecommerce.tutorial.jpa.entities.OutboxEventEntity;
+import ecommerce.tutorial.jpa.projections.ProductRow;
+import ecommerce.tutorial.jpa.projections.ProductView;
+import ecommerce.tutorial.jpa.projections.ProductViewReader;
+import ecommerce.tutorial.jpa.repositories.OutboxEventJpaRepository;
+import ecommerce.tutorial.jpa.repositories.ProductJpaRepository;
+import ecommerce.tutorial.mongodb.models.ProjectedProduct;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+//A claimed batch of events is projected from the current rows and only then marked as processed.
+@RunWith(MockitoJUnitRunner.class)
+public class ReadModelProjectorTest
+{
+    private static final int DUPLICATE_KEY = 11000;
+
+    @Mock
+    private OutboxEventJpaRepository _outboxEventJpaRepository;
+    @Mock
+    private ProductJpaRepository _productJpaRepository;
+    @Mock
+    private ProductViewReader _productViewReader;
+    @Mock
+    private CatalogOutbox _catalogOutbox;
+    @Mock
+    private MongoOperations _mongoOperations;
+    @Mock
+    private BulkOperations _bulkOperations;
+
+    @InjectMocks
+    private ReadModelProjector _readModelProjector = new ReadModelProjector(500, 60000, 168);
+
+    @Before
+    public void setUp()
+    {
+        //A product event and the event of a seller with two products, of which the second is gone from MySQL.
+        when(_catalogOutbox.claim(anyInt(), anyLong())).thenReturn(Arrays.asList(
+                event(1, OutboxAggregate.Product, 101), event(2, OutboxAggregate.Seller, 7)));
+        when(_productJpaRepository.findIdsBySellerIdIn(Collections.singleton(7L))).thenReturn(Arrays.asList(102L, 103L));
+        when(_productViewReader.findByIds(Arrays.asList(101L, 102L, 103L))).thenReturn(Arrays.asList(product(101), product(102)));
+        when(_mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, ProjectedProduct.class)).thenReturn(_bulkOperations);
+        when(_bulkOperations.upsert(any(Query.class), any(Update.class))).thenReturn(_bulkOperations);
+        when(_bulkOperations.remove(any(Query.class))).thenReturn(_bulkOperations);
+    }
+
+    @Test
+    public void batchIsProjectedThenMarkedAsProcessed()
+    {
+        _readModelProjector.project();
+
+        verify(_bulkOperations, times(2)).upsert(any(Query.class), any(Update.class));
+        ArgumentCaptor<Query> removed = ArgumentCaptor.forClass(Query.class);
+        verify(_bulkOperations).remove(removed.capture());
+        assertThat((Collection<?>) ((Document) removed.getValue().getQueryObject().get("_id")).get("$in")).containsExactly(103L);
+        verify(_catalogOutbox).processed(eq(Arrays.asList(1L, 2L)), any(Date.class));
+        ReadModelStats stats = _readModelProjector.stats();
+        assertThat(stats.getProcessedEvents()).isEqualTo(2);
+        assertThat(stats.getProjectedProducts()).isEqualTo(2);
+        assertThat(stats.getRemovedProducts()).isEqualTo(1);
+    }
+
+    //An upsert that met a document inserted by another node is written once more; a second conflict means a newer
+    //document is there, which is kept.
+    @Test
+    public void conflictingUpsertIsWrittenAgainOnce()
+    {
+        when(_bulkOperations.execute())
+                .thenThrow(bulkWriteException(DUPLICATE_KEY, 1))
+                .thenThrow(bulkWriteException(DUPLICATE_KEY, 0));
+
+        _readModelProjector.project();
+
+        verify(_bulkOperations, times(3)).upsert(any(Query.class), any(Update.class));
+        verify(_catalogOutbox).processed(anyCollection(), any(Date.class));
+        assertThat(_readModelProjector.stats().getProjectedProducts()).isEqualTo(1);
+    }
+
+    //Any other failure of the write leaves the events pending, to be claimed again.
+    @Test
+    public void failedWriteLeavesTheEventsPending()
+    {
+        when(_bulkOperations.execute()).thenThrow(bulkWriteException(121, 0));
+
+        assertThatThrownBy(() -> _readModelProjector.project()).isInstanceOf(MongoBulkWriteException.class);
+        verify(_catalogOutbox, never()).processed(anyCollection(), any(Date.class));
+        assertThat(_readModelProjector.stats().getProcessedEvents()).isZero();
+    }
+
+    private static MongoBulkWriteException bulkWriteException(int code, int index)
+    {
+        return new MongoBulkWriteException(BulkWriteResult.acknowledged(WriteRequest.Type.UPDATE, 0, Collections.emptyList()),
+                Collections.singletonList(new BulkWriteError(code, "write failed", new BsonDocument(), index)), null, new ServerAddress());
+    }
+
+    private static OutboxEventEntity event(long id, OutboxAggregate aggregate, long aggregateId)
+    {
+        OutboxEventEntity event = new OutboxEventEntity(aggregate, aggregateId, new Date());
+        event.setId(id);
+        return event;
+    }
+
+    private static ProductView product(long id)
+    {
+        List<String> images = Collections.singletonList(id + ".png");
+        return new ProductView(new ProductRow(id, 1, "Product " + id, null, 10f, 7), images, null, Collections.emptyList());
+    }
+}
@@ -0,0 +1,45 @@
+package ecommerce.tutorial.paging;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class KeysetCursorTest
+{
+    //A name may hold the separator, even at its ends, and comes back as it was.
+    @Test
+    public void keyWithTheSeparatorRoundTrips()
+    {
+        for (String key : new String[]{"Lamp: blue", ":Lamp", "Lamp:", "::", "", "L\u00e4mpchen \uD83D\uDCA1"})
+        {
+            KeysetCursor cursor = KeysetCursor.decode(new KeysetCursor("name", key, 42).encode());
+
+            assertThat(cursor.getSort()).isEqualTo("name");
+            assertThat(cursor.getKey()).isEqualTo(key);
+            assertThat(cursor.getId()).isEqualTo(42);
+        }
+    }
+
+    //The encoded cursor can be passed in a query string as it is.
+    @Test
+    public void encodedCursorIsUrlSafe()
+    {
+        String encoded = new KeysetCursor("price", "???>>>", Long.MAX_VALUE).encode();
+
+        assertThat(encoded).matches("[A-Za-z0-9_-]+");
+        assertThat(KeysetCursor.decode(encoded).getId()).isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    public void cursorWithoutBothSeparatorsIsRejected()
+    {
+        String oneSeparator = Base64.getUrlEncoder().encodeToString("name:42".getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> KeysetCursor.decode(oneSeparator)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> KeysetCursor.decode("not base64!")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
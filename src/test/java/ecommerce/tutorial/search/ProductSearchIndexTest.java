@@ -0,0 +1,120 @@
+package ecommerce.tutorial.search;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import ecommerce.tutorial.enums.Backend;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class ProductSearchIndexTest
+{
+    private static final String[] WORDS = {"oak", "pine", "table", "chair", "lamp", "desk", "red", "soft", "steel", "glass"};
+
+    //A word of the name outweighs the same word in the description, and a rare word outweighs a common one.
+    @Test
+    public void rankingFollowsBm25()
+    {
+        ProductSearchIndex index = new ProductSearchIndex();
+        index.index(document("1", "Oak table", "A table for the kitchen"));
+        index.index(document("2", "Kitchen chair", "Made of oak"));
+        index.index(document("3", "Pine table", "Light and cheap"));
+        index.index(document("4", "Pine shelf", "Light and cheap"));
+
+        assertThat(ids(search(index, "oak", 10))).containsExactly("1", "2");
+        assertThat(ids(search(index, "kitchen", 10))).containsExactly("2", "1");
+        //The third and the fourth differ only by a word of their names: shelf, in one product, beats table, in two.
+        assertThat(ids(search(index, "shelf table", 10))).startsWith("4").hasSize(3);
+        assertThat(search(index, "walnut", 10).getTotal()).isZero();
+    }
+
+    //An updated product is found by its new words only, and counts once.
+    @Test
+    public void updatedProductIsFoundByItsNewWords()
+    {
+        ProductSearchIndex index = new ProductSearchIndex();
+        index.index(document("1", "Red lamp", "Reading lamp"));
+        index.index(document("2", "Desk lamp", "Steel"));
+        index.index(document("1", "Blue lamp", "Reading lamp"));
+
+        assertThat(search(index, "red", 10).getTotal()).isZero();
+        assertThat(ids(search(index, "blue", 10))).containsExactly("1");
+        SearchResult lamps = search(index, "lamp", 10);
+        assertThat(lamps.getTotal()).isEqualTo(2);
+        assertThat(lamps.getHits()).extracting(SearchHit::getName).containsExactlyInAnyOrder("Blue lamp", "Desk lamp");
+    }
+
+    //After any number of updates, before and after the index is rebuilt, the scores are those of an index holding only the
+    //current documents: the deleted documents count neither in the document frequencies nor in the average length.
+    @Test
+    public void scoresIgnoreDeletedDocumentsAcrossRebuilds()
+    {
+        Random random = new Random(42);
+        ProductSearchIndex updated = new ProductSearchIndex();
+        Map<String, ProductDocument> current = new LinkedHashMap<>();
+        for (int round = 0; round < 2000; round++)
+        {
+            ProductDocument document = document(String.valueOf(random.nextInt(150)), words(random, 2), words(random, 1 + random.nextInt(6)));
+            updated.index(document);
+            current.put(document.getId(), document);
+            if (round % 97 == 0)
+            {
+                assertSameScores(updated, current);
+            }
+        }
+        assertSameScores(updated, current);
+    }
+
+    private static void assertSameScores(ProductSearchIndex updated, Map<String, ProductDocument> current)
+    {
+        ProductSearchIndex fresh = new ProductSearchIndex();
+        current.values().forEach(fresh::index);
+        for (String query : new String[]{"oak", "table chair", "red soft glass", "pine desk lamp"})
+        {
+            SearchResult expected = search(fresh, query, current.size());
+            SearchResult actual = search(updated, query, current.size());
+            assertThat(actual.getTotal()).isEqualTo(expected.getTotal());
+            Map<String, Float> expectedScores = scores(expected);
+            scores(actual).forEach((id, score) -> assertThat(score).isCloseTo(expectedScores.get(id), within(1e-4f)));
+        }
+    }
+
+    private static Map<String, Float> scores(SearchResult result)
+    {
+        Map<String, Float> scores = new LinkedHashMap<>();
+        result.getHits().forEach(hit -> scores.put(hit.getId(), hit.getScore()));
+        return scores;
+    }
+
+    private static String words(Random random, int count)
+    {
+        List<String> words = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+        {
+            words.add(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return String.join(" ", words);
+    }
+
+    private static SearchResult search(ProductSearchIndex index, String text, int size)
+    {
+        return index.search(text, size, document -> {});
+    }
+
+    private static List<String> ids(SearchResult result)
+    {
+        return result.getHits().stream().map(SearchHit::getId).collect(Collectors.toList());
+    }
+
+    private static ProductDocument document(String id, String name, String description)
+    {
+        return new ProductDocument(Backend.MySQL, id, name, description, 10f, new ArrayList<>());
+    }
+}
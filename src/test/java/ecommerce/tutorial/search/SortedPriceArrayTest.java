@@ -0,0 +1,66 @@
+package ecommerce.tutorial.search;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SortedPriceArrayTest
+{
+    //The appended entries, sorted once, are in the order the inserts keep, negative prices and ties included.
+    @Test
+    public void sortedLoadMatchesInserts()
+    {
+        Random random = new Random(42);
+        SortedPriceArray loaded = new SortedPriceArray();
+        SortedPriceArray inserted = new SortedPriceArray();
+        List<float[]> entries = new ArrayList<>();
+        for (int ordinal = 0; ordinal < 5000; ordinal++)
+        {
+            float price = random.nextInt(200) - 20 + (random.nextBoolean() ? 0.5f : 0f);
+            loaded.append(price, ordinal);
+            inserted.insert(price, ordinal);
+            entries.add(new float[]{price, ordinal});
+        }
+        loaded.sort();
+        entries.sort(Comparator.<float[]>comparingDouble(entry -> entry[0]).thenComparingDouble(entry -> entry[1]));
+
+        assertThat(loaded.size()).isEqualTo(entries.size());
+        for (int i = 0; i < entries.size(); i++)
+        {
+            assertThat(loaded.ordinalAt(i)).isEqualTo((int) entries.get(i)[1]);
+            assertThat(inserted.ordinalAt(i)).isEqualTo(loaded.ordinalAt(i));
+        }
+        assertThat(loaded.lowerBound(-10f)).isEqualTo(inserted.lowerBound(-10f));
+        assertThat(loaded.upperBound(100.5f)).isEqualTo(inserted.upperBound(100.5f));
+    }
+
+    //A product updated while the load runs is moved within the unsorted entries, and an entry appended twice is kept once.
+    @Test
+    public void writesDuringTheLoadAreKept()
+    {
+        SortedPriceArray array = new SortedPriceArray();
+        array.append(30f, 0);
+        array.append(10f, 1);
+        array.append(20f, 2);
+        array.remove(10f, 1);
+        array.insert(40f, 1);
+        array.append(20f, 2);
+        array.sort();
+
+        assertThat(array.size()).isEqualTo(3);
+        assertThat(array.ordinalAt(0)).isEqualTo(2);
+        assertThat(array.ordinalAt(1)).isEqualTo(0);
+        assertThat(array.ordinalAt(2)).isEqualTo(1);
+
+        array.insert(5f, 3);
+        array.remove(30f, 0);
+        assertThat(array.size()).isEqualTo(3);
+        assertThat(array.ordinalAt(0)).isEqualTo(3);
+        assertThat(array.lowerBound(20f)).isEqualTo(1);
+    }
+}